@@ -0,0 +1,261 @@
+package SP20_simulator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시뮬레이터의 주요 경로(명령어 해석, 명령어 처리, 명령어 수행, 메모리 접근, load, SYMTAB 검색)의 JMH benchmark.
+ * 결과는 Blackhole로 넘겨 최적화로 사라지지 않게 하고, 측정마다 별도 JVM을 띄운다(fork).
+ *
+ * 사용법 (source/bench 디렉토리에서) :
+ *   mvn package
+ *   java -jar target/benchmarks.jar [JMH 옵션...]     (예: -rf csv -rff result.csv 로 결과를 CSV로 저장)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SicBenchmark {
+    //LDA #0, LDX #0, loop: ADD #1, TIX #4000, JLT loop, J @zero(프로그램 종료)
+    static final String LOOP_PROGRAM = "010000" + "050000" + "190001" + "2D0FA0" + "3B2FF7" + "3E2000" + "000000";
+    //LOOP_PROGRAM을 끝까지 수행할 때의 명령어 개수 : LDA, LDX + 4000 * (ADD, TIX, JLT) + J
+    static final int LOOP_STEPS = 2 + 4000 * 3 + 1;
+    //LOOP_PROGRAM의 명령어 주소 (J 제외)
+    static final int[] LOOP_ADDRESSES = {0, 3, 6, 9, 12};
+
+    /**
+     * LOOP_PROGRAM을 메모리에 올려 둔 시뮬레이터
+     */
+    @State(Scope.Thread)
+    public static class Machine {
+        ResourceManager rMgr;
+        SicSimulator sim;
+        DecodedInstruction add;     //해석해 둔 ADD #1
+        int next = 0;               //다음에 사용할 LOOP_ADDRESSES의 index
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            rMgr = new ResourceManager();
+            sim = new SicSimulator(rMgr);
+            sim.load(null);
+            rMgr.setMemory(0, LOOP_PROGRAM.toCharArray(), LOOP_PROGRAM.length() / 2);
+            add = sim.decode(6);
+        }
+
+        int nextAddress() {
+            int address = LOOP_ADDRESSES[next];
+            next = next + 1 == LOOP_ADDRESSES.length ? 0 : next + 1;
+            return address;
+        }
+    }
+
+    /**
+     * 명령어 하나를 메모리에서 해석하는 비용 (decode cache를 거치지 않는다)
+     */
+    @Benchmark
+    public DecodedInstruction decode(Machine machine) {
+        return machine.sim.decode(machine.nextAddress());
+    }
+
+    /**
+     * 해석해 둔 명령어 하나를 처리 table로 수행하는 비용 (ADD #1)
+     */
+    @Benchmark
+    public int dispatch(Machine machine) {
+        DecodedInstruction add = machine.add;
+        return machine.sim.instLuncher.launch(add.handler, add.nixbpe, add.displacement, 9);
+    }
+
+    /**
+     * SicSimulator.oneStep 하나의 비용 (decode cache, log 기록 포함, block 수행 없음)
+     */
+    @Benchmark
+    public boolean oneStep(Machine machine) {
+        boolean running = machine.sim.oneStep();
+        if (!running)
+            machine.rMgr.setRegister(8, 0);
+        return running;
+    }
+
+    /**
+     * 수행 방식별 LOOP_PROGRAM 시뮬레이터
+     * (interpret : 명령어 하나씩 해석, block : block 단위 해석, compile : JVM bytecode로 번역된 block)
+     */
+    @State(Scope.Thread)
+    public static class Runner {
+        @Param({"interpret", "block", "compile"})
+        String mode;
+
+        ResourceManager rMgr;
+        SicSimulator sim;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            rMgr = new ResourceManager();
+            sim = new SicSimulator(rMgr);
+            sim.load(null);
+            rMgr.setMemory(0, LOOP_PROGRAM.toCharArray(), LOOP_PROGRAM.length() / 2);
+            sim.blockMode = !mode.equals("interpret");
+            sim.compileMode = mode.equals("compile");
+        }
+    }
+
+    /**
+     * SicSimulator.run으로 LOOP_PROGRAM을 끝까지 수행할 때 명령어 하나당 비용 (수행 방식별 처리량)
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOP_STEPS)
+    public int runBlocks(Runner runner) {
+        runner.rMgr.setRegister(8, 0);
+        runner.sim.run(0);
+        return runner.rMgr.getRegister(0);
+    }
+
+    /**
+     * 메모리 접근 benchmark용 ResourceManager
+     */
+    @State(Scope.Thread)
+    public static class Memory {
+        ResourceManager rMgr;
+        char[] data = "ABCDEF".toCharArray();
+        int address = 0;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            rMgr = new ResourceManager();
+            rMgr.initializeResource();
+        }
+
+        int nextAddress() {
+            address = (address + 16) & 0xFFF0;
+            return address;
+        }
+    }
+
+    @Benchmark
+    public int readWord(Memory memory) {
+        return memory.rMgr.readWord(memory.nextAddress());
+    }
+
+    @Benchmark
+    public void writeWord(Memory memory) {
+        int address = memory.nextAddress();
+        memory.rMgr.writeWord(address, address);
+    }
+
+    @Benchmark
+    public char[] getMemory(Memory memory) {
+        return memory.rMgr.getMemory(memory.nextAddress(), 3);
+    }
+
+    @Benchmark
+    public void setMemory(Memory memory) {
+        memory.rMgr.setMemory(memory.nextAddress(), memory.data, 3);
+    }
+
+    @Benchmark
+    public int byteToInt(Memory memory) {
+        return memory.rMgr.byteToInt(memory.data);
+    }
+
+    /**
+     * load benchmark용 object program, T 레코드 개수를 늘려가며 측정한다.
+     */
+    @State(Scope.Thread)
+    public static class Program {
+        @Param({"100", "500", "2000"})
+        int records;
+
+        File file;
+        ResourceManager rMgr;
+        SicLoader loader;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            file = File.createTempFile("sic-bench", ".obj");
+            file.deleteOnExit();
+            writeObjectProgram(file, records);
+            rMgr = new ResourceManager();
+            loader = new SicLoader(rMgr);
+        }
+    }
+
+    /**
+     * 메모리를 초기화하고 object program 하나를 load하는 비용
+     */
+    @Benchmark
+    public int load(Program program) throws IOException {
+        program.rMgr.initializeResource();
+        program.loader.load(program.file);
+        return program.loader.totalLength;
+    }
+
+    /**
+     * 측정용 object program 파일을 만든다.
+     * 각 T 레코드마다 M 레코드 하나와 D 레코드 symbol 하나를 함께 만든다. (T 레코드 하나당 30 byte, 최대 2184개)
+     */
+    static void writeObjectProgram(File file, int records) throws IOException {
+        int length = records * 30;
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(String.format("HBENCH 000000%06X\n", length));
+            for (int i = 0; i < records; i++)
+                writer.write(String.format("DS%05d%06X\n", i, i * 30));
+            StringBuilder bytes = new StringBuilder();
+            for (int i = 0; i < 30; i++)
+                bytes.append("4B");
+            for (int i = 0; i < records; i++)
+                writer.write(String.format("T%06X1E%s\n", i * 30, bytes));
+            for (int i = 0; i < records; i++)
+                writer.write(String.format("M%06X05+S%05d\n", i * 30 + 1, i));
+            writer.write("E000000\n");
+        }
+    }
+
+    /**
+     * SYMTAB 검색 benchmark용 table, 저장된 symbol 개수를 늘려가며 측정한다.
+     */
+    @State(Scope.Thread)
+    public static class Symbols {
+        @Param({"100", "10000", "100000"})
+        int size;
+
+        SymbolTable symtab;
+        String[] names;
+        int next = 0;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            symtab = new SymbolTable();
+            names = new String[size];
+            for (int i = 0; i < size; i++) {
+                names[i] = String.format("S%05d", i);
+                symtab.putSymbol(names[i], i);
+            }
+        }
+    }
+
+    @Benchmark
+    public void symtabSearch(Symbols symbols, Blackhole blackhole) {
+        blackhole.consume(symbols.symtab.search(symbols.names[symbols.next]));
+        symbols.next = symbols.next + 1 == symbols.names.length ? 0 : symbols.next + 1;
+    }
+}
@@ -0,0 +1,21 @@
+package SP20_simulator;
+
+/**
+ * 메모리 크기를 벗어난 주소에 접근했을 때 발생한다.
+ * SicSimulator는 이 예외를 받으면 해당 명령어를 되돌리고 수행을 멈춘다. (Breakpoints.ADDRESS_ERROR)
+ */
+public class AddressingException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    final int address;      //접근한 주소
+
+    /**
+     * AddressingException 생성자
+     * @param address    접근한 주소
+     * @param memorySize 메모리 크기
+     */
+    public AddressingException(int address, int memorySize) {
+        super(String.format("address %06X is out of memory (size %06X)", address, memorySize));
+        this.address = address;
+    }
+}
@@ -0,0 +1,585 @@
+package SP20_simulator;
+
+import java.lang.invoke.MethodHandles;
+
+import static SP20_simulator.CodeEmitter.*;
+
+/**
+ * 자주 수행되는 block(TranslatedBlock)을 JVM bytecode로 번역하여 hidden class(CompiledBlock)로 만든다.
+ *
+ * 명령어마다 addressing mode(PC-relative, base-relative, indexed, indirect, immediate, extended)를 번역할 때 풀어서
+ * Target Address 계산을 상수와 레지스터 덧셈만으로 만들고, 레지스터 배열과 메모리(ResourceManager)를 직접 다룬다.
+ * 메모리 읽기/쓰기는 ResourceManager를 거치므로 주소 확인, page 할당, 감시점, decode cache 무효화는 해석기와 같다.
+ * 번역하지 않는 명령어(입출력, 실수 연산, format 1, SHIFTL/SHIFTR 등)는 처리 함수를 그대로 호출한다.
+ *
+ * 만들어진 class는 block을 무효화하면 더 이상 참조되지 않으므로 class loader와 상관없이 unload될 수 있다.
+ */
+class BlockCompiler {
+    static final String NAME = "SP20_simulator/GeneratedBlock";
+    static final String BASE = "SP20_simulator/CompiledBlock";
+    static final String RESOURCE = "SP20_simulator/ResourceManager";
+    static final String LUNCHER = "SP20_simulator/InstLuncher";
+    static final String BLOCK = "SP20_simulator/TranslatedBlock";
+    static final String TRACE_BUFFER = "SP20_simulator/TraceBuffer";
+
+    //run()의 local 변수 번호
+    static final int THIS = 0;
+    static final int REGISTER = 1;      //레지스터 배열
+    static final int TRACE = 2;         //TraceBuffer
+    static final int BUDGET = 3;        //수행할 수 있는 최대 명령어 개수
+    static final int COUNT = 4;         //이번 run()에서 수행한 명령어 개수
+    static final int SLOT = 5;          //다음 log를 기록할 배열 index
+    static final int MASK = 6;          //log 배열 index mask
+    static final int T_TARGET = 7;      //log의 Target Address 배열
+    static final int MEMORY = 8;        //ResourceManager
+    static final int LOCATION = 9;      //계산한 Target Address
+    static final int VALUE = 10;        //임시 값
+    static final int TARGET = 11;       //log에 남길 Target Address
+    static final int PC = 12;           //run()이 돌려줄 PC
+
+    static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    final TranslatedBlock block;
+    final ClassEmitter cls = new ClassEmitter(NAME, BASE);
+    final int[] addresses;
+    final boolean[] fallback;
+    CodeEmitter code;
+    int top;        //block의 첫 명령어 label
+    int exit;       //PC를 돌려주는 label
+
+    /**
+     * BlockCompiler 생성자
+     * @param block 번역할 block
+     */
+    BlockCompiler(TranslatedBlock block) {
+        this.block = block;
+        addresses = new int[block.insts.length];
+        fallback = new boolean[block.insts.length];
+    }
+
+    /**
+     * block을 번역하여 수행할 수 있는 CompiledBlock을 만든다.
+     *
+     * @param block       번역할 block
+     * @param rMgr        block이 수행될 ResourceManager
+     * @param instLuncher 번역하지 않는 명령어를 수행할 InstLuncher
+     * @return 번역된 block, 번역할 수 없으면 null
+     */
+    static CompiledBlock compile(TranslatedBlock block, ResourceManager rMgr, InstLuncher instLuncher) {
+        if (!canCompile(block))
+            return null;
+        BlockCompiler compiler = new BlockCompiler(block);
+        byte[] bytes = compiler.generate();
+        try {
+            Class<?> generated = LOOKUP.defineHiddenClass(bytes, true).lookupClass();
+            CompiledBlock compiled = (CompiledBlock) generated
+                    .getDeclaredConstructor(ResourceManager.class, InstLuncher.class, TranslatedBlock.class)
+                    .newInstance(rMgr, instLuncher, block);
+            compiled.addresses = compiler.addresses;
+            compiled.fallback = compiler.fallback;
+            return compiled;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.printf("cannot compile block at %06X: %s%n", block.start, e);
+            return null;
+        }
+    }
+
+    /**
+     * format 2 명령어가 PC(8번)나 없는 레지스터를 쓰면 번역하지 않는다.
+     * (해석기는 명령어마다 PC 레지스터를 갱신하지만 번역된 code는 block이 끝날 때만 갱신한다)
+     */
+    static boolean canCompile(TranslatedBlock block) {
+        for (DecodedInstruction decoded : block.insts) {
+            if (decoded.format != 2)
+                continue;
+            //format 2의 nixbpe에는 opcode의 하위 2 bit가 섞여 있을 수 있다 (CLEAR는 그대로 레지스터 번호로 쓴다)
+            int r1 = decoded.nixbpe;
+            int r2 = decoded.displacement;
+            if (r1 == 8 || r1 > 9 || r2 == 8 || r2 > 9)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return 만들어진 class 파일
+     */
+    byte[] generate() {
+        //생성자 : 인자를 그대로 CompiledBlock 생성자에 넘긴다
+        code = new CodeEmitter(cls, 4);
+        code.setLocals(NAME, RESOURCE, LUNCHER, BLOCK);
+        for (int i = 0; i < 4; i++)
+            code.aload(i);
+        code.invoke(INVOKESPECIAL, BASE, "<init>", "(L" + RESOURCE + ";L" + LUNCHER + ";L" + BLOCK + ";)V");
+        code.op(RETURN);
+        cls.addMethod(0, "<init>", "(L" + RESOURCE + ";L" + LUNCHER + ";L" + BLOCK + ";)V", code);
+
+        code = new CodeEmitter(cls, 8);
+        code.setLocals(NAME, "[I", TRACE_BUFFER, "I", "I", "I", "I", "[I", RESOURCE, "I", "I", "I", "I");
+        //log 배열과 기록할 위치, 자주 쓰는 값을 local 변수로 가져온다
+        code.aload(TRACE);
+        code.field(GETFIELD, TRACE_BUFFER, "target", "[I");
+        code.astore(T_TARGET);
+        code.aload(TRACE);
+        code.field(GETFIELD, TRACE_BUFFER, "mask", "I");
+        code.istore(MASK);
+        code.aload(TRACE);
+        code.field(GETFIELD, TRACE_BUFFER, "count", "J");
+        code.op(L2I);
+        code.iload(MASK);
+        code.op(IAND);
+        code.istore(SLOT);
+        code.aload(THIS);
+        code.field(GETFIELD, BASE, "rMgr", "L" + RESOURCE + ";");
+        code.astore(MEMORY);
+        for (int local : new int[]{COUNT, LOCATION, VALUE, TARGET, PC}) {
+            code.iconst(0);
+            code.istore(local);
+        }
+
+        top = code.newLabel();
+        exit = code.newLabel();
+        int handler = code.newLabel();
+        code.mark(top);
+        int address = block.start;
+        for (int i = 0; i < block.insts.length; i++) {
+            DecodedInstruction decoded = block.insts[i];
+            addresses[i] = address;
+            instruction(i, decoded, address + decoded.length, i == block.insts.length - 1);
+            address += decoded.length;
+        }
+
+        //수행한 명령어 개수를 남기고 PC를 돌려준다
+        code.mark(exit);
+        code.aload(THIS);
+        code.iload(COUNT);
+        code.field(PUTFIELD, BASE, "executed", "I");
+        code.iload(PC);
+        code.op(IRETURN);
+        //메모리 범위를 벗어나는 등의 예외도 수행한 명령어 개수와 그 명령어의 Target Address를 남긴 뒤 다시 던진다
+        code.markHandler(handler);
+        code.aload(THIS);
+        code.iload(COUNT);
+        code.field(PUTFIELD, BASE, "executed", "I");
+        code.aload(THIS);
+        code.iload(TARGET);
+        code.field(PUTFIELD, BASE, "faultTarget", "I");
+        code.op(ATHROW);
+        code.catchAll(top, exit, handler);
+        cls.addMethod(0, "run", "([IL" + TRACE_BUFFER + ";I)I", code);
+        return cls.toByteArray();
+    }
+
+    /**
+     * 명령어 하나를 번역한다.
+     *
+     * @param index   block 안에서의 명령어 번호
+     * @param decoded 명령어
+     * @param next    다음 명령어의 주소
+     * @param last    block의 마지막 명령어이면 true
+     */
+    void instruction(int index, DecodedInstruction decoded, int next, boolean last) {
+        boolean branch = false;     //PC를 TARGET으로 바꾸는 분기 명령어
+        boolean writes = false;     //메모리에 쓸 수 있는 명령어
+        String name = decoded.format >= 3 ? decoded.inst.instruction : decoded.format == 2 ? decoded.inst.instruction + "/2" : "";
+        switch (name) {
+            case "LDA": load(decoded, next, 0); break;
+            case "LDX": load(decoded, next, 1); break;
+            case "LDL": load(decoded, next, 2); break;
+            case "LDB": load(decoded, next, 3); break;
+            case "LDS": load(decoded, next, 4); break;
+            case "LDT": load(decoded, next, 5); break;
+            case "LDCH":
+                address(decoded, next);
+                beginStore(0);
+                operandByte(decoded);
+                code.op(IASTORE);
+                target();
+                break;
+            case "ADD": arithmetic(decoded, next, IADD, true); break;
+            case "SUB": arithmetic(decoded, next, ISUB, true); break;
+            case "AND": arithmetic(decoded, next, IAND, false); break;
+            case "OR": arithmetic(decoded, next, IOR, false); break;
+            case "MUL": helper(decoded, next, "multiply"); break;
+            case "DIV": helper(decoded, next, "divide"); break;
+            case "COMP":
+                address(decoded, next);
+                beginStore(9);
+                loadRegister(9);
+                loadRegister(0);
+                operand(decoded);
+                code.invoke(INVOKESTATIC, BASE, "setCC", "(III)I");
+                code.op(IASTORE);
+                target();
+                break;
+            case "TIX":
+                //X를 먼저 늘린 뒤 피연산자를 가져온다 (indexed addressing은 늘어난 X를 쓴다)
+                increaseX();
+                address(decoded, next);
+                beginStore(9);
+                loadRegister(9);
+                loadRegister(1);
+                operand(decoded);
+                code.invoke(INVOKESTATIC, BASE, "setCC", "(III)I");
+                code.op(IASTORE);
+                target();
+                break;
+            case "STA": store(decoded, next, 0, "writeWord"); writes = true; break;
+            case "STX": store(decoded, next, 1, "writeWord"); writes = true; break;
+            case "STL": store(decoded, next, 2, "writeWord"); writes = true; break;
+            case "STB": store(decoded, next, 3, "writeWord"); writes = true; break;
+            case "STS": store(decoded, next, 4, "writeWord"); writes = true; break;
+            case "STT": store(decoded, next, 5, "writeWord"); writes = true; break;
+            case "STSW": store(decoded, next, 9, "writeWord"); writes = true; break;
+            case "STCH": store(decoded, next, 0, "writeByte"); writes = true; break;
+            case "J":
+                address(decoded, next);
+                target();
+                branch = true;
+                break;
+            case "JEQ": conditional(decoded, next, InstLuncher.CC_EQ); branch = true; break;
+            case "JGT": conditional(decoded, next, InstLuncher.CC_GT); branch = true; break;
+            case "JLT": conditional(decoded, next, InstLuncher.CC_LT); branch = true; break;
+            case "JSUB":
+                address(decoded, next);
+                beginStore(2);
+                code.iconst(next);
+                code.op(IASTORE);
+                target();
+                branch = true;
+                break;
+            case "RSUB":
+                loadRegister(2);
+                code.istore(TARGET);
+                branch = true;
+                break;
+            case "ADDR/2": registers(decoded, IADD, true); break;
+            case "SUBR/2": registers(decoded, ISUB, true); break;
+            case "MULR/2": registerHelper(decoded, "multiply"); break;
+            case "DIVR/2": registerHelper(decoded, "divide"); break;
+            case "COMPR/2":
+                beginStore(9);
+                loadRegister(9);
+                loadRegister(decoded.nixbpe & 0xF);
+                loadRegister(decoded.displacement);
+                code.invoke(INVOKESTATIC, BASE, "setCC", "(III)I");
+                code.op(IASTORE);
+                noTarget();
+                break;
+            case "CLEAR/2":
+                beginStore(decoded.nixbpe & 0xF);
+                code.iconst(0);
+                code.op(IASTORE);
+                noTarget();
+                break;
+            case "RMO/2":
+                beginStore(decoded.displacement);
+                loadRegister(decoded.nixbpe & 0xF);
+                code.op(IASTORE);
+                noTarget();
+                break;
+            case "TIXR/2":
+                //비교할 레지스터를 X를 늘리기 전에 읽는다 (TIXR X 대비)
+                loadRegister(decoded.nixbpe & 0xF);
+                code.istore(VALUE);
+                increaseX();
+                beginStore(9);
+                loadRegister(9);
+                loadRegister(1);
+                code.iload(VALUE);
+                code.invoke(INVOKESTATIC, BASE, "setCC", "(III)I");
+                code.op(IASTORE);
+                noTarget();
+                break;
+            default:
+                //처리 함수를 그대로 호출 (레지스터 배열을 직접 쓰므로 번역된 명령어와 섞여도 된다)
+                fallback[index] = true;
+                code.aload(THIS);
+                code.iconst(index);
+                code.iconst(next);
+                code.invoke(INVOKEVIRTUAL, BASE, "launch", "(II)I");
+                code.istore(VALUE);
+                code.aload(THIS);
+                code.field(GETFIELD, BASE, "instLuncher", "L" + LUNCHER + ";");
+                code.field(GETFIELD, LUNCHER, "targetAddress", "I");
+                code.istore(TARGET);
+                break;
+        }
+        trace();
+
+        if (fallback[index]) {
+            //흐름이 바뀌었거나 메모리 쓰기로 멈춰야 하면 처리 함수가 돌려준 PC로 끝낸다
+            code.iload(VALUE);
+            code.istore(PC);
+            code.iload(VALUE);
+            code.iconst(next);
+            code.jump(IF_ICMPNE, exit);
+            writes = true;
+        } else if (!branch) {
+            code.iconst(next);
+            code.istore(PC);
+        }
+        if (writes) {
+            code.aload(THIS);
+            code.invoke(INVOKEVIRTUAL, BASE, "stopAfterWrite", "()Z");
+            code.jump(IFNE, exit);
+        }
+        if (branch) {
+            code.iload(TARGET);
+            code.istore(PC);
+            //block의 시작으로 돌아가는 분기는 budget이 남아 있으면 바로 반복한다 (0번지로 가는 분기는 프로그램의 끝)
+            if (last && block.start != 0) {
+                code.iload(PC);
+                code.iconst(block.start);
+                code.jump(IF_ICMPNE, exit);
+                code.iload(COUNT);
+                code.iconst(block.insts.length);
+                code.op(IADD);
+                code.iload(BUDGET);
+                code.jump(IF_ICMPGT, exit);
+                code.jump(GOTO, top);
+            } else {
+                code.jump(GOTO, exit);
+            }
+        }
+    }
+
+    /**
+     * 수행한 명령어의 Target Address를 log 배열에 기록하고 수행한 명령어 개수를 늘린다.
+     * (명령어마다 정해져 있는 주소, opcode, 명령어 bit, 길이는 CompiledBlock.fillTrace가 run()이 끝난 뒤 채운다)
+     */
+    void trace() {
+        code.aload(T_TARGET);
+        code.iload(SLOT);
+        code.iload(TARGET);
+        code.op(IASTORE);
+        code.iload(SLOT);
+        code.iconst(1);
+        code.op(IADD);
+        code.iload(MASK);
+        code.op(IAND);
+        code.istore(SLOT);
+        code.iinc(COUNT, 1);
+    }
+
+    /**
+     * Target Address를 계산하여 LOCATION에 저장한다. (InstLuncher.address와 같은 계산)
+     * indexed, base-relative, indirect가 아니면 번역할 때 계산한 상수이다.
+     */
+    void address(DecodedInstruction decoded, int next) {
+        int nixbpe = decoded.nixbpe;
+        int displacement = decoded.displacement;
+        int constant;
+        boolean base = false;
+        if ((nixbpe & 0x30) == 0)
+            constant = (nixbpe & 0x7) << 12 | displacement;
+        else if ((nixbpe & 0x01) == 0x01)
+            constant = displacement;
+        else if ((nixbpe & 0x02) == 0x02)
+            constant = next + ((displacement << 20) >> 20);
+        else if ((nixbpe & 0x04) == 0x04) {
+            constant = displacement;
+            base = true;
+        } else
+            constant = displacement;
+        boolean indexed = (nixbpe & 0x08) == 0x08;
+        if (!base && !indexed) {
+            code.iconst(constant & 0xFFFFF);
+        } else {
+            code.iconst(constant);
+            if (base) {
+                loadRegister(3);
+                code.op(IADD);
+            }
+            if (indexed) {
+                loadRegister(1);
+                code.op(IADD);
+            }
+            code.iconst(0xFFFFF);
+            code.op(IAND);
+        }
+        code.istore(LOCATION);
+        //indirect addressing (주소를 읽다가 멈추면 Target Address는 없다)
+        if ((nixbpe & 0x30) == 0x20) {
+            noTarget();
+            code.aload(MEMORY);
+            code.iload(LOCATION);
+            code.invoke(INVOKEVIRTUAL, RESOURCE, "readWord", "(I)I");
+            code.iconst(0xFFFFF);
+            code.op(IAND);
+            code.istore(LOCATION);
+        }
+    }
+
+    /**
+     * 피연산자(1 word)를 stack에 넣는다. immediate라면 Target Address 그 자체
+     * (InstLuncher.operand처럼 메모리를 읽기 전에 Target Address를 정한다)
+     */
+    void operand(DecodedInstruction decoded) {
+        if ((decoded.nixbpe & 0x30) == 0x10) {
+            code.iload(LOCATION);
+        } else {
+            target();
+            code.aload(MEMORY);
+            code.iload(LOCATION);
+            code.invoke(INVOKEVIRTUAL, RESOURCE, "readWord", "(I)I");
+        }
+    }
+
+    /**
+     * 1 byte 피연산자를 stack에 넣는다.
+     */
+    void operandByte(DecodedInstruction decoded) {
+        if ((decoded.nixbpe & 0x30) == 0x10) {
+            code.iload(LOCATION);
+            code.iconst(0xFF);
+            code.op(IAND);
+        } else {
+            target();
+            code.aload(MEMORY);
+            code.iload(LOCATION);
+            code.invoke(INVOKEVIRTUAL, RESOURCE, "readByte", "(I)I");
+        }
+    }
+
+    void loadRegister(int number) {
+        code.aload(REGISTER);
+        code.iconst(number);
+        code.op(IALOAD);
+    }
+
+    /**
+     * 레지스터에 저장할 준비(배열, index)를 한다. 값을 넣은 뒤 IASTORE로 저장한다.
+     */
+    void beginStore(int number) {
+        code.aload(REGISTER);
+        code.iconst(number);
+    }
+
+    void target() {
+        code.iload(LOCATION);
+        code.istore(TARGET);
+    }
+
+    void noTarget() {
+        code.iconst(-1);
+        code.istore(TARGET);
+    }
+
+    void increaseX() {
+        beginStore(1);
+        loadRegister(1);
+        code.iconst(1);
+        code.op(IADD);
+        code.iconst(0xFFFFFF);
+        code.op(IAND);
+        code.op(IASTORE);
+    }
+
+    /**
+     * LDA, LDX 등 : 레지스터 <- 피연산자
+     */
+    void load(DecodedInstruction decoded, int next, int register) {
+        address(decoded, next);
+        beginStore(register);
+        operand(decoded);
+        code.op(IASTORE);
+        target();
+    }
+
+    /**
+     * ADD, SUB, AND, OR : A <- A (연산) 피연산자
+     */
+    void arithmetic(DecodedInstruction decoded, int next, int opcode, boolean mask) {
+        address(decoded, next);
+        beginStore(0);
+        loadRegister(0);
+        operand(decoded);
+        code.op(opcode);
+        if (mask) {
+            code.iconst(0xFFFFFF);
+            code.op(IAND);
+        }
+        code.op(IASTORE);
+        target();
+    }
+
+    /**
+     * MUL, DIV : A <- CompiledBlock의 helper(A, 피연산자)
+     */
+    void helper(DecodedInstruction decoded, int next, String method) {
+        address(decoded, next);
+        beginStore(0);
+        loadRegister(0);
+        operand(decoded);
+        code.invoke(INVOKESTATIC, BASE, method, "(II)I");
+        code.op(IASTORE);
+        target();
+    }
+
+    /**
+     * STA, STX 등 : 메모리 <- 레지스터 (쓰기에 성공한 뒤에 Target Address를 정한다)
+     */
+    void store(DecodedInstruction decoded, int next, int register, String method) {
+        address(decoded, next);
+        noTarget();
+        code.aload(MEMORY);
+        code.iload(LOCATION);
+        loadRegister(register);
+        code.invoke(INVOKEVIRTUAL, RESOURCE, method, "(II)V");
+        target();
+    }
+
+    /**
+     * JEQ, JGT, JLT : condition code가 같으면 Target Address, 아니면 다음 명령어
+     * (분기하지 않으면 indirect addressing의 메모리도 읽지 않는다)
+     */
+    void conditional(DecodedInstruction decoded, int next, int cc) {
+        int notTaken = code.newLabel();
+        int done = code.newLabel();
+        loadRegister(9);
+        code.iconst(InstLuncher.CC_MASK);
+        code.op(IAND);
+        code.iconst(cc);
+        code.jump(IF_ICMPNE, notTaken);
+        address(decoded, next);
+        target();
+        code.jump(GOTO, done);
+        code.mark(notTaken);
+        code.iconst(next);
+        code.istore(TARGET);
+        code.mark(done);
+    }
+
+    /**
+     * ADDR, SUBR : r2 <- r2 (연산) r1
+     */
+    void registers(DecodedInstruction decoded, int opcode, boolean mask) {
+        int r1 = decoded.nixbpe & 0xF;
+        int r2 = decoded.displacement;
+        beginStore(r2);
+        loadRegister(r2);
+        loadRegister(r1);
+        code.op(opcode);
+        if (mask) {
+            code.iconst(0xFFFFFF);
+            code.op(IAND);
+        }
+        code.op(IASTORE);
+        noTarget();
+    }
+
+    /**
+     * MULR, DIVR : r2 <- CompiledBlock의 helper(r2, r1)
+     */
+    void registerHelper(DecodedInstruction decoded, String method) {
+        int r1 = decoded.nixbpe & 0xF;
+        int r2 = decoded.displacement;
+        beginStore(r2);
+        loadRegister(r2);
+        loadRegister(r1);
+        code.invoke(INVOKESTATIC, BASE, method, "(II)I");
+        code.op(IASTORE);
+        noTarget();
+    }
+}
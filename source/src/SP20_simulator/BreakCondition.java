@@ -0,0 +1,87 @@
+package SP20_simulator;
+
+/**
+ * 조건부 중단점의 조건. 레지스터 하나를 값과 비교한다. (예: A >= 5)
+ */
+class BreakCondition {
+    //비교 연산자
+    static final String[] OPERATORS = {"==", "!=", "<=", ">=", "<", ">"};
+
+    final int regNum;       //비교할 레지스터 번호
+    final String operator;  //비교 연산자
+    final int value;        //비교할 값
+
+    /**
+     * BreakCondition 생성자
+     *
+     * @param regNum   비교할 레지스터 번호
+     * @param operator 비교 연산자 (==, !=, <, <=, >, >=)
+     * @param value    비교할 값
+     */
+    public BreakCondition(int regNum, String operator, int value) {
+        this.regNum = regNum;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    /**
+     * 현재 레지스터 값이 조건을 만족하는지 확인한다.
+     */
+    public boolean test(int[] register) {
+        int r = register[regNum];
+        switch (operator) {
+            case "==":
+                return r == value;
+            case "!=":
+                return r != value;
+            case "<":
+                return r < value;
+            case "<=":
+                return r <= value;
+            case ">":
+                return r > value;
+            case ">=":
+                return r >= value;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * "A>=5", "X == 0x10" 형식의 문자열을 조건으로 변환한다. 레지스터 이름은 ResourceManager.REGISTER_NAME을 따른다.
+     *
+     * @param text 조건 문자열
+     * @return 변환된 조건
+     * @throws IllegalArgumentException 형식이 맞지 않는 경우
+     */
+    public static BreakCondition parse(String text) {
+        String expr = text.replace(" ", "").toUpperCase();
+        for (String operator : OPERATORS) {
+            int at = expr.indexOf(operator);
+            if (at <= 0)
+                continue;
+            String name = expr.substring(0, at);
+            String number = expr.substring(at + operator.length());
+            for (int regNum = 0; regNum < ResourceManager.REGISTER_NAME.length; regNum++) {
+                if (!ResourceManager.REGISTER_NAME[regNum].isEmpty() && ResourceManager.REGISTER_NAME[regNum].equals(name))
+                    return new BreakCondition(regNum, operator, parseNumber(number));
+            }
+            throw new IllegalArgumentException("unknown register: " + name);
+        }
+        throw new IllegalArgumentException("invalid condition: " + text);
+    }
+
+    /**
+     * 10진수 또는 0x로 시작하는 16진수를 변환한다.
+     */
+    static int parseNumber(String number) {
+        if (number.startsWith("0X"))
+            return Integer.parseInt(number.substring(2), 16);
+        return Integer.parseInt(number);
+    }
+
+    @Override
+    public String toString() {
+        return ResourceManager.REGISTER_NAME[regNum] + operator + value;
+    }
+}
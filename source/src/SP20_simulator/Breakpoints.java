@@ -0,0 +1,193 @@
+package SP20_simulator;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 중단점(breakpoint)과 감시점(watchpoint)을 관리한다.
+ * 중단점은 PC 주소, 감시점은 메모리 주소를 index로 하는 bitmap(64 KB 주소 공간 당 8 KB)에 저장하므로
+ * 확인할 때는 bit 하나만 보면 된다. 조건부 중단점의 조건은 bit가 켜진 주소에서만 확인한다.
+ *
+ * SicSimulator는 설정된 중단점/감시점이 하나도 없으면 이 객체를 사용하지 않는다.
+ */
+public class Breakpoints {
+    //멈춘 이유
+    static final int NONE = 0;          //멈추지 않음
+    static final int BREAKPOINT = 1;    //중단점에 도달
+    static final int WATCHPOINT = 2;    //감시 중인 메모리에 쓰기 발생
+    static final int ADDRESS_ERROR = 3; //메모리 크기를 벗어난 주소에 접근 (SicSimulator가 사용)
+    static final int INVALID_OPCODE = 4;    //정의되지 않은 opcode (SicSimulator가 사용)
+
+    final int size;             //관리할 주소 공간의 크기
+    long[] pcBits;              //중단점이 설정된 주소
+    long[] watchBits;           //감시 중인 메모리 주소
+    HashMap<Integer, BreakCondition> conditions = new HashMap<>();  //조건부 중단점의 조건
+    int breakpointCount = 0;    //설정된 중단점 개수
+    int watchCount = 0;         //감시 중인 메모리 byte 개수
+
+    boolean watchHit = false;   //마지막 확인 이후 감시 중인 메모리에 쓰기가 있었으면 true
+    int watchAddress = -1;      //쓰기가 일어난 감시 주소
+
+    /**
+     * Breakpoints 생성자
+     * @param size 관리할 주소 공간의 크기 (메모리 크기)
+     */
+    public Breakpoints(int size) {
+        this.size = size;
+        pcBits = new long[(size + 63) >> 6];
+        watchBits = new long[(size + 63) >> 6];
+    }
+
+    static boolean isSet(long[] bits, int address) {
+        return (bits[address >> 6] & 1L << address) != 0;
+    }
+
+    /**
+     * 주소가 관리하는 주소 공간 안에 있는지 확인한다.
+     *
+     * @throws IllegalArgumentException 주소 공간을 벗어난 경우
+     */
+    void checkAddress(int address) {
+        if (address < 0 || address >= size)
+            throw new IllegalArgumentException(String.format("address %X is out of memory (size %X)", address, size));
+    }
+
+    /**
+     * 중단점을 추가한다. 같은 주소에 이미 있으면 조건만 바꾼다.
+     *
+     * @param address   중단할 명령어의 주소
+     * @param condition 중단 조건, 조건 없이 항상 멈추려면 null
+     * @throws IllegalArgumentException 주소가 메모리 크기를 벗어난 경우
+     */
+    public void addBreakpoint(int address, BreakCondition condition) {
+        checkAddress(address);
+        if (!isSet(pcBits, address)) {
+            pcBits[address >> 6] |= 1L << address;
+            breakpointCount++;
+        }
+        if (condition != null)
+            conditions.put(address, condition);
+        else
+            conditions.remove(address);
+    }
+
+    /**
+     * 중단점을 지운다.
+     *
+     * @param address 중단점의 주소
+     * @return 지웠으면 true, 중단점이 없었으면 false
+     * @throws IllegalArgumentException 주소가 메모리 크기를 벗어난 경우
+     */
+    public boolean removeBreakpoint(int address) {
+        checkAddress(address);
+        if (!isSet(pcBits, address))
+            return false;
+        pcBits[address >> 6] &= ~(1L << address);
+        conditions.remove(address);
+        breakpointCount--;
+        return true;
+    }
+
+    /**
+     * 메모리 범위에 감시점을 추가하거나(watch == true) 지운다.
+     *
+     * @param start  감시할 메모리 시작 주소
+     * @param length 감시할 byte 개수
+     * @param watch  추가하려면 true, 지우려면 false
+     * @throws IllegalArgumentException 길이가 0 이하이거나 범위가 메모리 크기를 벗어난 경우
+     */
+    public void setWatchpoint(int start, int length, boolean watch) {
+        if (length <= 0)
+            throw new IllegalArgumentException("invalid watch length: " + length);
+        checkAddress(start);
+        checkAddress(start + length - 1);
+        for (int address = start; address < start + length; address++) {
+            if (isSet(watchBits, address) == watch)
+                continue;
+            watchBits[address >> 6] ^= 1L << address;
+            watchCount += watch ? 1 : -1;
+        }
+    }
+
+    /**
+     * 해당 주소의 명령어를 수행하기 전에 멈춰야 하는지 확인한다.
+     *
+     * @param address  다음에 수행할 명령어의 주소
+     * @param register 현재 레지스터 값
+     * @return 멈춰야 하면 true
+     */
+    public boolean shouldBreak(int address, int[] register) {
+        //범위를 벗어난 PC는 SicSimulator가 주소 오류로 처리한다
+        if (address >= size || !isSet(pcBits, address))
+            return false;
+        BreakCondition condition = conditions.get(address);
+        return condition == null || condition.test(register);
+    }
+
+    /**
+     * 메모리 쓰기가 감시 범위에 걸치는지 확인한다. ResourceManager의 쓰기 함수에서 호출한다.
+     */
+    public void checkWrite(int location, int num) {
+        for (int address = location; address < location + num; address++) {
+            if (isSet(watchBits, address)) {
+                watchHit = true;
+                watchAddress = address;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 중단점이 하나라도 있으면 true
+     */
+    public boolean hasBreakpoints() {
+        return breakpointCount > 0;
+    }
+
+    /**
+     * @return 감시점이 하나라도 있으면 true
+     */
+    public boolean hasWatchpoints() {
+        return watchCount > 0;
+    }
+
+    /**
+     * 설정된 중단점과 감시 범위를 문자열로 나타낸다. (예: "1033 1040(A>=5) W1000-1002")
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int address = 0; address < size; address++) {
+            if (!isSet(pcBits, address))
+                continue;
+            text.append(String.format(" %04X", address));
+            BreakCondition condition = conditions.get(address);
+            if (condition != null)
+                text.append('(').append(condition).append(')');
+        }
+        //연속된 감시 주소는 범위로 묶는다
+        for (int address = 0; address < size; address++) {
+            if (!isSet(watchBits, address))
+                continue;
+            int end = address;
+            while (end + 1 < size && isSet(watchBits, end + 1))
+                end++;
+            text.append(String.format(" W%04X-%04X", address, end));
+            address = end;
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * 중단점과 감시점을 모두 지운다.
+     */
+    public void clear() {
+        Arrays.fill(pcBits, 0);
+        Arrays.fill(watchBits, 0);
+        conditions.clear();
+        breakpointCount = 0;
+        watchCount = 0;
+        watchHit = false;
+        watchAddress = -1;
+    }
+}
@@ -0,0 +1,174 @@
+package SP20_simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * JVM class 파일을 byte 배열로 만드는 최소한의 emitter. BlockCompiler가 block마다 hidden class를 만드는 데 사용한다.
+ * field가 없는 class 하나와 그 method(CodeEmitter로 만든 code)만 지원하며, 상수 pool은 같은 항목을 한 번만 넣는다.
+ */
+class ClassEmitter {
+    //class 파일 버전 (Java 17)
+    static final int VERSION = 61;
+    //접근 flag
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    final String name;          //만들 class의 내부 이름 (예: SP20_simulator/GeneratedBlock)
+    final String superName;     //상위 class의 내부 이름
+    final int thisClass;        //상수 pool의 this class 번호
+
+    ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    DataOutputStream pool = new DataOutputStream(poolBytes);
+    int poolCount = 1;                                  //상수 pool 개수 (0번은 쓰지 않는다)
+    HashMap<String, Integer> poolIndex = new HashMap<>();   //이미 넣은 상수 pool 항목
+    ArrayList<byte[]> methods = new ArrayList<>();      //완성된 method_info
+
+    /**
+     * ClassEmitter 생성자
+     * @param name      만들 class의 내부 이름
+     * @param superName 상위 class의 내부 이름
+     */
+    public ClassEmitter(String name, String superName) {
+        this.name = name;
+        this.superName = superName;
+        thisClass = classRef(name);
+    }
+
+    /**
+     * 상수 pool 항목을 찾고, 없으면 write로 내용을 써서 추가한다.
+     */
+    int constant(String key, PoolWriter write) {
+        Integer index = poolIndex.get(key);
+        if (index != null)
+            return index;
+        try {
+            write.write(pool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndex.put(key, poolCount);
+        return poolCount++;
+    }
+
+    /**
+     * 상수 pool 항목 하나의 내용을 쓰는 함수
+     */
+    interface PoolWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    int integer(int value) {
+        return constant("I" + value, out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        });
+    }
+
+    /**
+     * @param internalName class의 내부 이름, 배열은 descriptor (예: [I)
+     */
+    int classRef(String internalName) {
+        int nameIndex = utf8(internalName);
+        return constant("C" + internalName, out -> {
+            out.writeByte(7);
+            out.writeShort(nameIndex);
+        });
+    }
+
+    int nameAndType(String memberName, String descriptor) {
+        int nameIndex = utf8(memberName);
+        int typeIndex = utf8(descriptor);
+        return constant("N" + memberName + ":" + descriptor, out -> {
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(typeIndex);
+        });
+    }
+
+    int fieldRef(String owner, String memberName, String descriptor) {
+        return memberRef(9, owner, memberName, descriptor);
+    }
+
+    int methodRef(String owner, String memberName, String descriptor) {
+        return memberRef(10, owner, memberName, descriptor);
+    }
+
+    int memberRef(int tag, String owner, String memberName, String descriptor) {
+        int classIndex = classRef(owner);
+        int typeIndex = nameAndType(memberName, descriptor);
+        return constant(tag + owner + "." + memberName + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(classIndex);
+            out.writeShort(typeIndex);
+        });
+    }
+
+    /**
+     * method를 추가한다. code는 더 이상 바뀌지 않아야 한다.
+     *
+     * @param access     접근 flag
+     * @param methodName method 이름
+     * @param descriptor method descriptor
+     * @param code       method의 code
+     */
+    void addMethod(int access, String methodName, String descriptor, CodeEmitter code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(methodName));
+            out.writeShort(utf8(descriptor));
+            //Code attribute 하나
+            out.writeShort(1);
+            byte[] attribute = code.toAttribute();
+            out.writeShort(utf8("Code"));
+            out.writeInt(attribute.length);
+            out.write(attribute);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    /**
+     * @return 완성된 class 파일
+     */
+    byte[] toByteArray() {
+        int superClass = classRef(superName);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            //interface, field 없음
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (byte[] method : methods)
+                out.write(method);
+            //class attribute 없음
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
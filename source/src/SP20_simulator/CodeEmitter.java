@@ -0,0 +1,284 @@
+package SP20_simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * method 하나의 JVM bytecode를 만드는 emitter. (ClassEmitter와 함께 사용)
+ *
+ * 분기 대상은 label로 표시하고, 모든 label에 StackMapTable의 full frame을 남긴다.
+ * frame을 계산하지 않는 대신 다음 약속을 지켜야 한다.
+ *  1) local 변수는 method 시작 부분(첫 label 전)에서 모두 값을 넣고, 그 뒤로 type이 바뀌지 않는다. (setLocals로 알려준다)
+ *  2) label 위치의 operand stack은 비어 있다. (예외 handler label만 Throwable 하나)
+ *  3) goto, return, athrow 다음에는 label이 온다. (도달할 수 없는 code를 만들지 않는다)
+ */
+class CodeEmitter {
+    //사용하는 opcode
+    static final int ICONST_0 = 3;
+    static final int BIPUSH = 16;
+    static final int SIPUSH = 17;
+    static final int LDC = 18;
+    static final int LDC_W = 19;
+    static final int ILOAD = 21;
+    static final int ALOAD = 25;
+    static final int IALOAD = 46;
+    static final int ISTORE = 54;
+    static final int ASTORE = 58;
+    static final int IASTORE = 79;
+    static final int IADD = 96;
+    static final int ISUB = 100;
+    static final int IAND = 126;
+    static final int IOR = 128;
+    static final int IINC = 132;
+    static final int L2I = 136;
+    static final int IFNE = 154;
+    static final int IF_ICMPNE = 160;
+    static final int IF_ICMPGT = 163;
+    static final int GOTO = 167;
+    static final int IRETURN = 172;
+    static final int RETURN = 177;
+    static final int GETFIELD = 180;
+    static final int PUTFIELD = 181;
+    static final int INVOKEVIRTUAL = 182;
+    static final int INVOKESPECIAL = 183;
+    static final int INVOKESTATIC = 184;
+    static final int ATHROW = 191;
+
+    final ClassEmitter cls;
+    byte[] code = new byte[256];
+    int length = 0;
+    int maxStack;
+    int maxLocals;
+    int[] locals = new int[0];          //frame에 쓸 local 변수의 verification type (Object는 상수 pool 번호를 더한다)
+    boolean reachable = true;           //다음에 쓸 bytecode에 도달할 수 있는지 여부
+
+    ArrayList<Integer> labels = new ArrayList<>();      //label 번호별 위치, 아직 정해지지 않았으면 -1
+    ArrayList<int[]> fixups = new ArrayList<>();        //(분기 명령어 위치, label) 나중에 offset을 채운다
+    ArrayList<int[]> handlers = new ArrayList<>();      //(시작 label, 끝 label, handler label)
+    TreeMap<Integer, Boolean> frames = new TreeMap<>(); //frame이 필요한 위치, 예외 handler면 true
+
+    /**
+     * CodeEmitter 생성자
+     * @param cls      상수 pool을 가진 ClassEmitter
+     * @param maxStack 최대 operand stack 깊이
+     */
+    public CodeEmitter(ClassEmitter cls, int maxStack) {
+        this.cls = cls;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * frame에 쓸 local 변수의 type을 정한다.
+     * @param types "I"(int) 또는 class의 내부 이름, 배열은 descriptor (예: [I)
+     */
+    void setLocals(String... types) {
+        locals = new int[types.length];
+        for (int i = 0; i < types.length; i++)
+            locals[i] = types[i].equals("I") ? 1 : 7 | cls.classRef(types[i]) << 8;
+        maxLocals = types.length;
+    }
+
+    void put(int value) {
+        if (!reachable)
+            throw new IllegalStateException("unreachable bytecode at " + length);
+        if (length == code.length)
+            code = Arrays.copyOf(code, length * 2);
+        code[length++] = (byte) value;
+    }
+
+    void put2(int value) {
+        put(value >> 8);
+        put(value);
+    }
+
+    /**
+     * operand가 없는 bytecode
+     */
+    void op(int opcode) {
+        put(opcode);
+        if (opcode == ATHROW || opcode == IRETURN || opcode == RETURN)
+            reachable = false;
+    }
+
+    /**
+     * int 상수를 stack에 넣는다.
+     */
+    void iconst(int value) {
+        if (value >= -1 && value <= 5) {
+            put(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            put(BIPUSH);
+            put(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            put(SIPUSH);
+            put2(value);
+        } else {
+            int index = cls.integer(value);
+            if (index < 256) {
+                put(LDC);
+                put(index);
+            } else {
+                put(LDC_W);
+                put2(index);
+            }
+        }
+    }
+
+    void iload(int local) {
+        put(ILOAD);
+        put(local);
+    }
+
+    void istore(int local) {
+        put(ISTORE);
+        put(local);
+    }
+
+    void aload(int local) {
+        put(ALOAD);
+        put(local);
+    }
+
+    void astore(int local) {
+        put(ASTORE);
+        put(local);
+    }
+
+    void iinc(int local, int value) {
+        put(IINC);
+        put(local);
+        put(value);
+    }
+
+    void field(int opcode, String owner, String name, String descriptor) {
+        put(opcode);
+        put2(cls.fieldRef(owner, name, descriptor));
+    }
+
+    void invoke(int opcode, String owner, String name, String descriptor) {
+        put(opcode);
+        put2(cls.methodRef(owner, name, descriptor));
+    }
+
+    /**
+     * @return 새 label 번호
+     */
+    int newLabel() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    /**
+     * 현재 위치에 label을 둔다. 이 위치부터 다시 도달할 수 있다.
+     */
+    void mark(int label) {
+        labels.set(label, length);
+        frames.putIfAbsent(length, false);
+        reachable = true;
+    }
+
+    /**
+     * 현재 위치에 예외 handler label을 둔다. (stack에 Throwable 하나)
+     */
+    void markHandler(int label) {
+        labels.set(label, length);
+        frames.put(length, true);
+        reachable = true;
+    }
+
+    /**
+     * label로 분기하는 bytecode (if*, goto)
+     */
+    void jump(int opcode, int label) {
+        fixups.add(new int[]{length, label});
+        put(opcode);
+        put2(0);
+        if (opcode == GOTO)
+            reachable = false;
+    }
+
+    /**
+     * start label부터 end label 전까지에서 발생한 모든 예외를 handler label로 보낸다.
+     */
+    void catchAll(int start, int end, int handler) {
+        handlers.add(new int[]{start, end, handler});
+    }
+
+    /**
+     * @return Code attribute의 내용 (attribute 이름과 길이 제외)
+     */
+    byte[] toAttribute() {
+        for (int[] fixup : fixups) {
+            int offset = labels.get(fixup[1]) - fixup[0];
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                throw new IllegalStateException("branch too far");
+            code[fixup[0] + 1] = (byte) (offset >> 8);
+            code[fixup[0] + 2] = (byte) offset;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(length);
+            out.write(code, 0, length);
+            out.writeShort(handlers.size());
+            for (int[] handler : handlers) {
+                out.writeShort(labels.get(handler[0]));
+                out.writeShort(labels.get(handler[1]));
+                out.writeShort(labels.get(handler[2]));
+                out.writeShort(0);
+            }
+            if (frames.isEmpty()) {
+                out.writeShort(0);
+            } else {
+                out.writeShort(1);
+                byte[] table = stackMapTable();
+                out.writeShort(cls.utf8("StackMapTable"));
+                out.writeInt(table.length);
+                out.write(table);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 모든 label 위치의 full frame으로 StackMapTable을 만든다.
+     */
+    byte[] stackMapTable() throws IOException {
+        int throwable = cls.classRef("java/lang/Throwable");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(frames.size());
+        int previous = -1;
+        for (Map.Entry<Integer, Boolean> frame : frames.entrySet()) {
+            out.writeByte(255);
+            out.writeShort(frame.getKey() - previous - 1);
+            previous = frame.getKey();
+            out.writeShort(locals.length);
+            for (int type : locals)
+                writeType(out, type);
+            if (frame.getValue()) {
+                out.writeShort(1);
+                writeType(out, 7 | throwable << 8);
+            } else {
+                out.writeShort(0);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static void writeType(DataOutputStream out, int type) throws IOException {
+        out.writeByte(type & 0xFF);
+        if ((type & 0xFF) == 7)
+            out.writeShort(type >> 8);
+    }
+}
@@ -0,0 +1,110 @@
+package SP20_simulator;
+
+/**
+ * JVM bytecode로 번역된 block. BlockCompiler가 block마다 이 class를 상속한 hidden class를 만든다.
+ *
+ * 번역된 code는 명령어마다 addressing mode를 미리 풀어 둔 상수로 레지스터 배열과 메모리를 직접 다루고,
+ * log(TraceBuffer)에는 Target Address만 직접 기록한다. 입출력, 실수 연산처럼 번역하지 않는 명령어는 launch()로 처리 함수를 그대로 호출한다.
+ * block의 마지막 분기가 block의 시작으로 돌아가면 수행할 수 있는 명령어 개수(budget) 안에서 block 안에서 바로 반복한다.
+ */
+abstract class CompiledBlock {
+    final ResourceManager rMgr;
+    final InstLuncher instLuncher;
+    final TranslatedBlock block;    //번역한 block (메모리 쓰기로 무효화되면 block.valid가 false)
+    int[] addresses;                //명령어별 주소
+    boolean[] fallback;             //처리 함수를 그대로 호출하는 명령어이면 true
+    int executed;                   //마지막 run()에서 끝까지 수행한 명령어 개수 (예외로 멈춘 경우 포함)
+    int faultTarget;                //예외로 멈춘 명령어의 Target Address (해석기가 멈췄을 때와 같은 값)
+
+    /**
+     * CompiledBlock 생성자
+     */
+    CompiledBlock(ResourceManager rMgr, InstLuncher instLuncher, TranslatedBlock block) {
+        this.rMgr = rMgr;
+        this.instLuncher = instLuncher;
+        this.block = block;
+    }
+
+    /**
+     * block을 수행한다. 수행한 명령어의 Target Address만 log 배열에 기록하고, 나머지 내용은 fillTrace로 채운 뒤
+     * log의 개수(count)는 호출한 쪽에서 executed만큼 늘린다.
+     *
+     * @param register 레지스터 배열 (ResourceManager.register)
+     * @param trace    log를 기록할 TraceBuffer
+     * @param budget   수행할 수 있는 최대 명령어 개수, block 길이 이상이어야 한다
+     * @return 다음에 수행할 명령어의 주소 (PC)
+     * @throws AddressingException 메모리 크기를 벗어난 주소에 접근한 경우 (executed는 그 앞까지의 개수)
+     */
+    abstract int run(int[] register, TraceBuffer trace, int budget);
+
+    /**
+     * run()이 수행한 명령어들의 주소, opcode, 명령어 bit, 길이를 log에 채운다. (Target Address는 run()이 기록한다)
+     * run()이 j번째로 수행한 명령어는 항상 block의 (j % 명령어 개수)번째 명령어이므로 block 한 바퀴만 쓰고 나머지는 복사한다.
+     *
+     * @param trace    run()에 넘긴 TraceBuffer
+     * @param base     run()을 호출할 때의 기록 개수
+     * @param executed run()이 수행한 명령어 개수
+     */
+    final void fillTrace(TraceBuffer trace, long base, int executed) {
+        DecodedInstruction[] insts = block.insts;
+        //용량을 넘어 덮어쓰일 앞부분은 채우지 않는다
+        int skipped = Math.max(0, executed - trace.capacity);
+        long first = base + skipped;
+        long end = base + executed;
+        long filled = Math.min(end, first + insts.length);
+        int index = skipped % insts.length;
+        for (long j = first; j < filled; j++) {
+            int slot = (int) j & trace.mask;
+            trace.address[slot] = addresses[index];
+            trace.opcode[slot] = insts[index].inst.opcode >> 2;
+            trace.bits[slot] = insts[index].bits;
+            trace.length[slot] = (byte) insts[index].length;
+            if (++index == insts.length)
+                index = 0;
+        }
+        trace.repeat(first, filled, end);
+    }
+
+    /**
+     * 번역하지 않은 명령어를 처리 함수로 수행한다.
+     *
+     * @param index block 안에서의 명령어 번호
+     * @param next  다음 명령어의 주소
+     * @return 계산된 PC 값
+     */
+    final int launch(int index, int next) {
+        DecodedInstruction decoded = block.insts[index];
+        return instLuncher.launch(decoded.handler, decoded.nixbpe, decoded.displacement, next);
+    }
+
+    /**
+     * 메모리에 쓴 뒤 block을 계속 수행해도 되는지 확인한다.
+     *
+     * @return 자기 자신을 수정하여 block이 무효화되었거나 감시 중인 메모리에 썼으면 true
+     */
+    final boolean stopAfterWrite() {
+        return !block.valid || rMgr.watch != null && rMgr.watch.watchHit;
+    }
+
+    /**
+     * 두 24 bit 값을 비교한 condition code로 SW 레지스터 값을 바꾼다. (InstLuncher.setCC와 같다)
+     */
+    static int setCC(int sw, int first, int second) {
+        return sw & ~InstLuncher.CC_MASK | InstLuncher.compare(first, second);
+    }
+
+    /**
+     * 24 bit 부호 있는 곱셈 (MUL, MULR)
+     */
+    static int multiply(int first, int second) {
+        return (InstLuncher.signed(first) * InstLuncher.signed(second)) & 0xFFFFFF;
+    }
+
+    /**
+     * 24 bit 부호 있는 나눗셈 (DIV, DIVR), 0으로 나누면 first를 그대로 돌려준다
+     */
+    static int divide(int first, int second) {
+        int divisor = InstLuncher.signed(second);
+        return divisor == 0 ? first : (InstLuncher.signed(first) / divisor) & 0xFFFFFF;
+    }
+}
@@ -0,0 +1,175 @@
+package SP20_simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 해석(decode)이 끝난 명령어를 주소별로 저장해 두는 cache.
+ * 같은 주소의 명령어를 다시 수행할 때 메모리에서 opcode, nixbpe, displacement를 다시 해석하지 않도록 한다.
+ *
+ * 메모리에 쓰기가 일어나면 ResourceManager가 invalidate()를 호출하여
+ * 해당 범위에 걸쳐 있는 명령어를 cache에서 제거한다. (자기 자신을 수정하는 프로그램 대비)
+ *
+ * 자주 수행되는 주소에서는 분기 명령어까지의 연속된 명령어들을 하나의 block(TranslatedBlock)으로 묶어 저장한다.
+ * block도 메모리 쓰기가 일어나면 같은 방식으로 무효화된다.
+ */
+public class DecodeCache {
+    //명령어의 최대 길이 (format 4)
+    static final int MAX_LENGTH = 4;
+
+    //block 관리 단위 page 크기 (256 byte)
+    static final int PAGE_SHIFT = 8;
+
+    //주소를 index로 하는 해석된 명령어 배열
+    DecodedInstruction[] entries;
+    //시작 주소를 index로 하는 block 배열
+    TranslatedBlock[] blocks;
+    //시작 주소별 진입 횟수 (block을 만들 시점을 정하는 데 사용)
+    int[] entryCount;
+    //page별로 그 page에 걸쳐 있는 block 목록, block이 없으면 null
+    ArrayList<TranslatedBlock>[] pageBlocks;
+    //마지막 clear() 이후 명령어, block, 진입 횟수가 저장된 page (clear할 때 이 page만 비운다)
+    boolean[] usedPages;
+
+    /**
+     * DecodeCache 생성자
+     * @param size 관리할 주소 공간의 크기
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DecodeCache(int size) {
+        entries = new DecodedInstruction[size];
+        blocks = new TranslatedBlock[size];
+        entryCount = new int[size];
+        pageBlocks = new ArrayList[(size >> PAGE_SHIFT) + 1];
+        usedPages = new boolean[pageBlocks.length];
+    }
+
+    /**
+     * 해당 주소에서 해석해 둔 명령어를 가져온다.
+     *
+     * @param location 명령어의 주소
+     * @return 해석된 명령어, 없으면 null
+     */
+    public DecodedInstruction get(int location) {
+        return entries[location];
+    }
+
+    /**
+     * 해석한 명령어를 cache에 저장한다.
+     *
+     * @param location 명령어의 주소
+     * @param decoded  해석된 명령어
+     * @return 저장한 명령어
+     */
+    public DecodedInstruction put(int location, DecodedInstruction decoded) {
+        entries[location] = decoded;
+        usedPages[location >> PAGE_SHIFT] = true;
+        return decoded;
+    }
+
+    /**
+     * 해당 주소에서 시작하는 진입 횟수를 하나 늘린다.
+     *
+     * @param location 진입한 주소
+     * @return 늘어난 진입 횟수
+     */
+    public int countEntry(int location) {
+        usedPages[location >> PAGE_SHIFT] = true;
+        return ++entryCount[location];
+    }
+
+    /**
+     * 메모리의 해당 범위에 걸쳐 있는 명령어를 cache에서 제거한다.
+     *
+     * @param location 쓰기가 일어난 시작 주소
+     * @param num      쓰기가 일어난 byte 개수
+     */
+    public void invalidate(int location, int num) {
+        //범위 앞쪽에서 시작해서 범위에 걸치는 명령어까지 확인
+        int start = Math.max(0, location - (MAX_LENGTH - 1));
+        int end = Math.min(entries.length, location + num);
+        for (int i = start; i < end; i++) {
+            DecodedInstruction decoded = entries[i];
+            if (decoded != null && i + decoded.length > location)
+                entries[i] = null;
+        }
+        invalidateBlocks(location, num);
+    }
+
+    /**
+     * 해당 주소에서 시작하는 block을 가져온다.
+     *
+     * @param location block의 시작 주소
+     * @return block, 없으면 null
+     */
+    public TranslatedBlock getBlock(int location) {
+        return blocks[location];
+    }
+
+    /**
+     * block을 cache에 저장하고, block이 걸쳐 있는 page마다 등록한다.
+     *
+     * @param block 저장할 block
+     * @return 저장한 block
+     */
+    public TranslatedBlock putBlock(TranslatedBlock block) {
+        blocks[block.start] = block;
+        usedPages[block.start >> PAGE_SHIFT] = true;
+        for (int page = block.start >> PAGE_SHIFT; page <= (block.end - 1) >> PAGE_SHIFT; page++) {
+            if (pageBlocks[page] == null)
+                pageBlocks[page] = new ArrayList<>();
+            pageBlocks[page].add(block);
+        }
+        return block;
+    }
+
+    /**
+     * 메모리의 해당 범위에 걸쳐 있는 block을 무효화한다.
+     */
+    void invalidateBlocks(int location, int num) {
+        int end = location + num;
+        for (int page = location >> PAGE_SHIFT; page <= (end - 1) >> PAGE_SHIFT; page++) {
+            ArrayList<TranslatedBlock> list = pageBlocks[page];
+            if (list == null)
+                continue;
+            for (int i = list.size() - 1; i >= 0; i--) {
+                TranslatedBlock block = list.get(i);
+                //이미 무효화된 block은 목록에서 정리
+                if (!block.valid) {
+                    list.remove(i);
+                } else if (block.start < end && location < block.end) {
+                    block.valid = false;
+                    if (blocks[block.start] == block)
+                        blocks[block.start] = null;
+                    entryCount[block.start] = 0;
+                    list.remove(i);
+                }
+            }
+            if (list.isEmpty())
+                pageBlocks[page] = null;
+        }
+    }
+
+    /**
+     * cache 전체를 비운다. 프로그램을 새로 load할 때 호출한다.
+     * 주소 공간이 커도 사용된 page만 비우므로 비용은 실제로 수행한 코드 크기에 비례한다.
+     */
+    public void clear() {
+        for (int page = 0; page < usedPages.length; page++) {
+            if (!usedPages[page])
+                continue;
+            int start = page << PAGE_SHIFT;
+            int end = Math.min(entries.length, start + (1 << PAGE_SHIFT));
+            Arrays.fill(entries, start, end, null);
+            for (int i = start; i < end; i++) {
+                if (blocks[i] != null) {
+                    blocks[i].valid = false;
+                    blocks[i] = null;
+                }
+            }
+            Arrays.fill(entryCount, start, end, 0);
+            usedPages[page] = false;
+        }
+        Arrays.fill(pageBlocks, null);
+    }
+}
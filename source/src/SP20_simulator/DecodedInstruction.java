@@ -0,0 +1,28 @@
+package SP20_simulator;
+
+/**
+ * 해석이 끝난 명령어 하나의 정보를 담는다.
+ */
+class DecodedInstruction {
+
+    final Instruction inst; //수행할 명령어 정보
+    final InstHandler handler;  //명령어의 처리 함수
+    final int format;       //명령어의 포맷 (명령어 명세 기준)
+    final int nixbpe;       //nixbpe 비트 (format 2는 첫번째 레지스터 번호)
+    final int displacement; //displacement (format 2는 두번째 레지스터 번호)
+    final int length;       //명령어의 실제 길이(byte)
+    final int bits;         //명령어 전체 bit (log 출력용)
+
+    /**
+     * DecodedInstruction 생성자
+     */
+    public DecodedInstruction(Instruction inst, InstHandler handler, int format, int nixbpe, int displacement, int length, int bits) {
+        this.inst = inst;
+        this.handler = handler;
+        this.format = format;
+        this.nixbpe = nixbpe;
+        this.displacement = displacement;
+        this.length = length;
+        this.bits = bits;
+    }
+}
@@ -0,0 +1,161 @@
+package SP20_simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 파일로 대체된 device 하나의 입출력을 담당한다.
+ * FileChannel 위에 buffer를 두어 RD/WD 명령어마다 system call이 일어나지 않도록 한다.
+ * 읽기 buffer는 비었을 때만 채우고, 쓰기 buffer는 가득 찼을 때나 close()할 때만 파일로 내보낸다.
+ */
+public class DeviceChannel {
+    String name;            //device 이름
+    FileChannel channel;    //device 파일의 channel
+    ByteBuffer buffer;      //입출력 buffer
+    boolean writeMode;      //출력 device면 true, 읽기 device면 false
+    boolean eof = false;    //읽기 device의 파일 끝 도달 여부
+    DeviceStats stats;      //device 이름별 입출력 통계 (ResourceManager가 연결)
+
+    /**
+     * DeviceChannel 생성자, device 파일을 읽기 또는 출력 모드로 연다.
+     * 출력 모드로 열면 기존 파일의 내용은 지운다.
+     *
+     * @param name      device 이름
+     * @param file      device 파일
+     * @param writeMode 출력 device면 true
+     * @param buffer    입출력에 사용할 buffer
+     */
+    public DeviceChannel(String name, File file, boolean writeMode, ByteBuffer buffer) throws IOException {
+        this(name, file, writeMode, true, buffer);
+    }
+
+    /**
+     * DeviceChannel 생성자, device 파일을 읽기 또는 출력 모드로 연다.
+     *
+     * @param name      device 이름
+     * @param file      device 파일
+     * @param writeMode 출력 device면 true
+     * @param truncate  출력 모드로 열 때 기존 파일의 내용을 지우려면 true (snapshot 복원 시에는 false)
+     * @param buffer    입출력에 사용할 buffer
+     */
+    public DeviceChannel(String name, File file, boolean writeMode, boolean truncate, ByteBuffer buffer) throws IOException {
+        this(name, open(file, writeMode, truncate), writeMode, buffer);
+        buffer.clear();
+        //읽기 device는 처음 read() 때 채워지도록 빈 상태로 둔다
+        if (!writeMode)
+            buffer.flip();
+    }
+
+    /**
+     * 이미 열린 channel로 DeviceChannel을 만든다. (하위 클래스용)
+     */
+    protected DeviceChannel(String name, FileChannel channel, boolean writeMode, ByteBuffer buffer) {
+        this.name = name;
+        this.channel = channel;
+        this.writeMode = writeMode;
+        this.buffer = buffer;
+    }
+
+    /**
+     * device 파일을 읽기 또는 출력 모드의 channel로 연다.
+     */
+    static FileChannel open(File file, boolean writeMode, boolean truncate) throws IOException {
+        if (!writeMode)
+            return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        if (truncate)
+            return FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    /**
+     * 프로그램 입장에서의 현재 위치(지금까지 읽거나 쓴 byte 수)를 돌려준다. buffer에 남은 내용까지 반영한다.
+     */
+    public long position() throws IOException {
+        if (writeMode)
+            return channel.position() + buffer.position();
+        return channel.position() - buffer.remaining();
+    }
+
+    /**
+     * 현재 위치를 옮긴다. 출력 device는 그 뒤의 내용을 지운다. (snapshot 복원용)
+     *
+     * @param position 옮길 위치
+     */
+    public void seek(long position) throws IOException {
+        flush();
+        if (writeMode)
+            channel.truncate(position);
+        channel.position(position);
+        buffer.clear();
+        if (!writeMode)
+            buffer.flip();
+        eof = false;
+    }
+
+    /**
+     * device에서 1 byte를 읽는다.
+     *
+     * @return 읽은 값 (0 ~ 0xFF), 더 이상 데이터가 없으면 -1
+     */
+    public int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            if (eof)
+                return -1;
+            buffer.clear();
+            int n = channel.read(buffer);
+            buffer.flip();
+            if (n <= 0) {
+                eof = true;
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * device에 1 byte를 출력한다. buffer가 가득 찼을 때만 실제로 파일에 쓴다.
+     *
+     * @param data 출력할 값 (하위 8 bit만 사용)
+     */
+    public void write(int data) throws IOException {
+        if (!buffer.hasRemaining())
+            flush();
+        buffer.put((byte) data);
+    }
+
+    /**
+     * 출력 buffer에 남아있는 내용을 파일에 쓴다.
+     */
+    public void flush() throws IOException {
+        if (!writeMode)
+            return;
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * 닫은 뒤 다시 사용할 수 있도록 pool에 돌려줄 buffer를 리턴한다.
+     *
+     * @return 재사용할 buffer, 재사용할 수 없으면 null
+     */
+    public ByteBuffer releaseBuffer() {
+        return buffer;
+    }
+
+    /**
+     * 남은 내용을 내보내고 channel을 닫는다.
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package SP20_simulator;
+
+/**
+ * snapshot 당시 열려 있던 device 하나의 위치.
+ */
+class DevicePosition {
+    final String name;          //device 이름
+    final boolean writeMode;    //출력 device면 true
+    final long position;        //읽거나 쓴 byte 수
+
+    public DevicePosition(String name, boolean writeMode, long position) {
+        this.name = name;
+        this.writeMode = writeMode;
+        this.position = position;
+    }
+}
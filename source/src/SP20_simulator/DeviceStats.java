@@ -0,0 +1,16 @@
+package SP20_simulator;
+
+/**
+ * device 하나의 누적 입출력 통계. device를 닫았다가 다시 열어도 유지된다.
+ * 수행 thread만 값을 바꾸고, metrics 조회 thread는 읽기만 한다.
+ */
+class DeviceStats {
+    final String name;          //device 이름
+    volatile long bytesRead;    //RD로 읽은 byte 수
+    volatile long bytesWritten; //WD로 출력한 byte 수
+    volatile long testCount;    //TD로 상태를 확인한 횟수
+
+    public DeviceStats(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,54 @@
+package SP20_simulator;
+
+/**
+ * 마지막으로 비운 이후 쓰기가 일어난 메모리 주소를 byte 단위 bitmap으로 기록한다.
+ * 메모리 화면(MemoryListModel)이 바뀐 byte를 강조하는 데 사용한다.
+ *
+ * bit가 처음 켜지는 bitmap word의 index를 따로 모아 두므로,
+ * 비우는 비용은 메모리 크기가 아니라 그동안 쓰기가 일어난 범위에 비례한다.
+ */
+public class DirtyBitmap {
+    long[] bits;            //주소별 쓰기 여부
+    int[] touched;          //bit가 하나라도 켜진 bits의 index
+    int touchedCount = 0;   //touched에 들어 있는 개수
+
+    /**
+     * DirtyBitmap 생성자
+     * @param size 관리할 주소 공간의 크기 (메모리 크기)
+     */
+    public DirtyBitmap(int size) {
+        bits = new long[(size + 63) >> 6];
+        touched = new int[bits.length];
+    }
+
+    /**
+     * 메모리의 해당 범위에 쓰기가 일어났음을 기록한다. ResourceManager의 쓰기 함수에서 호출한다.
+     *
+     * @param location 쓰기가 일어난 시작 주소
+     * @param num      쓰기가 일어난 byte 개수
+     */
+    public void mark(int location, int num) {
+        for (int address = location; address < location + num; address++) {
+            int index = address >> 6;
+            if (bits[index] == 0)
+                touched[touchedCount++] = index;
+            bits[index] |= 1L << address;
+        }
+    }
+
+    /**
+     * @return 해당 주소에 쓰기가 있었으면 true
+     */
+    public boolean isSet(int address) {
+        return (bits[address >> 6] & 1L << address) != 0;
+    }
+
+    /**
+     * 기록을 모두 지운다.
+     */
+    public void clear() {
+        for (int i = 0; i < touchedCount; i++)
+            bits[touched[i]] = 0;
+        touchedCount = 0;
+    }
+}
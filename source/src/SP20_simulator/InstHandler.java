@@ -0,0 +1,14 @@
+package SP20_simulator;
+
+/**
+ * 명령어 하나를 수행하는 처리 함수
+ */
+interface InstHandler {
+    /**
+     * @param nixbpe nixbpe 비트
+     * @param displacement displacement
+     * @param locctr 현재 PC 값
+     * @return 계산된 PC 값
+     */
+    int execute(int nixbpe, int displacement, int locctr);
+}
@@ -4,89 +4,314 @@ package SP20_simulator;
  * instruction에 따라 동작을 수행하는 메소드를 정의하는 클래스
  */
 public class InstLuncher {
+    //SW 레지스터의 condition code (bit 7 ~ 6)
+    static final int CC_MASK = 0xC0;
+    static final int CC_LT = 0x00;  //작음 (TD : device 준비됨)
+    static final int CC_EQ = 0x40;  //같음 (TD : device 준비되지 않음)
+    static final int CC_GT = 0x80;  //큼
+
     ResourceManager rMgr;
-    boolean returnValue;        //다음 명령어에 영향을 미치는 비교 연산의 결과 저장
     String currDevice = "";     //현재 명령어가 사용하고 있는 device의 이름
-    String targetAddr = "";     //현재 명령어의 Target Address
+    int targetAddress = -1;     //현재 명령어의 Target Address, 없으면 -1
+
+    //opcode >> 2 를 index로 하는 명령어 처리 table
+    InstHandler[] handlers = new InstHandler[64];
 
     /**
      * InstLuncher 생성자
      * @param resourceManager resourceManager
+     * @param instructions 처리 table을 만들 명령어 정보들
      */
-    public InstLuncher(ResourceManager resourceManager) {
+    public InstLuncher(ResourceManager resourceManager, Iterable<Instruction> instructions) {
         this.rMgr = resourceManager;
+        buildHandlers(instructions);
     }
 
     /**
-     * 명령어를 실질적으로 실행하는 함수
-     * 각각 명령어에 맞춰 해당 함수를 호출하여 다음 명령어의 주소를 리턴한다
-     * @param inst 해당 명령어 정보
-     * @param nixbpe nixbpe 비트
-     * @param displacement displacement
-     * @param locctr 현재 PC 값
-     * @return 계산된 PC 값
+     * 명령어 정보를 바탕으로 opcode별 처리 table을 한 번만 만든다.
+     * 수행 시에는 문자열 비교 없이 table의 index 접근만으로 명령어를 찾는다.
+     * @param instructions 명령어 정보들
      */
-    public int launch(Instruction inst, int nixbpe, int displacement, int locctr) {
-        //디바이스 정보 초기화
-        currDevice = "";
-        targetAddr = "";
-        //각 명령어 별로 수행
-        switch (inst.instruction) {
+    void buildHandlers(Iterable<Instruction> instructions) {
+        for (Instruction inst : instructions)
+            handlers[inst.opcode >> 2] = handlerOf(inst.instruction);
+    }
+
+    /**
+     * 명령어 이름에 해당하는 처리 함수를 리턴한다. 처리 table을 만들 때만 호출된다.
+     * @param name 명령어 이름
+     * @return 처리 함수, 구현되지 않은 명령어는 아무 것도 하지 않는 처리 함수
+     */
+    InstHandler handlerOf(String name) {
+        switch (name) {
+            case "ADD":
+                return (nixbpe, displacement, locctr) -> { ADD(nixbpe, displacement, locctr); return locctr; };
+            case "ADDF":
+                return (nixbpe, displacement, locctr) -> { ADDF(nixbpe, displacement, locctr); return locctr; };
+            case "ADDR":
+                return (nixbpe, displacement, locctr) -> { ADDR(nixbpe, displacement); return locctr; };
+            case "AND":
+                return (nixbpe, displacement, locctr) -> { AND(nixbpe, displacement, locctr); return locctr; };
             case "CLEAR":
-                CLEAR(nixbpe);
-                break;
+                return (nixbpe, displacement, locctr) -> { CLEAR(nixbpe); return locctr; };
             case "COMP":
-                COMP(nixbpe, displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { COMP(nixbpe, displacement, locctr); return locctr; };
+            case "COMPF":
+                return (nixbpe, displacement, locctr) -> { COMPF(nixbpe, displacement, locctr); return locctr; };
             case "COMPR":
-                COMPR(nixbpe, displacement);
-                break;
+                return (nixbpe, displacement, locctr) -> { COMPR(nixbpe, displacement); return locctr; };
+            case "DIV":
+                return (nixbpe, displacement, locctr) -> { DIV(nixbpe, displacement, locctr); return locctr; };
+            case "DIVF":
+                return (nixbpe, displacement, locctr) -> { DIVF(nixbpe, displacement, locctr); return locctr; };
+            case "DIVR":
+                return (nixbpe, displacement, locctr) -> { DIVR(nixbpe, displacement); return locctr; };
+            case "FIX":
+                return (nixbpe, displacement, locctr) -> { FIX(); return locctr; };
+            case "FLOAT":
+                return (nixbpe, displacement, locctr) -> { FLOAT(); return locctr; };
             case "J":
-                return J(nixbpe, displacement, locctr);
+                return this::J;
             case "JEQ":
-                return JEQ(displacement, locctr);
+                return this::JEQ;
+            case "JGT":
+                return this::JGT;
             case "JLT":
-                return JLT(displacement, locctr);
+                return this::JLT;
             case "JSUB":
-                return JSUB(nixbpe, displacement, locctr);
+                return this::JSUB;
             case "LDA":
-                LDA(nixbpe, displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { LDA(nixbpe, displacement, locctr); return locctr; };
+            case "LDB":
+                return (nixbpe, displacement, locctr) -> { LDB(nixbpe, displacement, locctr); return locctr; };
             case "LDCH":
-                LDCH(nixbpe, displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { LDCH(nixbpe, displacement, locctr); return locctr; };
+            case "LDF":
+                return (nixbpe, displacement, locctr) -> { LDF(nixbpe, displacement, locctr); return locctr; };
+            case "LDL":
+                return (nixbpe, displacement, locctr) -> { LDL(nixbpe, displacement, locctr); return locctr; };
+            case "LDS":
+                return (nixbpe, displacement, locctr) -> { LDS(nixbpe, displacement, locctr); return locctr; };
             case "LDT":
-                LDT(nixbpe, displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { LDT(nixbpe, displacement, locctr); return locctr; };
+            case "LDX":
+                return (nixbpe, displacement, locctr) -> { LDX(nixbpe, displacement, locctr); return locctr; };
+            case "MUL":
+                return (nixbpe, displacement, locctr) -> { MUL(nixbpe, displacement, locctr); return locctr; };
+            case "MULF":
+                return (nixbpe, displacement, locctr) -> { MULF(nixbpe, displacement, locctr); return locctr; };
+            case "MULR":
+                return (nixbpe, displacement, locctr) -> { MULR(nixbpe, displacement); return locctr; };
+            case "OR":
+                return (nixbpe, displacement, locctr) -> { OR(nixbpe, displacement, locctr); return locctr; };
             case "RD":
-                RD(displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { RD(nixbpe, displacement, locctr); return locctr; };
+            case "RMO":
+                return (nixbpe, displacement, locctr) -> { RMO(nixbpe, displacement); return locctr; };
             case "RSUB":
-                return RSUB();
+                return (nixbpe, displacement, locctr) -> RSUB();
+            case "SHIFTL":
+                return (nixbpe, displacement, locctr) -> { SHIFTL(nixbpe, displacement); return locctr; };
+            case "SHIFTR":
+                return (nixbpe, displacement, locctr) -> { SHIFTR(nixbpe, displacement); return locctr; };
             case "STA":
-                STA(displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { STA(nixbpe, displacement, locctr); return locctr; };
+            case "STB":
+                return (nixbpe, displacement, locctr) -> { STB(nixbpe, displacement, locctr); return locctr; };
             case "STCH":
-                STCH(nixbpe, displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { STCH(nixbpe, displacement, locctr); return locctr; };
+            case "STF":
+                return (nixbpe, displacement, locctr) -> { STF(nixbpe, displacement, locctr); return locctr; };
             case "STL":
-                STL(displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { STL(nixbpe, displacement, locctr); return locctr; };
+            case "STS":
+                return (nixbpe, displacement, locctr) -> { STS(nixbpe, displacement, locctr); return locctr; };
+            case "STSW":
+                return (nixbpe, displacement, locctr) -> { STSW(nixbpe, displacement, locctr); return locctr; };
+            case "STT":
+                return (nixbpe, displacement, locctr) -> { STT(nixbpe, displacement, locctr); return locctr; };
             case "STX":
-                STX(nixbpe, displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { STX(nixbpe, displacement, locctr); return locctr; };
+            case "SUB":
+                return (nixbpe, displacement, locctr) -> { SUB(nixbpe, displacement, locctr); return locctr; };
+            case "SUBF":
+                return (nixbpe, displacement, locctr) -> { SUBF(nixbpe, displacement, locctr); return locctr; };
+            case "SUBR":
+                return (nixbpe, displacement, locctr) -> { SUBR(nixbpe, displacement); return locctr; };
             case "TD":
-                TD(displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { TD(nixbpe, displacement, locctr); return locctr; };
+            case "TIX":
+                return (nixbpe, displacement, locctr) -> { TIX(nixbpe, displacement, locctr); return locctr; };
             case "TIXR":
-                TIXR(nixbpe);
-                break;
+                return (nixbpe, displacement, locctr) -> { TIXR(nixbpe); return locctr; };
             case "WD":
-                WD(displacement, locctr);
-                break;
+                return (nixbpe, displacement, locctr) -> { WD(nixbpe, displacement, locctr); return locctr; };
+            default:
+                //구현되지 않은 명령어(NORM, 시스템 명령어 등)는 다음 명령어로 넘어간다
+                return (nixbpe, displacement, locctr) -> locctr;
         }
-        //계산된 PC값 리턴
-        return locctr * 2;
+    }
+
+    /**
+     * 프로그램을 새로 load할 때 명령어 수행 상태를 초기화한다. 처리 table은 그대로 유지한다.
+     */
+    public void reset() {
+        currDevice = "";
+        targetAddress = -1;
+    }
+
+    /**
+     * 현재 명령어의 Target Address를 화면 출력용 문자열로 돌려준다.
+     * @return 6자리 16진수 문자열, Target Address가 없으면 빈 문자열
+     */
+    public String getTargetAddr() {
+        if (targetAddress < 0)
+            return "";
+        return String.valueOf(ResourceManager.toHex(targetAddress, 6));
+    }
+
+    /**
+     * 명령어를 실질적으로 실행하는 함수
+     * 각각 명령어에 맞춰 해당 함수를 호출하여 다음 명령어의 주소를 리턴한다
+     * @param inst 해당 명령어 정보
+     * @param nixbpe nixbpe 비트
+     * @param displacement displacement
+     * @param locctr 현재 PC 값
+     * @return 계산된 PC 값
+     */
+    public int launch(Instruction inst, int nixbpe, int displacement, int locctr) {
+        return launch(handlers[inst.opcode >> 2], nixbpe, displacement, locctr);
+    }
+
+    /**
+     * 처리 함수가 이미 정해진 명령어를 실행하는 함수 (decode cache에서 호출)
+     * @param handler 해당 명령어의 처리 함수
+     * @param nixbpe nixbpe 비트
+     * @param displacement displacement
+     * @param locctr 현재 PC 값
+     * @return 계산된 PC 값
+     */
+    public int launch(InstHandler handler, int nixbpe, int displacement, int locctr) {
+        //디바이스 정보 초기화
+        currDevice = "";
+        targetAddress = -1;
+        //명령어 수행 후 계산된 PC값 리턴
+        return handler.execute(nixbpe, displacement, locctr);
+    }
+
+    /**
+     * format 3/4 명령어의 Target Address를 addressing mode에 따라 계산한다.
+     * 모든 처리 함수는 주소 계산을 이 함수(와 operand(), operandByte())에 맡기며, 결과는 int로만 다룬다.
+     * (simple, immediate, indirect, PC-relative, base-relative, indexed, extended, SIC 호환 형식)
+     * @param nixbpe nixbpe 비트
+     * @param displacement displacement
+     * @param locctr 현재 PC 값
+     * @return Target Address (immediate라면 피연산자 값 그 자체)
+     */
+    int address(int nixbpe, int displacement, int locctr) {
+        int location;
+        //SIC 호환 명령어 (n = i = 0) 라면 b, p, e 비트까지 주소로 사용
+        if ((nixbpe & 0x30) == 0)
+            location = (nixbpe & 0x7) << 12 | displacement;
+        //extended (format 4)
+        else if ((nixbpe & 0x01) == 0x01)
+            location = displacement;
+        //PC-relative, displacement의 (-) 처리(sign bit 확장)
+        else if ((nixbpe & 0x02) == 0x02)
+            location = locctr + ((displacement << 20) >> 20);
+        //base-relative
+        else if ((nixbpe & 0x04) == 0x04)
+            location = rMgr.getRegister(3) + displacement;
+        else
+            location = displacement;
+        //X 레지스터 연산이 있다면
+        if ((nixbpe & 0x08) == 0x08)
+            location += rMgr.getRegister(1);
+        location &= 0xFFFFF;
+        //indirect addressing
+        if ((nixbpe & 0x30) == 0x20)
+            location = rMgr.readWord(location) & 0xFFFFF;
+        return location;
+    }
+
+    /**
+     * format 3/4 명령어의 피연산자(1 word) 값을 addressing mode에 따라 가져온다.
+     * @param nixbpe nixbpe 비트
+     * @param displacement displacement
+     * @param locctr 현재 PC 값
+     * @return 피연산자 값
+     */
+    int operand(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        targetAddress = location;
+        //immediate addressing
+        if ((nixbpe & 0x30) == 0x10)
+            return location;
+        return rMgr.readWord(location);
+    }
+
+    /**
+     * format 3/4 명령어의 1 byte 피연산자 값을 addressing mode에 따라 가져온다. (LDCH, RD, TD, WD)
+     * @param nixbpe nixbpe 비트
+     * @param displacement displacement
+     * @param locctr 현재 PC 값
+     * @return 피연산자 값 (0 ~ 255)
+     */
+    int operandByte(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        targetAddress = location;
+        //immediate addressing
+        if ((nixbpe & 0x30) == 0x10)
+            return location & 0xFF;
+        return rMgr.readByte(location);
+    }
+
+    /**
+     * format 3/4 명령어의 48 bit 실수 피연산자(6 byte) 값을 addressing mode에 따라 가져온다.
+     * immediate라면 피연산자 값을 실수의 상위 24 bit(부호, 지수, 소수부 앞 12 bit)로 사용한다.
+     * @param nixbpe nixbpe 비트
+     * @param displacement displacement
+     * @param locctr 현재 PC 값
+     * @return 피연산자 값
+     */
+    double operandF(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        targetAddress = location;
+        //immediate addressing
+        if ((nixbpe & 0x30) == 0x10)
+            return ResourceManager.bitsToFloat((long) location << 24);
+        return rMgr.readFloat(location);
+    }
+
+    /**
+     * 24 bit 값을 부호 있는 int로 변환한다.
+     */
+    static int signed(int value) {
+        return (value << 8) >> 8;
+    }
+
+    /**
+     * 두 24 bit 값을 부호 있는 정수로 비교하여 condition code를 돌려준다.
+     */
+    static int compare(int first, int second) {
+        int diff = Integer.compare(signed(first), signed(second));
+        return diff < 0 ? CC_LT : diff == 0 ? CC_EQ : CC_GT;
+    }
+
+    /**
+     * SW 레지스터의 condition code를 바꾼다. 나머지 bit는 그대로 둔다.
+     */
+    void setCC(int cc) {
+        int sw = rMgr.getRegister(9);
+        if ((sw & CC_MASK) != cc)
+            rMgr.setRegister(9, sw & ~CC_MASK | cc);
+    }
+
+    /**
+     * 계산 결과를 48 bit 실수로 나타낼 수 있는 값으로 맞추어 F 레지스터에 저장한다.
+     */
+    void setF(double value) {
+        rMgr.setRegisterF(ResourceManager.bitsToFloat(ResourceManager.floatToBits(value)));
     }
 
     /**CLEAR**/
@@ -97,18 +322,8 @@ public class InstLuncher {
 
     /**COMP**/
     public void COMP(int nixbpe, int displacement, int locctr) {
-        //A 레지스터 값 불러오기
-        int A = rMgr.getRegister(0);
-        int compValue;
-        if ((nixbpe & 0x30) == 0x10) {
-            compValue = displacement;
-            targetAddr = String.format("%06X", displacement);
-        } else {
-            compValue = rMgr.byteToInt(rMgr.getMemory((locctr + displacement) * 2, 6));
-            targetAddr = String.format("%06X", locctr + displacement);
-        }
-        //비교 값 저장
-        returnValue = (compValue == A);
+        //A 레지스터 값과 피연산자 비교
+        setCC(compare(rMgr.getRegister(0), operand(nixbpe, displacement, locctr)));
     }
 
     /**COMPR**/
@@ -116,207 +331,125 @@ public class InstLuncher {
         //두 레지스터 값 불러오기
         int firstR = rMgr.getRegister(nixbpe & 0xF);
         int secondR = rMgr.getRegister(displacement);
-        //비교 값 저장
-        returnValue = (firstR == secondR);
+        //비교 결과 저장
+        setCC(compare(firstR, secondR));
     }
 
     /**J**/
     public int J(int nixbpe, int displacement, int locctr) {
-        //indirect addressing
-        if ((nixbpe & 0x30) == 0x20) {
-            int indirectAddr = Integer.parseInt(String.copyValueOf(rMgr.getMemory((locctr + displacement) * 2, 6)), 16);
-            //프로그램의 마지막이라면
-            //  (현재 input 프로그램은 이전 주소(L 레지스터)의 정보가 없어 다시 첫번째 명령어로 돌아오는 loop가 생기므로
-            //   처음으로 돌아오면 프로그램이 종료하는 것으로 약속)
-            if (indirectAddr == 0) {
-                targetAddr = String.format("%06X", 0);
-                return 0;
-            }
-        }
-        //displacement의 (-) 처리(sign bit 확장)
-        if (displacement > 0x800)
-            displacement |= 0xFFFFF000;
-        targetAddr = String.format("%06X", locctr + displacement);
-        return (locctr + displacement) * 2;
+        //프로그램의 마지막이라면 indirect addressing으로 가져온 주소가 0이 되어 0을 리턴한다
+        //  (현재 input 프로그램은 이전 주소(L 레지스터)의 정보가 없어 다시 첫번째 명령어로 돌아오는 loop가 생기므로
+        //   처음으로 돌아오면 프로그램이 종료하는 것으로 약속)
+        int location = address(nixbpe, displacement, locctr);
+        targetAddress = location;
+        return location;
     }
 
     /**JEQ**/
-    public int JEQ(int displacement, int locctr) {
-        //displacement의 (-) 처리(sign bit 확장)
-        if (displacement > 0x800)
-            displacement |= 0xFFFFF000;
-        //false면 (같지 않으면)
-        if (!returnValue) {
-            targetAddr = String.format("%06X", locctr);
-            return locctr * 2;
-        }
-        //true면 (같으면)
-        else {
-            targetAddr = String.format("%06X", locctr + displacement);
-            return (displacement + locctr) * 2;
-        }
+    public int JEQ(int nixbpe, int displacement, int locctr) {
+        return branch(CC_EQ, nixbpe, displacement, locctr);
+    }
+
+    /**JGT**/
+    public int JGT(int nixbpe, int displacement, int locctr) {
+        return branch(CC_GT, nixbpe, displacement, locctr);
     }
 
     /**JLT**/
-    public int JLT(int displacement, int locctr) {
-        //displacement의 (-) 처리(sign bit 확장)
-        if (displacement > 0x800)
-            displacement |= 0xFFFFF000;
-        //false면 (크거나 같으면)
-        if (!returnValue) {
-            targetAddr = String.format("%06X", locctr);
-            return locctr * 2;
-        }
-        //true면 (작으면)
-        else {
-            targetAddr = String.format("%06X", locctr + displacement);
-            return (locctr + displacement) * 2;
-        }
+    public int JLT(int nixbpe, int displacement, int locctr) {
+        return branch(CC_LT, nixbpe, displacement, locctr);
+    }
+
+    /**
+     * 조건 분기 명령어, SW의 condition code가 cc와 같으면 분기하고 아니면 다음 명령어로 넘어간다.
+     * @param cc 분기할 condition code
+     * @return 계산된 PC 값
+     */
+    int branch(int cc, int nixbpe, int displacement, int locctr) {
+        int location = (rMgr.getRegister(9) & CC_MASK) == cc ? address(nixbpe, displacement, locctr) : locctr;
+        targetAddress = location;
+        return location;
     }
 
     /**JSUB**/
     public int JSUB(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
         //돌아올 주소 저장
         rMgr.setRegister(2, locctr);
-        //4 byte format이면
-        if ((nixbpe & 0x1) == 1) {
-            targetAddr = String.format("%06X", displacement);
-            return displacement * 2;
-        }
-        //3 byte format이면
-        else {
-            targetAddr = String.format("%06X", locctr + displacement);
-            return (locctr + displacement) * 2;
-        }
+        targetAddress = location;
+        return location;
     }
 
     /**LDA**/
     public void LDA(int nixbpe, int displacement, int locctr) {
-        int location;
-        //immediate addressing
-        if ((nixbpe & 0x30) == 0x10) {
-            rMgr.setRegister(0, displacement);
-            return;
-        }
-        //PC-relative가 아니면
-        if ((nixbpe & 0x06) == 0)
-            location = displacement * 2;
-        else
-            location = (displacement + locctr) * 2;
-        //A 레지스터에 저장할 값을 불러와 A 레지스터에 반영
-        int Avalue = rMgr.byteToInt(rMgr.getMemory(location, 6));
-        rMgr.setRegister(0, Avalue);
-        targetAddr = String.format("%06X", location / 2);
+        rMgr.setRegister(0, operand(nixbpe, displacement, locctr));
     }
 
     /**LDCH**/
     public void LDCH(int nixbpe, int displacement, int locctr) {
-        int location;
-        //PC-relative가 아니면
-        if ((nixbpe & 0x06) == 0)
-            location = displacement * 2;
-        else
-            location = (displacement + locctr) * 2;
-        //X 레지스터 연산이 있다면
-        if ((nixbpe & 0x08) == 0x08)
-            location += rMgr.getRegister(1) * 2;
         //A 레지스터에 저장할 값을 1 byte만 불러와 A 레지스터에 반영
-        int Avalue = rMgr.byteToInt(rMgr.getMemory(location, 2));
-        rMgr.setRegister(0, Avalue);
-        targetAddr = String.format("%06X", location / 2);
+        rMgr.setRegister(0, operandByte(nixbpe, displacement, locctr));
     }
 
     /**LDT**/
     public void LDT(int nixbpe, int displacement, int locctr) {
-        int location;
-        //PC-relative가 아니면
-        if ((nixbpe & 0x06) == 0)
-            location = displacement * 2;
-        else
-            location = (displacement + locctr) * 2;
-        //T 레지스터에 저장할 값을 불러와 T 레지스터에 반영
-        int Tvalue = rMgr.byteToInt(rMgr.getMemory(location, 6));
-        rMgr.setRegister(5, Tvalue);
-        targetAddr = String.format("%06X", location / 2);
+        rMgr.setRegister(5, operand(nixbpe, displacement, locctr));
     }
 
     /**RD**/
-    public void RD(int displacement, int locctr) {
+    public void RD(int nixbpe, int displacement, int locctr) {
         //device에서 1 byte만큼 읽기
-        String device = String.copyValueOf(rMgr.getMemory((locctr + displacement) * 2, 2));
-        char[] read = rMgr.readDevice(device, 1);
+        String device = ResourceManager.HEX_BYTE[operandByte(nixbpe, displacement, locctr)];
+        int read = rMgr.readDevice(device);
         //읽은 정보를 A 레지스터에 저장
-        rMgr.setRegister(0, read[0] << 4 | read[1]);
+        rMgr.setRegister(0, read);
         currDevice = device;
-        targetAddr = String.format("%06X", locctr + displacement);
     }
 
     /**RSUB**/
     public int RSUB() {
         //저장해 두었던 주소로 돌아가기
         int originAddr = rMgr.getRegister(2);
-        targetAddr = String.format("%06X", originAddr);
-        return originAddr * 2;
+        targetAddress = originAddr;
+        return originAddr;
     }
 
     /**STA**/
-    public void STA(int displacement, int locctr) {
-        //A 레지스터 값을 불러와 저장
-        int A = rMgr.getRegister(0);
-        char[] LtoChar = rMgr.intToChar(A);
-        rMgr.setMemory((locctr + displacement) * 2, LtoChar, 6);
-        targetAddr = String.format("%06X", locctr + displacement);
+    public void STA(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeWord(location, rMgr.getRegister(0));
+        targetAddress = location;
     }
 
     /**STCH**/
     public void STCH(int nixbpe, int displacement, int locctr) {
-        int location;
-        //PC-relative가 아니면
-        if ((nixbpe & 0x06) == 0)
-            location = displacement * 2;
-        else
-            location = (displacement + locctr) * 2;
-        //X 레지스터 연산이 있다면
-        if ((nixbpe & 0x08) == 0x08)
-            location += rMgr.getRegister(1) * 2;
         //A 레지스터에서 1 byte만 불러와 메모리에 저장
-        char[] AtoChar = String.format("%02X", rMgr.getRegister(0)).toCharArray();
-        rMgr.setMemory(location, AtoChar, 2);
-        targetAddr = String.format("%06X", location / 2);
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeByte(location, rMgr.getRegister(0));
+        targetAddress = location;
     }
 
     /**STL**/
-    public void STL(int displacement, int locctr) {
-        //L 레지스터에서 값을 불러와 저장
-        int L = rMgr.getRegister(2);
-        char[] LtoChar = rMgr.intToChar(L);
-        rMgr.setMemory((locctr + displacement) * 2, LtoChar, 6);
-        targetAddr = String.format("%06X", locctr + displacement);
+    public void STL(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeWord(location, rMgr.getRegister(2));
+        targetAddress = location;
     }
 
     /**STX**/
     public void STX(int nixbpe, int displacement, int locctr) {
-        //X 레지스터에서 값을 불러와 저장
-        int X = rMgr.getRegister(1);
-        char[] XtoChar = rMgr.intToChar(X);
-        int location;
-        //PC-relative가 아니면
-        if ((nixbpe & 0x06) == 0)
-            location = displacement * 2;
-        else
-            location = (displacement + locctr) * 2;
-        rMgr.setMemory(location, XtoChar, 6);
-        targetAddr = String.format("%06X", location / 2);
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeWord(location, rMgr.getRegister(1));
+        targetAddress = location;
     }
 
     /**TD**/
-    public void TD(int displacement, int locctr) {
+    public void TD(int nixbpe, int displacement, int locctr) {
         //device 이름을 가져와 해당 device가 준비가 되었는지 확인
-        String device = String.copyValueOf(rMgr.getMemory((locctr + displacement) * 2, 2));
-        //device 준비 여부 저장
-        returnValue = !rMgr.testDevice(device);
+        String device = ResourceManager.HEX_BYTE[operandByte(nixbpe, displacement, locctr)];
+        //device 준비 여부 저장 (준비되었으면 <, 아니면 =)
+        setCC(rMgr.testDevice(device) ? CC_LT : CC_EQ);
         currDevice = device;
-        targetAddr = String.format("%06X", locctr + displacement);
     }
 
     /**TIXR**/
@@ -324,20 +457,218 @@ public class InstLuncher {
         //X 레지스터와 비교할 레지스터 값 불러오기
         int compR = rMgr.getRegister(nixbpe & 0xF);
         //X 레지스터 값 1 증가
-        int newX = rMgr.getRegister(1) + 1;
+        int newX = (rMgr.getRegister(1) + 1) & 0xFFFFFF;
         rMgr.setRegister(1, newX);
         //비교 결과 저장
-        returnValue = (newX < compR);
+        setCC(compare(newX, compR));
     }
 
     /**WD**/
-    public void WD(int displacement, int locctr) {
+    public void WD(int nixbpe, int displacement, int locctr) {
         //디바이스 이름과 1 byte만큼 쓸 데이터를 불러와 해당 디바이스에 출력
-        String device = String.copyValueOf(rMgr.getMemory((locctr + displacement) * 2, 2));
-        char[] data = rMgr.intToChar(rMgr.getRegister(0));
-        rMgr.writeDevice(device, data, 2);
+        String device = ResourceManager.HEX_BYTE[operandByte(nixbpe, displacement, locctr)];
+        rMgr.writeDevice(device, rMgr.getRegister(0));
         currDevice = device;
-        targetAddr = String.format("%06X", locctr + displacement);
+    }
+
+    /**ADD**/
+    public void ADD(int nixbpe, int displacement, int locctr) {
+        int value = operand(nixbpe, displacement, locctr);
+        rMgr.setRegister(0, (rMgr.getRegister(0) + value) & 0xFFFFFF);
+    }
+
+    /**ADDR**/
+    public void ADDR(int nixbpe, int displacement) {
+        //r2 <- r2 + r1
+        int value = rMgr.getRegister(displacement) + rMgr.getRegister(nixbpe & 0xF);
+        rMgr.setRegister(displacement, value & 0xFFFFFF);
+    }
+
+    /**AND**/
+    public void AND(int nixbpe, int displacement, int locctr) {
+        int value = operand(nixbpe, displacement, locctr);
+        rMgr.setRegister(0, rMgr.getRegister(0) & value);
+    }
+
+    /**DIV**/
+    public void DIV(int nixbpe, int displacement, int locctr) {
+        int value = signed(operand(nixbpe, displacement, locctr));
+        //0으로 나누는 경우 A 레지스터를 그대로 둔다
+        if (value != 0)
+            rMgr.setRegister(0, (signed(rMgr.getRegister(0)) / value) & 0xFFFFFF);
+    }
+
+    /**DIVR**/
+    public void DIVR(int nixbpe, int displacement) {
+        //r2 <- r2 / r1
+        int value = signed(rMgr.getRegister(nixbpe & 0xF));
+        //0으로 나누는 경우 레지스터를 그대로 둔다
+        if (value != 0)
+            rMgr.setRegister(displacement, (signed(rMgr.getRegister(displacement)) / value) & 0xFFFFFF);
+    }
+
+    /**LDB**/
+    public void LDB(int nixbpe, int displacement, int locctr) {
+        rMgr.setRegister(3, operand(nixbpe, displacement, locctr));
+    }
+
+    /**LDL**/
+    public void LDL(int nixbpe, int displacement, int locctr) {
+        rMgr.setRegister(2, operand(nixbpe, displacement, locctr));
+    }
+
+    /**LDS**/
+    public void LDS(int nixbpe, int displacement, int locctr) {
+        rMgr.setRegister(4, operand(nixbpe, displacement, locctr));
+    }
+
+    /**LDX**/
+    public void LDX(int nixbpe, int displacement, int locctr) {
+        rMgr.setRegister(1, operand(nixbpe, displacement, locctr));
+    }
+
+    /**MUL**/
+    public void MUL(int nixbpe, int displacement, int locctr) {
+        int value = signed(operand(nixbpe, displacement, locctr));
+        rMgr.setRegister(0, (signed(rMgr.getRegister(0)) * value) & 0xFFFFFF);
+    }
+
+    /**MULR**/
+    public void MULR(int nixbpe, int displacement) {
+        //r2 <- r2 * r1
+        int value = signed(rMgr.getRegister(displacement)) * signed(rMgr.getRegister(nixbpe & 0xF));
+        rMgr.setRegister(displacement, value & 0xFFFFFF);
+    }
+
+    /**OR**/
+    public void OR(int nixbpe, int displacement, int locctr) {
+        int value = operand(nixbpe, displacement, locctr);
+        rMgr.setRegister(0, rMgr.getRegister(0) | value);
+    }
+
+    /**RMO**/
+    public void RMO(int nixbpe, int displacement) {
+        //r2 <- r1
+        rMgr.setRegister(displacement, rMgr.getRegister(nixbpe & 0xF));
+    }
+
+    /**SHIFTL**/
+    public void SHIFTL(int nixbpe, int displacement) {
+        //왼쪽으로 (n)번 순환 이동, r2 자리에는 n - 1이 들어있음
+        int value = rMgr.getRegister(nixbpe & 0xF);
+        int n = (displacement + 1) % 24;
+        value = ((value << n) | (value >>> (24 - n))) & 0xFFFFFF;
+        rMgr.setRegister(nixbpe & 0xF, value);
+    }
+
+    /**SHIFTR**/
+    public void SHIFTR(int nixbpe, int displacement) {
+        //오른쪽으로 (n)번 이동, 왼쪽은 부호 bit로 채움
+        int value = signed(rMgr.getRegister(nixbpe & 0xF));
+        rMgr.setRegister(nixbpe & 0xF, (value >> (displacement + 1)) & 0xFFFFFF);
+    }
+
+    /**STB**/
+    public void STB(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeWord(location, rMgr.getRegister(3));
+        targetAddress = location;
+    }
+
+    /**STS**/
+    public void STS(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeWord(location, rMgr.getRegister(4));
+        targetAddress = location;
+    }
+
+    /**STSW**/
+    public void STSW(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeWord(location, rMgr.getRegister(9));
+        targetAddress = location;
+    }
+
+    /**STT**/
+    public void STT(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeWord(location, rMgr.getRegister(5));
+        targetAddress = location;
+    }
+
+    /**SUB**/
+    public void SUB(int nixbpe, int displacement, int locctr) {
+        int value = operand(nixbpe, displacement, locctr);
+        rMgr.setRegister(0, (rMgr.getRegister(0) - value) & 0xFFFFFF);
+    }
+
+    /**SUBR**/
+    public void SUBR(int nixbpe, int displacement) {
+        //r2 <- r2 - r1
+        int value = rMgr.getRegister(displacement) - rMgr.getRegister(nixbpe & 0xF);
+        rMgr.setRegister(displacement, value & 0xFFFFFF);
+    }
+
+    /**TIX**/
+    public void TIX(int nixbpe, int displacement, int locctr) {
+        //X 레지스터 값 1 증가
+        int newX = (rMgr.getRegister(1) + 1) & 0xFFFFFF;
+        rMgr.setRegister(1, newX);
+        //비교 결과 저장
+        setCC(compare(newX, operand(nixbpe, displacement, locctr)));
+    }
+
+    /**ADDF**/
+    public void ADDF(int nixbpe, int displacement, int locctr) {
+        setF(rMgr.register_F + operandF(nixbpe, displacement, locctr));
+    }
+
+    /**COMPF**/
+    public void COMPF(int nixbpe, int displacement, int locctr) {
+        int diff = Double.compare(rMgr.register_F, operandF(nixbpe, displacement, locctr));
+        setCC(diff < 0 ? CC_LT : diff == 0 ? CC_EQ : CC_GT);
+    }
+
+    /**DIVF**/
+    public void DIVF(int nixbpe, int displacement, int locctr) {
+        double value = operandF(nixbpe, displacement, locctr);
+        //0으로 나누는 경우 F 레지스터를 그대로 둔다
+        if (value != 0)
+            setF(rMgr.register_F / value);
+    }
+
+    /**FIX**/
+    public void FIX() {
+        //F 레지스터 값의 정수 부분을 A 레지스터에 저장
+        rMgr.setRegister(0, (int) rMgr.register_F & 0xFFFFFF);
+    }
+
+    /**FLOAT**/
+    public void FLOAT() {
+        //A 레지스터 값을 실수로 바꾸어 F 레지스터에 저장
+        setF(signed(rMgr.getRegister(0)));
+    }
+
+    /**LDF**/
+    public void LDF(int nixbpe, int displacement, int locctr) {
+        rMgr.setRegisterF(operandF(nixbpe, displacement, locctr));
+    }
+
+    /**MULF**/
+    public void MULF(int nixbpe, int displacement, int locctr) {
+        setF(rMgr.register_F * operandF(nixbpe, displacement, locctr));
+    }
+
+    /**STF**/
+    public void STF(int nixbpe, int displacement, int locctr) {
+        int location = address(nixbpe, displacement, locctr);
+        rMgr.writeFloat(location, rMgr.register_F);
+        targetAddress = location;
+    }
+
+    /**SUBF**/
+    public void SUBF(int nixbpe, int displacement, int locctr) {
+        setF(rMgr.register_F - operandF(nixbpe, displacement, locctr));
     }
 
 }
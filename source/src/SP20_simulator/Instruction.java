@@ -0,0 +1,50 @@
+package SP20_simulator;
+
+/**
+ * 명령어 하나하나의 구체적인 정보는 Instruction클래스에 담긴다.
+ * instruction과 관련된 정보들을 저장하고 기초적인 연산을 수행한다.
+ * 만든 뒤에는 바뀌지 않으므로 여러 SicSimulator가 InstructionSet을 통해 공유한다.
+ */
+class Instruction {
+
+    final String instruction;   //명령어 이름, 형식이 맞지 않는 줄이면 null
+    final int opcode;           //명령어 Opcode
+    final int operandNum;       //명령어 피연산자 개수
+    final int format;           //명령어의 포맷
+    final boolean branch;       //흐름을 바꾸는 분기 명령어(J, JEQ, JGT, JLT, JSUB, RSUB)인지 여부, block은 여기서 끝난다
+
+    /**
+     * 클래스를 선언하면서 일반문자열을 즉시 구조에 맞게 파싱한다.
+     * 탭(\t)으로 구분된 4개의 항목(이름, format, opcode, 피연산자 개수)이 아니면 instruction은 null이다.
+     * @param line : instruction 명세파일로부터 한줄씩 가져온 문자열
+     */
+    public Instruction(String line) {
+        //탭(\t)으로 분리
+        String[] info = line.split("\t");
+        boolean valid = info.length == 4;
+        instruction = valid ? info[0] : null;
+        format = valid ? Integer.parseInt(info[1]) : 0;
+        opcode = valid ? Integer.parseInt(info[2], 16) : 0;
+        operandNum = valid ? Integer.parseInt(info[3]) : 0;
+        branch = valid && isBranch(instruction);
+    }
+
+    /**
+     * 명령어 이름이 분기 명령어인지 확인한다. InstLuncher가 이름으로 처리 함수를 정하므로 이름으로 판단한다.
+     * @param name 명령어 이름
+     * @return 분기 명령어이면 true
+     */
+    static boolean isBranch(String name) {
+        switch (name) {
+            case "J":
+            case "JEQ":
+            case "JGT":
+            case "JLT":
+            case "JSUB":
+            case "RSUB":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
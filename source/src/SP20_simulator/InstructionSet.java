@@ -0,0 +1,147 @@
+package SP20_simulator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SIC/XE 머신의 명령어 정보 table.
+ * opcode의 상위 6 bit(opcode >> 2)를 index로 하는 배열에 저장하므로 HashMap 없이 바로 찾을 수 있다.
+ *
+ * 만든 뒤에는 내용을 바꿀 수 없으므로(table은 외부에 노출하지 않고, Instruction도 바뀌지 않는다)
+ * 여러 SicSimulator가 하나의 table을 공유한다.
+ * getDefault()는 JVM에서 처음 한 번만 명령어 정보를 불러오며, 다음 순서로 찾는다.
+ *  1) 현재 directory의 inst.data 파일
+ *  2) classpath의 /inst.data resource
+ *  3) 코드에 내장된 SIC/XE 명령어 정보
+ */
+public class InstructionSet {
+    //명령어 명세 파일 이름
+    static final String INST_FILE = "inst.data";
+
+    //내장된 SIC/XE 명령어 정보 (inst.data와 같은 형식 : 이름, format, opcode, 피연산자 개수)
+    static final String[] BUILT_IN = {
+            "ADD\t3\t18\t1", "ADDF\t3\t58\t1", "ADDR\t2\t90\t2", "AND\t3\t40\t1", "CLEAR\t2\tB4\t1",
+            "COMP\t3\t28\t1", "COMPF\t3\t88\t1", "COMPR\t2\tA0\t2", "DIV\t3\t24\t1", "DIVF\t3\t64\t1",
+            "DIVR\t2\t9C\t2", "FIX\t1\tC4\t0", "FLOAT\t1\tC0\t0", "HIO\t1\tF4\t0", "J\t3\t3C\t1",
+            "JEQ\t3\t30\t1", "JGT\t3\t34\t1", "JLT\t3\t38\t1", "JSUB\t3\t48\t1", "LDA\t3\t00\t1",
+            "LDB\t3\t68\t1", "LDCH\t3\t50\t1", "LDF\t3\t70\t1", "LDL\t3\t08\t1", "LDS\t3\t6C\t1",
+            "LDT\t3\t74\t1", "LDX\t3\t04\t1", "LPS\t3\tD0\t1", "MUL\t3\t20\t1", "MULF\t3\t60\t1",
+            "MULR\t2\t98\t2", "NORM\t1\tC8\t0", "OR\t3\t44\t1", "RD\t3\tD8\t1", "RMO\t2\tAC\t2",
+            "RSUB\t3\t4C\t0", "SHIFTL\t2\tA4\t2", "SHIFTR\t2\tA8\t2", "SIO\t1\tF0\t0", "SSK\t3\tEC\t1",
+            "STA\t3\t0C\t1", "STB\t3\t78\t1", "STCH\t3\t54\t1", "STF\t3\t80\t1", "STI\t3\tD4\t1",
+            "STL\t3\t14\t1", "STS\t3\t7C\t1", "STSW\t3\tE8\t1", "STT\t3\t84\t1", "STX\t3\t10\t1",
+            "SUB\t3\t1C\t1", "SUBF\t3\t5C\t1", "SUBR\t2\t94\t2", "SVC\t2\tB0\t1", "TD\t3\tE0\t1",
+            "TIO\t1\tF8\t0", "TIX\t3\t2C\t1", "TIXR\t2\tB8\t1", "WD\t3\tDC\t1"
+    };
+
+    private final Instruction[] table = new Instruction[64];    //opcode >> 2 를 index로 하는 명령어 정보
+    private final List<Instruction> instructions;               //등록된 명령어 목록 (수정 불가)
+
+    /**
+     * InstructionSet 생성자, 명령어 명세를 한 줄씩 읽어 table을 만든다.
+     *
+     * @param reader 명령어 명세를 읽을 reader (이 생성자에서 닫지 않는다)
+     */
+    InstructionSet(Reader reader) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        //한 줄씩 instruction 정보 가져와서 저장, 형식이 맞지 않는 줄은 건너뛴다
+        while ((line = bufferedReader.readLine()) != null) {
+            Instruction inst = new Instruction(line);
+            if (inst.instruction != null)
+                table[inst.opcode >> 2] = inst;
+        }
+        ArrayList<Instruction> list = new ArrayList<>();
+        for (Instruction inst : table) {
+            if (inst != null)
+                list.add(inst);
+        }
+        instructions = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * JVM 전체에서 공유하는 기본 명령어 정보를 돌려준다. 처음 호출할 때 한 번만 불러온다.
+     */
+    public static InstructionSet getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 기본 명령어 정보를 처음 사용할 때 불러오기 위한 holder
+     */
+    static class DefaultHolder {
+        static final InstructionSet INSTANCE = loadDefault();
+    }
+
+    /**
+     * 파일, classpath resource, 내장 명령어 정보 순서로 명령어 정보를 불러온다.
+     */
+    static InstructionSet loadDefault() {
+        File file = new File(INST_FILE);
+        if (file.isFile()) {
+            try {
+                return load(file);
+            } catch (IOException e) {
+                System.err.println("cannot read " + file.getPath() + ": " + e.getMessage());
+            }
+        }
+        try (InputStream resource = InstructionSet.class.getResourceAsStream("/" + INST_FILE)) {
+            if (resource != null)
+                return new InstructionSet(new InputStreamReader(resource, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("cannot read resource /" + INST_FILE + ": " + e.getMessage());
+        }
+        return builtIn();
+    }
+
+    /**
+     * 명령어 명세 파일을 읽어 새 InstructionSet을 만든다.
+     *
+     * @param file 명령어 명세 파일
+     * @return 파일 내용으로 만든 InstructionSet
+     */
+    public static InstructionSet load(File file) throws IOException {
+        try (FileReader fileReader = new FileReader(file)) {
+            return new InstructionSet(fileReader);
+        }
+    }
+
+    /**
+     * 내장된 SIC/XE 명령어 정보로 InstructionSet을 만든다.
+     */
+    public static InstructionSet builtIn() {
+        try {
+            return new InstructionSet(new StringReader(String.join("\n", BUILT_IN)));
+        } catch (IOException e) {
+            //StringReader는 IOException을 던지지 않는다
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * opcode에 해당하는 명령어 정보를 찾는다. (하위 2 bit(n, i)는 무시한다)
+     *
+     * @param opcode 명령어의 첫 byte
+     * @return 명령어 정보, 없으면 null
+     */
+    public Instruction get(int opcode) {
+        return table[(opcode & 0xFF) >> 2];
+    }
+
+    /**
+     * @return 등록된 명령어 목록 (수정 불가)
+     */
+    public List<Instruction> values() {
+        return instructions;
+    }
+}
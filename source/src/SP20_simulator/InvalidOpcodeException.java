@@ -0,0 +1,23 @@
+package SP20_simulator;
+
+/**
+ * 정의되지 않은 opcode를 해석하려 할 때 발생한다. (예: 분기하여 data 영역으로 들어간 경우)
+ * SicSimulator는 이 예외를 받으면 해당 명령어를 수행하지 않고 멈춘다. (Breakpoints.INVALID_OPCODE)
+ */
+public class InvalidOpcodeException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    final int address;      //명령어의 주소
+    final int opcode;       //명령어의 첫 byte
+
+    /**
+     * InvalidOpcodeException 생성자
+     * @param address 명령어의 주소
+     * @param opcode  명령어의 첫 byte
+     */
+    public InvalidOpcodeException(int address, int opcode) {
+        super(String.format("invalid opcode %02X at %06X", opcode, address));
+        this.address = address;
+        this.opcode = opcode;
+    }
+}
@@ -0,0 +1,15 @@
+package SP20_simulator;
+
+import java.util.ArrayList;
+
+/**
+ * ResourceManager.takeSnapshot()으로 만든 머신 상태.
+ * 메모리 page는 다른 snapshot과 공유될 수 있으므로 내용을 수정하지 않는다.
+ */
+class MachineSnapshot {
+    byte[][] pages;                                     //메모리 page들
+    int[] register;                                     //레지스터 값 (SW의 condition code 포함)
+    double register_F;                                  //F 레지스터 값
+    ArrayList<DevicePosition> devices = new ArrayList<>();  //열려 있던 device와 그 위치
+    long stepCount;                                     //수행한 명령어 개수 (SicSimulator에서 저장)
+}
@@ -0,0 +1,113 @@
+package SP20_simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * device 파일을 MappedByteBuffer로 mapping하여 입출력하는 DeviceChannel.
+ * RD/WD는 mapping된 buffer의 get/put만으로 처리되고, 파일을 일정 크기(window)씩 나누어
+ * mapping하므로 아주 큰 파일도 다룰 수 있다.
+ *
+ * 출력 device는 window 크기만큼 파일을 미리 늘려 mapping하고, close()할 때 실제로 쓴 길이로 자른다.
+ */
+public class MappedDeviceChannel extends DeviceChannel {
+    //한 번에 mapping하는 파일 크기
+    static final long WINDOW_SIZE = 16L << 20;
+
+    long windowStart = 0;   //현재 mapping된 window의 파일 내 시작 위치
+    long fileSize;          //읽기 device 파일의 크기
+
+    /**
+     * MappedDeviceChannel 생성자, device 파일을 열고 첫 window를 mapping한다.
+     * 출력 모드로 열면 기존 파일의 내용은 지운다.
+     *
+     * @param name      device 이름
+     * @param file      device 파일
+     * @param writeMode 출력 device면 true
+     */
+    public MappedDeviceChannel(String name, File file, boolean writeMode) throws IOException {
+        this(name, file, writeMode, true);
+    }
+
+    /**
+     * MappedDeviceChannel 생성자, device 파일을 열고 첫 window를 mapping한다.
+     *
+     * @param name      device 이름
+     * @param file      device 파일
+     * @param writeMode 출력 device면 true
+     * @param truncate  출력 모드로 열 때 기존 파일의 내용을 지우려면 true (snapshot 복원 시에는 false)
+     */
+    public MappedDeviceChannel(String name, File file, boolean writeMode, boolean truncate) throws IOException {
+        super(name, open(file, writeMode, truncate), writeMode, null);
+        fileSize = writeMode ? 0 : channel.size();
+        buffer = map(0);
+    }
+
+    /**
+     * 파일의 해당 위치부터 window 하나를 mapping한다.
+     */
+    MappedByteBuffer map(long start) throws IOException {
+        windowStart = start;
+        if (writeMode)
+            return channel.map(FileChannel.MapMode.READ_WRITE, start, WINDOW_SIZE);
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, fileSize - start));
+    }
+
+    @Override
+    public long position() {
+        return windowStart + buffer.position();
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        //읽기 device는 파일 끝을 넘어갈 수 없다
+        if (!writeMode)
+            position = Math.min(position, fileSize);
+        buffer = map(position - position % WINDOW_SIZE);
+        buffer.position((int) (position - windowStart));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            //다음 window가 없으면 파일 끝
+            long next = windowStart + buffer.capacity();
+            if (next >= fileSize)
+                return -1;
+            buffer = map(next);
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public void write(int data) throws IOException {
+        if (!buffer.hasRemaining())
+            buffer = map(windowStart + buffer.capacity());
+        buffer.put((byte) data);
+    }
+
+    @Override
+    public void flush() {
+        //mapping된 내용은 운영체제가 파일에 반영하므로 따로 할 일이 없다
+    }
+
+    @Override
+    public ByteBuffer releaseBuffer() {
+        //mapping된 buffer는 재사용할 수 없다
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            //미리 늘려 둔 파일을 실제로 쓴 길이로 자른다
+            if (writeMode)
+                channel.truncate(windowStart + buffer.position());
+        } finally {
+            channel.close();
+        }
+    }
+}
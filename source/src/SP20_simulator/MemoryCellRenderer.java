@@ -0,0 +1,85 @@
+package SP20_simulator;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * MemoryListModel의 행 하나를 "주소  16진수 16개  문자 16개" 형태로 그린다.
+ * 문자열이나 component를 행마다 만들지 않고 하나의 component가 char 배열로 직접 그리며,
+ * 마지막 갱신 직전에 쓰인 byte는 배경색으로 강조한다.
+ */
+class MemoryCellRenderer extends JComponent implements ListCellRenderer<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    //행의 글자 수 : 주소(6) + 공백(2) + 16진수(16 * 3) + 공백(1) + 문자(16)
+    static final int COLUMNS = 6 + 2 + MemoryListModel.ROW_SIZE * 3 + 1 + MemoryListModel.ROW_SIZE;
+    static final int HEX_COLUMN = 8;
+    static final int TEXT_COLUMN = HEX_COLUMN + MemoryListModel.ROW_SIZE * 3 + 1;
+    //쓰기가 일어난 byte의 배경색
+    static final Color DIRTY_COLOR = new Color(255, 220, 120);
+
+    MemoryListModel model;
+    char[] line = new char[COLUMNS];
+    int row = 0;
+
+    /**
+     * MemoryCellRenderer 생성자
+     * @param model 그릴 메모리 model
+     */
+    public MemoryCellRenderer(MemoryListModel model) {
+        this.model = model;
+    }
+
+    /**
+     * 글꼴 기준 행의 크기를 list에 고정하여, list가 전체 행을 훑어 크기를 계산하지 않게 한다.
+     */
+    public void install(JList<Integer> list) {
+        FontMetrics metrics = list.getFontMetrics(list.getFont());
+        list.setFixedCellWidth(metrics.charWidth('0') * COLUMNS + 4);
+        list.setFixedCellHeight(metrics.getHeight());
+        list.setCellRenderer(this);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Integer> list, Integer value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        row = value;
+        setFont(list.getFont());
+        setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
+        setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        FontMetrics metrics = g.getFontMetrics(getFont());
+        int charWidth = metrics.charWidth('0');
+        int address = row * MemoryListModel.ROW_SIZE;
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        //쓰기가 일어난 byte 강조
+        g.setColor(DIRTY_COLOR);
+        for (int i = 0; i < MemoryListModel.ROW_SIZE; i++) {
+            if (model.isDirty(address + i)) {
+                g.fillRect(2 + (HEX_COLUMN + i * 3) * charWidth, 0, charWidth * 2, getHeight());
+                g.fillRect(2 + (TEXT_COLUMN + i) * charWidth, 0, charWidth, getHeight());
+            }
+        }
+        //행 내용 만들기
+        Arrays.fill(line, ' ');
+        System.arraycopy(ResourceManager.toHex(address, 6), 0, line, 0, 6);
+        for (int i = 0; i < MemoryListModel.ROW_SIZE; i++) {
+            int value = model.byteAt(address + i);
+            //아직 복사되지 않은 byte는 비워 둔다
+            if (value < 0)
+                continue;
+            line[HEX_COLUMN + i * 3] = ResourceManager.HEX[value >> 4];
+            line[HEX_COLUMN + i * 3 + 1] = ResourceManager.HEX[value & 0xF];
+            line[TEXT_COLUMN + i] = value >= 0x20 && value < 0x7F ? (char) value : '.';
+        }
+        g.setColor(getForeground());
+        g.setFont(getFont());
+        g.drawChars(line, 0, line.length, 2, metrics.getAscent());
+    }
+}
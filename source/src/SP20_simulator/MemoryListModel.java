@@ -0,0 +1,115 @@
+package SP20_simulator;
+
+import javax.swing.*;
+
+/**
+ * 메모리 내용을 16 byte씩 한 행으로 보여주는 hex dump list model.
+ * 행의 문자열을 미리 만들어 두지 않고 화면에 보이는 행을 그릴 때만 메모리를 읽으므로,
+ * 갱신 비용은 메모리 크기와 상관없이 화면에 보이는 행 수와 쓰기 횟수에만 비례한다.
+ *
+ * 보이는 행의 내용과 쓰기 여부는 명령어를 수행하는 스레드가 SimulatorSnapshot에 복사하고,
+ * 화면은 그 복사본으로만 그린다. EDT는 수행 중인 메모리를 직접 읽지 않으며, 복사본에 없는 행은
+ * 다음 복사까지 비워 둔다. (수행 중이 아닐 때는 refreshVisible()로 EDT에서 바로 복사한다)
+ */
+class MemoryListModel extends AbstractListModel<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    //한 행의 byte 수
+    static final int ROW_SIZE = 16;
+
+    ResourceManager rMgr;
+    int firstRow = 0;                   //마지막으로 반영한 snapshot의 첫 행
+    byte[] memory = new byte[0];        //마지막으로 반영한 snapshot의 메모리 내용
+    boolean[] dirty = new boolean[0];   //마지막으로 반영한 snapshot의 byte별 쓰기 여부
+    //화면에 보이는 행 (EDT가 쓰고 명령어를 수행하는 스레드가 읽는다)
+    volatile int visibleFirst = 0;
+    volatile int visibleRows = 0;
+
+    /**
+     * MemoryListModel 생성자, 메모리 쓰기 기록을 시작한다.
+     * @param rMgr 보여줄 메모리의 ResourceManager
+     */
+    public MemoryListModel(ResourceManager rMgr) {
+        this.rMgr = rMgr;
+        rMgr.dirty = new DirtyBitmap(rMgr.memorySize);
+    }
+
+    /**
+     * 화면에 보이는 행을 정한다. EDT에서 호출한다.
+     */
+    public void setVisibleRows(int first, int last) {
+        visibleFirst = Math.max(0, first);
+        visibleRows = Math.max(0, last - first + 1);
+    }
+
+    /**
+     * 화면에 보이는 행의 내용과 마지막 복사 이후의 쓰기 여부를 snapshot에 복사하고 쓰기 기록을 비운다.
+     * 명령어를 수행하는 스레드에서 호출한다.
+     */
+    public void copyVisible(SimulatorSnapshot snapshot) {
+        int first = Math.min(visibleFirst, getSize());
+        int length = Math.min(visibleRows, getSize() - first) * ROW_SIZE;
+        int start = first * ROW_SIZE;
+        snapshot.memoryRow = first;
+        snapshot.memory = new byte[length];
+        snapshot.memoryDirty = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            snapshot.memory[i] = (byte) rMgr.readByte(start + i);
+            snapshot.memoryDirty[i] = rMgr.dirty.isSet(start + i);
+        }
+        rMgr.dirty.clear();
+    }
+
+    /**
+     * 화면에 보이는 행을 바로 복사하여 반영한다.
+     * 명령어를 수행하는 스레드가 없을 때(실행 중이 아닐 때) EDT에서 호출한다.
+     */
+    public void refreshVisible() {
+        SimulatorSnapshot snapshot = new SimulatorSnapshot();
+        copyVisible(snapshot);
+        //수행 중이 아니었으므로 새 쓰기는 없다, 이미 강조하던 byte는 계속 강조한다
+        int start = snapshot.memoryRow * ROW_SIZE;
+        for (int i = 0; i < snapshot.memoryDirty.length; i++)
+            snapshot.memoryDirty[i] |= isDirty(start + i);
+        refresh(snapshot);
+    }
+
+    /**
+     * snapshot의 내용을 반영하고 복사된 행만 다시 그리게 한다. EDT에서 호출한다.
+     */
+    public void refresh(SimulatorSnapshot snapshot) {
+        firstRow = snapshot.memoryRow;
+        memory = snapshot.memory;
+        dirty = snapshot.memoryDirty;
+        if (memory.length > 0)
+            fireContentsChanged(this, firstRow, firstRow + memory.length / ROW_SIZE - 1);
+    }
+
+    /**
+     * @return 마지막으로 반영한 snapshot에서 읽은 해당 주소의 값, snapshot에 복사되지 않은 주소면 -1
+     */
+    int byteAt(int address) {
+        int offset = address - firstRow * ROW_SIZE;
+        if (offset >= 0 && offset < memory.length)
+            return memory[offset] & 0xFF;
+        return -1;
+    }
+
+    /**
+     * @return 해당 주소가 마지막 갱신 직전에 쓰였으면 true
+     */
+    boolean isDirty(int address) {
+        int offset = address - firstRow * ROW_SIZE;
+        return offset >= 0 && offset < dirty.length && dirty[offset];
+    }
+
+    @Override
+    public int getSize() {
+        return rMgr.memorySize / ROW_SIZE;
+    }
+
+    @Override
+    public Integer getElementAt(int index) {
+        return index;
+    }
+}
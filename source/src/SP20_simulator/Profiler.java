@@ -0,0 +1,216 @@
+package SP20_simulator;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 명령어 단위 프로파일러.
+ * 주소별 수행 횟수, opcode별 수행 횟수, 분기 명령어별 분기함/분기하지 않음 횟수를 주소 공간 크기의 배열에 센다.
+ * JSUB/RSUB를 따라 control section 단위의 호출 stack도 추적하여 flamegraph용 collapsed stack으로 내보낸다.
+ *
+ * SicSimulator.enableProfiler()로 켜며, 켜지 않으면 수행 중에 아무 비용도 들지 않는다.
+ */
+public class Profiler {
+    //추적할 최대 호출 깊이 (넘어가면 더 깊이 들어가지 않는다)
+    static final int MAX_DEPTH = 64;
+
+    ResourceManager rMgr;
+    long[] pcCount;         //주소별 수행 횟수
+    long[] taken;           //주소별 분기한 횟수 (분기 명령어만)
+    long[] notTaken;        //주소별 분기하지 않은 횟수 (분기 명령어만)
+    long[] opcodeCount = new long[64];                          //opcode >> 2 별 수행 횟수
+
+    String[] mnemonic = new String[64];     //opcode >> 2 에 해당하는 명령어 이름
+    boolean[] branch = new boolean[64];     //분기 명령어 여부
+    boolean[] call = new boolean[64];       //JSUB 여부
+    boolean[] ret = new boolean[64];        //RSUB 여부
+
+    //호출 stack tree, node 0은 아직 정해지지 않은 root
+    int node = -1;                                      //현재 stack node
+    ArrayList<Integer> parent = new ArrayList<>();      //node의 부모
+    ArrayList<Integer> section = new ArrayList<>();     //node의 section 번호
+    ArrayList<Integer> depth = new ArrayList<>();       //node의 호출 깊이
+    HashMap<Long, Integer> children = new HashMap<>();  //(부모, section) -> 자식 node
+    long[] nodeCount = new long[64];                    //node별 수행 횟수
+
+    /**
+     * Profiler 생성자
+     *
+     * @param rMgr    section 정보를 가져올 ResourceManager
+     * @param instSet 명령어 정보
+     */
+    public Profiler(ResourceManager rMgr, InstructionSet instSet) {
+        this.rMgr = rMgr;
+        pcCount = new long[rMgr.memorySize];
+        taken = new long[rMgr.memorySize];
+        notTaken = new long[rMgr.memorySize];
+        for (Instruction inst : instSet.values()) {
+            int index = inst.opcode >> 2;
+            mnemonic[index] = inst.instruction;
+            branch[index] = inst.branch;
+            call[index] = inst.instruction.equals("JSUB");
+            ret[index] = inst.instruction.equals("RSUB");
+        }
+    }
+
+    /**
+     * 수행한 명령어 하나를 기록한다.
+     *
+     * @param address     명령어의 주소
+     * @param opcodeIndex opcode >> 2
+     * @param next        명령어 바로 다음 주소
+     * @param target      수행 후의 PC 값
+     */
+    public void record(int address, int opcodeIndex, int next, int target) {
+        if (node < 0)
+            node = newNode(-1, rMgr.symtab.sectionIndexOf(address), 0);
+        pcCount[address]++;
+        opcodeCount[opcodeIndex]++;
+        nodeCount[node]++;
+        if (!branch[opcodeIndex])
+            return;
+        if (target != next)
+            taken[address]++;
+        else
+            notTaken[address]++;
+        //호출 stack 추적
+        if (call[opcodeIndex]) {
+            int calleeSection = rMgr.symtab.sectionIndexOf(target);
+            if (depth.get(node) < MAX_DEPTH)
+                node = child(node, calleeSection);
+        } else if (ret[opcodeIndex] && parent.get(node) >= 0) {
+            node = parent.get(node);
+        }
+    }
+
+    /**
+     * 호출 stack tree에 node를 추가한다.
+     */
+    int newNode(int parentNode, int sectionIndex, int nodeDepth) {
+        int id = parent.size();
+        parent.add(parentNode);
+        section.add(sectionIndex);
+        depth.add(nodeDepth);
+        if (id == nodeCount.length)
+            nodeCount = Arrays.copyOf(nodeCount, id * 2);
+        return id;
+    }
+
+    /**
+     * 부모 node에서 section을 호출했을 때의 node를 찾고, 없으면 만든다.
+     */
+    int child(int parentNode, int sectionIndex) {
+        long key = (long) parentNode << 32 | (sectionIndex & 0xFFFFFFFFL);
+        Integer id = children.get(key);
+        if (id == null) {
+            id = newNode(parentNode, sectionIndex, depth.get(parentNode) + 1);
+            children.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * 주소별 수행 횟수를 CSV로 출력한다. (수행된 주소만)
+     * 형식 : address,section,instruction,count,taken,not_taken
+     */
+    public void writeCsv(PrintWriter out) {
+        out.println("address,section,instruction,count,taken,not_taken");
+        for (int address = 0; address < pcCount.length; address++) {
+            if (pcCount[address] == 0)
+                continue;
+            String name = mnemonic[rMgr.readByte(address) >> 2];
+            String section = rMgr.symtab.sectionName(rMgr.symtab.sectionIndexOf(address));
+            if (taken[address] + notTaken[address] > 0)
+                out.printf("%04X,%s,%s,%d,%d,%d%n", address, section, name, pcCount[address], taken[address], notTaken[address]);
+            else
+                out.printf("%04X,%s,%s,%d,,%n", address, section, name, pcCount[address]);
+        }
+        out.flush();
+    }
+
+    /**
+     * opcode별 수행 횟수를 CSV로 출력한다.
+     * 형식 : instruction,count
+     */
+    public void writeOpcodeCsv(PrintWriter out) {
+        out.println("instruction,count");
+        for (int i = 0; i < opcodeCount.length; i++) {
+            if (opcodeCount[i] > 0)
+                out.printf("%s,%d%n", mnemonic[i], opcodeCount[i]);
+        }
+        out.flush();
+    }
+
+    /**
+     * 뒤로 분기한 횟수가 많은 분기 명령어(반복문)를 많은 순서대로 출력한다.
+     * 형식 : branch,target,section,iterations
+     *
+     * @param top 출력할 최대 개수
+     */
+    public void writeHotLoops(PrintWriter out, int top) {
+        ArrayList<Integer> loops = new ArrayList<>();
+        for (int address = 0; address < taken.length; address++) {
+            if (taken[address] > 0 && loopTarget(address) >= 0 && loopTarget(address) <= address)
+                loops.add(address);
+        }
+        loops.sort((a, b) -> Long.compare(taken[b], taken[a]));
+        out.println("branch,target,section,iterations");
+        for (int i = 0; i < loops.size() && i < top; i++) {
+            int address = loops.get(i);
+            String section = rMgr.symtab.sectionName(rMgr.symtab.sectionIndexOf(address));
+            out.printf("%04X,%04X,%s,%d%n", address, loopTarget(address), section, taken[address]);
+        }
+        out.flush();
+    }
+
+    /**
+     * PC relative 분기 명령어의 분기 주소를 계산한다. 다른 형식이면 -1
+     */
+    int loopTarget(int address) {
+        int second = rMgr.readByte(address + 1);
+        //format 3, p = 1 (PC relative), 간접/즉시 주소 지정이 아닌 경우만
+        if ((second & 0x30) != 0x20 || (rMgr.readByte(address) & 0x3) != 0x3)
+            return -1;
+        int displacement = (second & 0xF) << 8 | rMgr.readByte(address + 2);
+        if ((displacement & 0x800) != 0)
+            displacement -= 0x1000;
+        return address + 3 + displacement;
+    }
+
+    /**
+     * control section 단위의 호출 stack을 collapsed stack 형식(flamegraph 입력)으로 출력한다.
+     * 형식 : COPY;RDREC 수행 횟수
+     */
+    public void writeCollapsed(PrintWriter out) {
+        for (int id = 0; id < parent.size(); id++) {
+            if (nodeCount[id] == 0)
+                continue;
+            StringBuilder stack = new StringBuilder();
+            for (int n = id; n >= 0; n = parent.get(n)) {
+                if (stack.length() > 0)
+                    stack.insert(0, ';');
+                stack.insert(0, rMgr.symtab.sectionName(section.get(n)));
+            }
+            out.println(stack + " " + nodeCount[id]);
+        }
+        out.flush();
+    }
+
+    /**
+     * 기록을 모두 지운다.
+     */
+    public void clear() {
+        Arrays.fill(pcCount, 0);
+        Arrays.fill(taken, 0);
+        Arrays.fill(notTaken, 0);
+        Arrays.fill(opcodeCount, 0);
+        node = -1;
+        parent.clear();
+        section.clear();
+        depth.clear();
+        children.clear();
+        Arrays.fill(nodeCount, 0);
+    }
+}
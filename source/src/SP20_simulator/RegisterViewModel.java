@@ -0,0 +1,105 @@
+package SP20_simulator;
+
+import javax.swing.*;
+
+/**
+ * VisualSimulator의 레지스터와 현재 명령어 정보 화면의 view model.
+ * 마지막으로 화면에 보인 값을 기억해 두고, 새 상태와 비교하여 값이 바뀐 text field만 다시 쓴다.
+ * setText는 같은 문자열이어도 document 이벤트와 다시 그리기를 일으키므로, 바뀌지 않은 field는 문자열도 만들지 않는다.
+ *
+ * EDT에서만 사용한다.
+ */
+class RegisterViewModel {
+    JTextField[] decFields = new JTextField[10];    //레지스터 번호별 10진수 text field, 없으면 null
+    JTextField[] hexFields = new JTextField[10];    //레지스터 번호별 16진수 text field, 없으면 null
+    JTextField instAddrField;                       //명령어의 시작 주소
+    JTextField targetAddrField;                     //명령어의 Target Address
+    JTextField deviceField;                         //사용 중인 device
+
+    //화면에 보이는 값
+    int[] shown = new int[10];
+    long shownF;
+    int shownInstAddr;
+    int shownTarget;
+    String shownDevice;
+    boolean valid = false;  //false면 다음 갱신 때 모든 field를 다시 쓴다
+
+    /**
+     * 레지스터의 text field를 연결한다.
+     *
+     * @param regNum 레지스터 번호 (F는 6, 16진수 field만 사용한다)
+     * @param dec    10진수 text field, 없으면 null
+     * @param hex    16진수 text field, 없으면 null
+     */
+    public void bindRegister(int regNum, JTextField dec, JTextField hex) {
+        decFields[regNum] = dec;
+        hexFields[regNum] = hex;
+    }
+
+    /**
+     * 현재 명령어 정보의 text field를 연결한다.
+     */
+    public void bindInstruction(JTextField instAddr, JTextField targetAddr, JTextField device) {
+        instAddrField = instAddr;
+        targetAddrField = targetAddr;
+        deviceField = device;
+    }
+
+    /**
+     * 다음 갱신 때 값이 같더라도 모든 field를 다시 쓰게 한다.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * 상태를 화면에 반영한다. 이전에 보인 값과 다른 field만 다시 쓴다.
+     *
+     * @param snapshot 반영할 상태
+     * @return 다시 쓴 text field 개수
+     */
+    public int apply(SimulatorSnapshot snapshot) {
+        int changed = 0;
+        for (int i = 0; i < shown.length; i++) {
+            if (i == 6 || (decFields[i] == null && hexFields[i] == null))
+                continue;
+            int value = snapshot.register[i];
+            if (valid && value == shown[i])
+                continue;
+            shown[i] = value;
+            if (decFields[i] != null) {
+                decFields[i].setText(String.format("%d", value));
+                changed++;
+            }
+            if (hexFields[i] != null) {
+                hexFields[i].setText(String.format("%06X", value));
+                changed++;
+            }
+        }
+        //F 레지스터 (48 bit 실수의 bit, 값은 tooltip으로 보인다)
+        long f = ResourceManager.floatToBits(snapshot.registerF);
+        if (hexFields[6] != null && (!valid || f != shownF)) {
+            shownF = f;
+            hexFields[6].setText(String.format("%012X", f));
+            hexFields[6].setToolTipText(Double.toString(snapshot.registerF));
+            changed++;
+        }
+        if (!valid || snapshot.currAddr != shownInstAddr) {
+            shownInstAddr = snapshot.currAddr;
+            instAddrField.setText(String.format("%06X", snapshot.currAddr));
+            changed++;
+        }
+        if (!valid || snapshot.targetAddress != shownTarget) {
+            shownTarget = snapshot.targetAddress;
+            targetAddrField.setText(snapshot.targetAddress < 0 ? "" : String.format("%06X", snapshot.targetAddress));
+            changed++;
+        }
+        if (!valid || !snapshot.device.equals(shownDevice)) {
+            shownDevice = snapshot.device;
+            deviceField.setText(snapshot.device);
+            changed++;
+        }
+        valid = true;
+        return changed;
+    }
+}
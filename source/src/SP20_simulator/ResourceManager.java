@@ -1,9 +1,12 @@
 package SP20_simulator;
 
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -11,7 +14,7 @@ import java.util.HashMap;
  * 크게 네가지의 가상 자원 공간을 선언하고, 이를 관리할 수 있는 함수들을 제공한다.
  *
  * 1) 입출력을 위한 외부 장치 또는 device
- * 2) 프로그램 로드 및 실행을 위한 메모리 공간. 여기서는 64KB를 최대값으로 잡는다.
+ * 2) 프로그램 로드 및 실행을 위한 메모리 공간. 기본 64KB이며, 생성할 때 최대 1MB(SIC/XE 전체 주소 공간)까지 지정할 수 있다.
  * 3) 연산을 수행하는데 사용하는 레지스터 공간.
  * 4) SYMTAB 등 simulator의 실행 과정에서 사용되는 데이터들을 위한 변수들.
  *
@@ -31,28 +34,103 @@ public class ResourceManager {
      *
      * 이것도 복잡하면 알아서 구현해서 사용해도 괜찮습니다.
      */
-    //device 이름과 FileReader/FileWriter를 저장하는 HashMap
-    HashMap<String, Object> deviceManager = new HashMap<>();
-    //메모리, 한 char에 4 bit(0.5 byte)씩 저장, 131072 * 4 = 0x80000, 524288 bit = 65536 byte = 64 Kbyte
-    char[] memory = new char[131072];
+    //device 이름과 DeviceChannel을 저장하는 HashMap
+    HashMap<String, DeviceChannel> deviceManager = new HashMap<>();
+    //TD로 준비되었음을 확인한 device 이름 (device를 닫을 때 초기화, 준비되지 않은 결과는 저장하지 않는다)
+    HashSet<String> deviceReady = new HashSet<>();
+    //device 입출력 buffer pool, device를 닫으면 buffer를 돌려받아 다시 사용한다
+    ArrayDeque<ByteBuffer> bufferPool = new ArrayDeque<>();
+    //device 입출력 buffer의 크기
+    static final int DEVICE_BUFFER_SIZE = 8192;
+    //메모리에 mapping하여 사용할 device 이름 (큰 입출력 파일용)
+    HashSet<String> mappedDevices = new HashSet<>();
+    //device 이름별 입출력 통계 (metrics 조회 thread에서도 읽으므로 ConcurrentHashMap)
+    ConcurrentHashMap<String, DeviceStats> deviceStats = new ConcurrentHashMap<>();
+    //device 파일들이 있는 directory (여러 머신을 동시에 수행할 때는 머신마다 다르게 지정한다)
+    File deviceDirectory = new File("./device");
+    //기본 메모리 크기, 65536 byte = 64 Kbyte
+    static final int MEMORY_SIZE = 0x10000;
+    //지정할 수 있는 최대 메모리 크기, SIC/XE의 20 bit 주소 공간 = 1 Mbyte
+    static final int MAX_MEMORY_SIZE = 0x100000;
+    //레지스터 이름 (레지스터 번호 순서, 7번은 없음)
+    static final String[] REGISTER_NAME = {"A", "X", "L", "B", "S", "T", "F", "", "PC", "SW"};
+    //16진수 문자 테이블 (화면 출력용 변환에서만 사용)
+    static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    //1 byte 값에 해당하는 2자리 16진수 문자열 테이블 (device 이름 등에 사용)
+    static final String[] HEX_BYTE = new String[256];
+
+    static {
+        for (int i = 0; i < 256; i++)
+            HEX_BYTE[i] = String.valueOf(new char[]{HEX[i >> 4], HEX[i & 0xF]});
+    }
+
+    //메모리 크기(byte), page 크기의 배수
+    final int memorySize;
+    //메모리 page table, 4 Kbyte page 단위로 처음 쓸 때 할당한다 (null이면 내용이 전부 0인 page)
+    byte[][] pages;
+    //다시 사용할 page (반납할 때가 아니라 다시 할당할 때 0으로 채운다)
+    ArrayDeque<byte[]> freePages = new ArrayDeque<>();
     //레지스터 정보
     int[] register = new int[10];
+    //F 레지스터 (48 bit SIC/XE 실수, 항상 48 bit로 나타낼 수 있는 값만 저장한다)
     double register_F;
-    //읽기, 출력 디바이스를 관리하는 ArrayList
-    ArrayList<String> readerList = new ArrayList<>();
-    ArrayList<String> writerList = new ArrayList<>();
     //SYMTAB
     SymbolTable symtab;
+    //메모리 쓰기 시 무효화할 명령어 decode cache (없으면 null)
+    DecodeCache decodeCache;
+
+    //명령어 되돌리기용 변경 기록 (사용하지 않으면 null)
+    UndoJournal journal;
+    //메모리 쓰기를 감시하는 감시점 (감시점이 없으면 null)
+    Breakpoints watch;
+    //메모리 화면용 쓰기 기록 (메모리 화면이 없으면 null)
+    DirtyBitmap dirty;
+
+    //메모리 page 크기 (4 Kbyte), snapshot도 이 단위로 저장한다
+    static final int PAGE_SHIFT = 12;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+    //마지막 snapshot 또는 복원 이후 쓰기가 일어난 page
+    boolean[] pageDirty;
+    //마지막 snapshot 또는 복원 시점의 page들, 쓰기가 없었던 page는 다음 snapshot과 공유한다 (없으면 null)
+    byte[][] basePages;
+
+    /**
+     * 기본 크기(64 Kbyte)의 메모리를 사용하는 ResourceManager 생성자
+     */
+    public ResourceManager() {
+        this(MEMORY_SIZE);
+    }
+
+    /**
+     * 메모리 크기를 지정하는 ResourceManager 생성자. page는 실제로 쓸 때 할당하므로 크게 잡아도 비용이 거의 없다.
+     *
+     * @param memorySize 메모리 크기(byte), 4 Kbyte의 배수이며 최대 1 Mbyte
+     * @throws IllegalArgumentException 크기가 맞지 않는 경우
+     */
+    public ResourceManager(int memorySize) {
+        if (memorySize <= 0 || memorySize > MAX_MEMORY_SIZE || (memorySize & PAGE_MASK) != 0)
+            throw new IllegalArgumentException("invalid memory size: " + memorySize);
+        this.memorySize = memorySize;
+        pages = new byte[memorySize >> PAGE_SHIFT][];
+        pageDirty = new boolean[pages.length];
+    }
 
     /**
      * 메모리, 레지스터등 가상 리소스들을 초기화한다.
      */
     public void initializeResource() throws IOException {
-        //메모리를 전부 0으로 초기화
-        Arrays.fill(memory, '0');
+        //메모리를 전부 0으로 초기화 (할당된 page만 반납하고, 0으로 채우는 것은 다시 할당할 때 한다)
+        for (int page = 0; page < pages.length; page++)
+            releasePage(page);
+        if (decodeCache != null)
+            decodeCache.clear();
         //레지스터를 전부 0으로 초기화
         Arrays.fill(register, 0);
         register_F = 0;
+        //snapshot 기준 초기화
+        basePages = null;
+        Arrays.fill(pageDirty, false);
         //SYMTAB 초기화
         symtab = new SymbolTable();
         //디바이스 연결상태 초기화
@@ -64,128 +142,401 @@ public class ResourceManager {
      * 프로그램을 종료하거나 연결을 끊을 때 호출한다.
      */
     public void closeDevice() throws IOException {
-        //읽기 device 종료
-        for (String readDiv : readerList) {
-            FileReader reader = (FileReader) deviceManager.get(readDiv);
-            reader.close();
-        }
-        //출력 device 종료
-        for (String writeDiv : writerList) {
-            FileWriter writer = (FileWriter) deviceManager.get(writeDiv);
-            writer.close();
+        IOException error = null;
+        //모든 device 종료, 출력 device는 남은 buffer를 파일에 쓴 뒤 닫는다
+        for (DeviceChannel device : deviceManager.values()) {
+            try {
+                device.close();
+            } catch (IOException e) {
+                error = e;
+            }
+            //buffer는 pool에 반납
+            ByteBuffer buffer = device.releaseBuffer();
+            if (buffer != null)
+                bufferPool.push(buffer);
         }
-        //읽기, 출력 리스트와 deviceManager 초기화
-        readerList.clear();
-        readerList = new ArrayList<>();
-        writerList.clear();
-        writerList = new ArrayList<>();
+        //deviceManager와 준비 상태 초기화
         deviceManager.clear();
-        deviceManager = new HashMap<>();
+        deviceReady.clear();
+        if (error != null)
+            throw error;
+    }
+
+    /**
+     * 디바이스 이름에 해당하는 파일을 돌려준다.
+     *
+     * @param devName 디바이스 이름
+     * @return 디바이스 파일
+     */
+    File deviceFile(String devName) {
+        return new File(deviceDirectory, devName + ".device");
+    }
+
+    /**
+     * 디바이스를 처음 사용할 때 열고 deviceManager에 등록한다. 이미 열려 있으면 그대로 돌려준다.
+     *
+     * @param devName   디바이스 이름
+     * @param writeMode 출력 디바이스면 true
+     * @return 디바이스의 DeviceChannel
+     */
+    DeviceChannel openDevice(String devName, boolean writeMode) throws IOException {
+        DeviceChannel device = deviceManager.get(devName);
+        if (device == null && mappedDevices.contains(devName)) {
+            //mapping 모드로 지정된 device는 파일을 메모리에 mapping하여 연다
+            device = new MappedDeviceChannel(devName, deviceFile(devName), writeMode);
+            device.stats = statsOf(devName);
+            deviceManager.put(devName, device);
+        } else if (device == null) {
+            ByteBuffer buffer = bufferPool.isEmpty() ? ByteBuffer.allocateDirect(DEVICE_BUFFER_SIZE) : bufferPool.pop();
+            device = new DeviceChannel(devName, deviceFile(devName), writeMode, buffer);
+            device.stats = statsOf(devName);
+            deviceManager.put(devName, device);
+        }
+        return device;
+    }
+
+    /**
+     * device의 입출력 통계를 가져온다. 없으면 새로 만든다.
+     *
+     * @param devName 디바이스 이름
+     * @return 입출력 통계
+     */
+    DeviceStats statsOf(String devName) {
+        return deviceStats.computeIfAbsent(devName, DeviceStats::new);
+    }
+
+    /**
+     * 디바이스를 파일 mapping 모드로 사용할지 정한다. 다음에 디바이스를 열 때부터 적용된다.
+     * mapping 모드에서는 RD/WD가 system call 없이 mapping된 buffer에서 바로 읽고 쓴다.
+     *
+     * @param devName 디바이스 이름
+     * @param mapped  mapping 모드로 사용하려면 true
+     */
+    public void setMappedDevice(String devName, boolean mapped) {
+        if (mapped)
+            mappedDevices.add(devName);
+        else
+            mappedDevices.remove(devName);
     }
 
     /**
      * 디바이스를 사용할 수 있는 상황인지 체크. TD명령어를 사용했을 때 호출되는 함수.
-     * 입출력 stream을 열고 deviceManager를 통해 관리시킨다.
+     * 준비되었음을 한 번 확인했거나 이미 열려 있는 device는 파일 상태를 다시 확인하지 않는다.
+     * 준비되지 않았다면 저장하지 않으므로, TD로 기다리는 동안 파일이 생기면 다음 확인에서 준비된 것으로 본다.
      *
      * @param devName 확인하고자 하는 디바이스의 번호,또는 이름
      * @return 해당 디바이스가 준비가 되었으면 true, 아니면 false
      */
     public boolean testDevice(String devName) {
+        statsOf(devName).testCount++;
+        if (deviceReady.contains(devName) || deviceManager.containsKey(devName))
+            return true;
         //파일을 열고 읽고 쓸 수 있는 상태인지 확인
-        File device = new File("./device/" + devName + ".device");
-        return device.canWrite() && device.canRead();
+        File device = deviceFile(devName);
+        if (!device.canWrite() || !device.canRead())
+            return false;
+        deviceReady.add(devName);
+        return true;
     }
 
     /**
-     * 디바이스로부터 원하는 개수만큼의 글자를 읽어들인다. RD명령어를 사용했을 때 호출되는 함수.
+     * 디바이스로부터 1 byte를 읽어들인다. RD명령어를 사용했을 때 호출되는 함수.
      *
      * @param devName 디바이스의 이름
-     * @param num     가져오는 글자의 개수
-     * @return 가져온 데이터
+     * @return 가져온 데이터, 더 읽을 데이터가 없으면 0
      */
-    public char[] readDevice(String devName, int num) {
+    public int readDevice(String devName) {
         try {
-            //처음 접근하는 읽기 device라면 FileReader 추가
-            if (deviceManager.get(devName) == null) {
-                File rDevice = new File("./device/" + devName + ".device");
-                FileReader fr = new FileReader(rDevice);
-                deviceManager.put(devName, fr);
-                //읽기 device 리스트에 추가
-                readerList.add(devName);
-            }
-            //해당 device의 FileReader 불러오기
-            FileReader reader = (FileReader) deviceManager.get(devName);
-            int readTemp;
-            char[] readInfo = new char[num * 2];
-            //데이터가 있으면
-            if ((readTemp = reader.read()) != -1) {
-                //데이터 리턴
-                readInfo[0] = (char) ((readTemp & 0xF0) >> 4);
-                readInfo[1] = (char) (readTemp & 0x0F);
+            DeviceChannel device = openDevice(devName, false);
+            int data = device.read();
+            if (data >= 0) {
+                device.stats.bytesRead++;
+                if (journal != null)
+                    journal.recordDevice(devName, false);
             }
-            //데이터가 없으면
-            else {
-                //'\0' 리턴
-                readInfo[0] = (char) (('\0' & 0xF0) >> 4);
-                readInfo[1] = (char) ('\0' & 0x0F);
-            }
-            return readInfo;
+            //데이터가 없으면 '\0' 리턴
+            return data < 0 ? 0 : data;
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return new char[]{('\0' & 0xF0) >> 4, ('\0' & 0x0F)};
+        return 0;
     }
 
     /**
-     * 디바이스로 원하는 개수 만큼의 글자를 출력한다. WD명령어를 사용했을 때 호출되는 함수.
+     * 디바이스로 1 byte를 출력한다. WD명령어를 사용했을 때 호출되는 함수.
      *
      * @param devName 디바이스의 이름
-     * @param data    보내는 데이터
-     * @param num     보내는 글자의 개수
+     * @param data    보내는 데이터 (하위 8 bit만 사용)
      */
-    public void writeDevice(String devName, char[] data, int num) {
+    public void writeDevice(String devName, int data) {
         try {
-            //처음 접근하는 출력 device라면 FileWriter 추가
-            if (deviceManager.get(devName) == null) {
-                File wDevice = new File("./device/" + devName + ".device");
-                FileWriter fw = new FileWriter(wDevice);
-                deviceManager.put(devName, fw);
-                //출력 device 리스트에 추가
-                writerList.add(devName);
-            }
-
-            //해당 device의 FileWriter 불러오기
-            FileWriter writer = (FileWriter) deviceManager.get(devName);
-            //데이터 출력
-            String writeInfo = String.copyValueOf(data, 6 - num, num);
-            writer.write(String.format("%c", Integer.parseInt(writeInfo, 16)));
-            writer.flush();
+            DeviceChannel device = openDevice(devName, true);
+            device.write(data);
+            device.stats.bytesWritten++;
+            if (journal != null)
+                journal.recordDevice(devName, true);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * 메모리의 특정 위치에서 원하는 개수만큼의 글자를 가져온다.
+     * 디바이스의 위치를 1 byte 되돌린다. 읽기 device는 마지막으로 읽은 byte를 다시 읽게 되고,
+     * 출력 device는 마지막으로 출력한 byte가 지워진다. (명령어 되돌리기용)
+     * device가 이미 닫혔으면 아무것도 하지 않는다.
+     *
+     * @param devName 디바이스의 이름
+     */
+    public void rewindDevice(String devName) throws IOException {
+        DeviceChannel device = deviceManager.get(devName);
+        if (device != null && device.position() > 0)
+            device.seek(device.position() - 1);
+    }
+
+    /**
+     * 메모리의 특정 위치에서 1 byte를 읽어온다.
+     *
+     * @param location 메모리 접근 주소
+     * @return 읽어온 값 (0 ~ 0xFF)
+     * @throws AddressingException 메모리 크기를 벗어난 주소
+     */
+    public int readByte(int location) {
+        checkRange(location, 1);
+        byte[] page = pages[location >> PAGE_SHIFT];
+        return page == null ? 0 : page[location & PAGE_MASK] & 0xFF;
+    }
+
+    /**
+     * 메모리의 특정 위치에서 1 word(3 byte)를 읽어온다.
      *
-     * @param location 메모리 접근 위치 인덱스
-     * @param num      데이터 개수
-     * @return 가져오는 데이터
+     * @param location 메모리 접근 주소
+     * @return 읽어온 값 (0 ~ 0xFFFFFF)
+     * @throws AddressingException 3 byte 중 메모리 크기를 벗어난 주소가 있을 때
+     */
+    public int readWord(int location) {
+        int offset = location & PAGE_MASK;
+        //page 경계에 걸치는 경우 (메모리의 끝도 page 경계이므로 readByte에서 주소를 확인한다)
+        if (offset > PAGE_SIZE - 3)
+            return readByte(location) << 16 | readByte(location + 1) << 8 | readByte(location + 2);
+        checkRange(location, 3);
+        byte[] page = pages[location >> PAGE_SHIFT];
+        if (page == null)
+            return 0;
+        return (page[offset] & 0xFF) << 16
+                | (page[offset + 1] & 0xFF) << 8
+                | (page[offset + 2] & 0xFF);
+    }
+
+    /**
+     * 메모리의 해당 범위가 메모리 크기 안에 있는지 확인한다.
+     *
+     * @param location 범위의 시작 주소
+     * @param num      범위의 byte 개수
+     * @throws AddressingException 범위 중 메모리 크기를 벗어난 주소가 있을 때 (벗어난 첫 주소를 담는다)
+     */
+    void checkRange(int location, int num) {
+        if (location < 0 || location + num > memorySize)
+            throw new AddressingException(location < 0 ? location : Math.max(location, memorySize), memorySize);
+    }
+
+    /**
+     * 쓰기를 위해 해당 주소의 page를 가져온다. 아직 할당되지 않았으면 0으로 채운 page를 할당한다.
+     *
+     * @param location 메모리 접근 주소
+     * @return 해당 주소의 page
+     */
+    byte[] writablePage(int location) {
+        int index = location >> PAGE_SHIFT;
+        byte[] page = pages[index];
+        if (page == null) {
+            page = freePages.poll();
+            if (page == null)
+                page = new byte[PAGE_SIZE];
+            else
+                Arrays.fill(page, (byte) 0);
+            pages[index] = page;
+        }
+        pageDirty[index] = true;
+        return page;
+    }
+
+    /**
+     * page를 반납하여 내용이 전부 0인 page로 되돌린다.
+     */
+    void releasePage(int index) {
+        if (pages[index] != null) {
+            freePages.push(pages[index]);
+            pages[index] = null;
+        }
+    }
+
+    /**
+     * @return 할당된(한 번이라도 쓰기가 일어난) page 개수
+     */
+    public int residentPages() {
+        int count = 0;
+        for (byte[] page : pages) {
+            if (page != null)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * 메모리의 특정 위치에 1 byte를 저장한다.
+     *
+     * @param location 메모리 접근 주소
+     * @param value    저장하려는 값 (하위 8 bit만 사용)
+     * @throws AddressingException 메모리 크기를 벗어난 주소
+     */
+    public void writeByte(int location, int value) {
+        checkRange(location, 1);
+        if (journal != null)
+            journal.recordByte(location, readByte(location));
+        writablePage(location)[location & PAGE_MASK] = (byte) value;
+        if (watch != null)
+            watch.checkWrite(location, 1);
+        if (dirty != null)
+            dirty.mark(location, 1);
+        if (decodeCache != null)
+            decodeCache.invalidate(location, 1);
+    }
+
+    /**
+     * 메모리의 특정 위치에 1 word(3 byte)를 저장한다.
+     *
+     * @param location 메모리 접근 주소
+     * @param value    저장하려는 값 (하위 24 bit만 사용)
+     * @throws AddressingException 메모리 크기를 벗어난 주소
+     */
+    public void writeWord(int location, int value) {
+        checkRange(location, 3);
+        if (journal != null)
+            journal.recordWord(location, readWord(location));
+        int offset = location & PAGE_MASK;
+        if (offset > PAGE_SIZE - 3) {
+            //page 경계에 걸치는 경우
+            for (int i = 0; i < 3; i++)
+                writablePage(location + i)[(location + i) & PAGE_MASK] = (byte) (value >> (16 - i * 8));
+        } else {
+            byte[] page = writablePage(location);
+            page[offset] = (byte) (value >> 16);
+            page[offset + 1] = (byte) (value >> 8);
+            page[offset + 2] = (byte) value;
+        }
+        if (watch != null)
+            watch.checkWrite(location, 3);
+        if (dirty != null)
+            dirty.mark(location, 3);
+        if (decodeCache != null)
+            decodeCache.invalidate(location, 3);
+    }
+
+    /**
+     * 메모리의 특정 위치에서 원하는 개수만큼의 byte를 16진수 글자로 가져온다. 화면 출력용으로만 사용한다.
+     *
+     * @param location 메모리 접근 주소
+     * @param num      가져오는 byte 개수
+     * @return 가져오는 데이터 (byte 당 16진수 2글자)
      */
     public char[] getMemory(int location, int num) {
-        return String.copyValueOf(memory, location, num).toCharArray();
+        char[] data = new char[num * 2];
+        for (int i = 0; i < num; i++) {
+            int value = readByte(location + i);
+            data[i * 2] = HEX[value >> 4];
+            data[i * 2 + 1] = HEX[value & 0xF];
+        }
+        return data;
     }
 
     /**
-     * 메모리의 특정 위치에 원하는 개수만큼의 데이터를 저장한다.
+     * 메모리의 특정 위치에 16진수 글자로 표현된 데이터를 원하는 byte 개수만큼 저장한다.
      *
-     * @param locate 접근 위치 인덱스
-     * @param data   저장하려는 데이터
-     * @param num    저장하는 데이터의 개수
+     * @param locate 접근 주소
+     * @param data   저장하려는 데이터 (byte 당 16진수 2글자)
+     * @param num    저장하는 byte 개수
+     * @throws AddressingException 메모리 크기를 벗어난 주소
      */
     public void setMemory(int locate, char[] data, int num) {
-        for (int i = 0; i < num; i++)
-            memory[locate + i] = data[i];
+        checkRange(locate, num);
+        for (int i = 0; i < num; i++) {
+            if (journal != null)
+                journal.recordByte(locate + i, readByte(locate + i));
+            writablePage(locate + i)[(locate + i) & PAGE_MASK] =
+                    (byte) (Character.digit(data[i * 2], 16) << 4 | Character.digit(data[i * 2 + 1], 16));
+        }
+        if (watch != null)
+            watch.checkWrite(locate, num);
+        if (dirty != null)
+            dirty.mark(locate, num);
+        if (decodeCache != null)
+            decodeCache.invalidate(locate, num);
+    }
+
+    /**
+     * 메모리, 레지스터, device 위치를 snapshot으로 저장한다.
+     * 메모리는 page 단위로 저장하며, 직전 snapshot 이후 쓰기가 없었던 page는 복사하지 않고 공유한다.
+     * (snapshot의 page는 이후 수정되지 않으므로 공유해도 안전하다) 할당되지 않은 page는 null로 저장한다.
+     *
+     * @return 현재 상태의 snapshot
+     */
+    public MachineSnapshot takeSnapshot() throws IOException {
+        MachineSnapshot snapshot = new MachineSnapshot();
+        snapshot.pages = new byte[pageDirty.length][];
+        for (int page = 0; page < pageDirty.length; page++) {
+            if (basePages != null && !pageDirty[page])
+                snapshot.pages[page] = basePages[page];
+            else
+                snapshot.pages[page] = pages[page] == null ? null : pages[page].clone();
+        }
+        basePages = snapshot.pages;
+        Arrays.fill(pageDirty, false);
+        snapshot.register = register.clone();
+        snapshot.register_F = register_F;
+        //열려 있는 device의 현재 위치 저장
+        for (DeviceChannel device : deviceManager.values())
+            snapshot.devices.add(new DevicePosition(device.name, device.writeMode, device.position()));
+        return snapshot;
+    }
+
+    /**
+     * snapshot의 상태로 되돌린다. 프로그램을 다시 load하지 않고, 바뀐 page만 다시 복사한다.
+     * device는 모두 닫은 뒤 snapshot 당시 열려 있던 device만 그 위치로 다시 연다.
+     * 출력 device는 snapshot 위치 뒤의 내용을 지운다.
+     *
+     * @param snapshot 되돌릴 snapshot (같은 ResourceManager에서 만든 것)
+     */
+    public void restoreSnapshot(MachineSnapshot snapshot) throws IOException {
+        for (int page = 0; page < pageDirty.length; page++) {
+            if (pageDirty[page] || basePages == null || basePages[page] != snapshot.pages[page]) {
+                if (snapshot.pages[page] == null)
+                    releasePage(page);
+                else
+                    System.arraycopy(snapshot.pages[page], 0, writablePage(page << PAGE_SHIFT), 0, PAGE_SIZE);
+                if (decodeCache != null)
+                    decodeCache.invalidate(page << PAGE_SHIFT, PAGE_SIZE);
+                if (dirty != null)
+                    dirty.mark(page << PAGE_SHIFT, PAGE_SIZE);
+            }
+        }
+        basePages = snapshot.pages;
+        Arrays.fill(pageDirty, false);
+        System.arraycopy(snapshot.register, 0, register, 0, register.length);
+        register_F = snapshot.register_F;
+        //device를 닫고 snapshot 당시의 위치로 다시 연다
+        closeDevice();
+        for (DevicePosition position : snapshot.devices) {
+            DeviceChannel device;
+            if (mappedDevices.contains(position.name)) {
+                device = new MappedDeviceChannel(position.name, deviceFile(position.name), position.writeMode, false);
+            } else {
+                ByteBuffer buffer = bufferPool.isEmpty() ? ByteBuffer.allocateDirect(DEVICE_BUFFER_SIZE) : bufferPool.pop();
+                device = new DeviceChannel(position.name, deviceFile(position.name), position.writeMode, false, buffer);
+            }
+            device.stats = statsOf(position.name);
+            deviceManager.put(position.name, device);
+            device.seek(position.position);
+        }
     }
 
     /**
@@ -205,9 +556,89 @@ public class ResourceManager {
      * @param value 레지스터에 집어넣는 값
      */
     public void setRegister(int regNum, int value) {
+        if (journal != null)
+            journal.recordRegister(regNum, register[regNum]);
         register[regNum] = value;
     }
 
+    /**
+     * F 레지스터에 새로운 값을 입력한다.
+     *
+     * @param value F 레지스터에 집어넣는 값
+     */
+    public void setRegisterF(double value) {
+        if (journal != null)
+            journal.recordRegisterF(register_F);
+        register_F = value;
+    }
+
+    /**
+     * 메모리의 해당 위치에서 48 bit 실수(6 byte)를 읽는다.
+     */
+    public double readFloat(int location) {
+        return bitsToFloat((long) readWord(location) << 24 | readWord(location + 3));
+    }
+
+    /**
+     * 메모리의 해당 위치에 48 bit 실수(6 byte)를 저장한다.
+     */
+    public void writeFloat(int location, double value) {
+        //앞 3 byte만 쓰고 멈추지 않도록 미리 확인
+        checkRange(location, 6);
+        long bits = floatToBits(value);
+        writeWord(location, (int) (bits >>> 24) & 0xFFFFFF);
+        writeWord(location + 3, (int) bits & 0xFFFFFF);
+    }
+
+    /**
+     * SIC/XE 48 bit 실수의 bit를 double로 변환한다.
+     * 형식 : 부호(1 bit), 지수(11 bit, 1024를 뺀 값이 실제 지수), 소수부(36 bit, 0.1xxx 형태로 정규화)
+     * 소수부가 36 bit이므로 모든 값을 double로 정확히 나타낼 수 있다.
+     *
+     * @param bits 하위 48 bit에 담긴 실수
+     * @return 변환된 값
+     */
+    static double bitsToFloat(long bits) {
+        long fraction = bits & 0xFFFFFFFFFL;
+        if (fraction == 0)
+            return 0;
+        int exponent = (int) (bits >>> 36) & 0x7FF;
+        double value = Math.scalb((double) fraction, exponent - 1024 - 36);
+        return (bits & 1L << 47) != 0 ? -value : value;
+    }
+
+    /**
+     * double을 SIC/XE 48 bit 실수의 bit로 변환한다. 소수부는 36 bit로 반올림하며,
+     * 나타낼 수 없을 만큼 크면 가장 큰 값, 작으면 0이 된다.
+     *
+     * @param value 변환할 값
+     * @return 하위 48 bit에 담긴 실수
+     */
+    static long floatToBits(double value) {
+        if (value == 0 || Double.isNaN(value))
+            return 0;
+        long sign = value < 0 ? 1L << 47 : 0;
+        double magnitude = Math.abs(value);
+        //magnitude = 0.1xxx(2진수) * 2^exponent
+        int exponent;
+        if (magnitude < Double.MIN_NORMAL)
+            exponent = Math.getExponent(magnitude * 0x1p64) + 1 - 64;
+        else
+            exponent = Math.getExponent(magnitude) + 1;
+        long fraction = Math.round(Math.scalb(magnitude, 36 - exponent));
+        //반올림으로 자리가 넘치면 다시 정규화
+        if (fraction == 1L << 36) {
+            fraction >>= 1;
+            exponent++;
+        }
+        int biased = exponent + 1024;
+        if (Double.isInfinite(value) || biased > 0x7FF)
+            return sign | 0x7FFL << 36 | 0xFFFFFFFFFL;
+        if (biased < 0)
+            return 0;
+        return sign | (long) biased << 36 | fraction;
+    }
+
     /**
      * 주로 레지스터와 메모리간의 데이터 교환에서 사용된다. int값을 char[]형태로 변경한다.
      *
@@ -215,7 +646,23 @@ public class ResourceManager {
      * @return char[]로 변환된 데이터
      */
     public char[] intToChar(int data) {
-        return String.format("%06X", data).toCharArray();
+        return toHex(data, 6);
+    }
+
+    /**
+     * int 값의 하위 digits 자리를 16진수 문자로 변환한다. (String.format 없이 화면 출력용 문자열을 만들 때 사용)
+     *
+     * @param value  변환할 값
+     * @param digits 16진수 자리 수
+     * @return 대문자 16진수 문자 배열
+     */
+    static char[] toHex(int value, int digits) {
+        char[] hex = new char[digits];
+        for (int i = digits - 1; i >= 0; i--) {
+            hex[i] = HEX[value & 0xF];
+            value >>>= 4;
+        }
+        return hex;
     }
 
     /**
@@ -225,6 +672,9 @@ public class ResourceManager {
      * @return int로 변환된 데이터
      */
     public int byteToInt(char[] data) {
-        return Integer.parseInt(String.copyValueOf(data), 16);
+        int value = 0;
+        for (char c : data)
+            value = value << 4 | Character.digit(c, 16);
+        return value;
     }
-}
\ No newline at end of file
+}
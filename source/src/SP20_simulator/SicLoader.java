@@ -1,7 +1,10 @@
 package SP20_simulator;
 
-import java.io.*;
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 
 /**
  * SicLoader는 프로그램을 해석해서 메모리에 올리는 역할을 수행한다. 이 과정에서 linker의 역할 또한 수행한다.
@@ -19,6 +22,17 @@ public class SicLoader {
     int totalLength;        //Program 총 길이
     int firstInstruction;   //Program 첫 명령어의 주소
 
+    //M 레코드 하나가 차지하는 int 개수 (주소, 길이, 부호, symbol 위치, symbol 길이, section 번호)
+    static final int M_FIELDS = 6;
+    int[] mRecord = new int[M_FIELDS * 16];     //M 레코드를 나중에 수행하기 위한 임시 저장
+    int mCount = 0;                             //저장된 M 레코드 개수
+    //R 레코드의 참조 번호 하나가 차지하는 int 개수 (section 번호, 번호 위치, symbol 위치, symbol 길이)
+    static final int R_FIELDS = 4;
+    int[] rRecord = new int[R_FIELDS * 16];     //참조 번호를 모든 D 레코드를 읽은 후 등록하기 위한 임시 저장
+    int rCount = 0;                             //저장된 참조 번호 개수
+    //자기 section을 가리키는 참조 번호
+    static final String SELF_REFERENCE = "01";
+
     /**
      * SicLoader 생성자
      * @param resourceManager resourceManager
@@ -31,97 +45,285 @@ public class SicLoader {
      * object code를 읽어서 load과정을 수행한다. load한 데이터는 resourceManager가 관리하는 메모리에 올라가도록 한다.
      * load과정에서 만들어진 symbol table 등 자료구조 역시 resourceManager에 전달한다.
      *
+     * 파일 전체를 byte 배열로 한 번에 읽은 뒤, 문자열을 만들지 않고 byte 배열에서 바로 각 레코드를 해석한다.
+     * M 레코드는 (주소, 길이, 부호, symbol 위치, section)의 int 값으로만 저장해 두었다가 모든 레코드를 읽은 후 한꺼번에 수행한다.
+     *
+     * R 레코드가 참조 번호 형식(예: "02BUFFER 03LENGTH")이면 번호를 그 section 안에서만 보이는 symbol로 등록하므로,
+     * M 레코드는 symbol 이름 대신 번호(예: "+02")를 쓸 수 있다. 01은 section 자신을 가리킨다.
+     * M 레코드의 symbol은 그 M 레코드가 속한 section 안에서 먼저 찾고, 없으면 전역 symbol에서 찾는다.
+     *
+     * 레코드가 고정 위치의 필드를 담기에 짧으면 몇 번째 줄의 어떤 레코드인지 알려주는 IOException을 던진다.
+     *
      * @param objectCode 읽어들인 파일
+     * @throws IOException 파일을 읽을 수 없거나 레코드의 길이가 맞지 않을 때
      */
-    public void load(File objectCode) {
+    public void load(File objectCode) throws IOException {
         //정보 초기화
         programName = "";
         startAddress = 0;
         totalLength = 0;
         firstInstruction = 0;
-        try {
-            FileReader fileReader = new FileReader(objectCode);
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
-            String line;            //레코드를 한 줄씩 불러올 변수
-            int sectionLength = 0;  //section의 길이 변수
-            ArrayList<String> mRecord = new ArrayList<>();  //M 레코드를 나중에 수행하기 위한 임시 저장
-            while ((line = bufferedReader.readLine()) != null) {
-                //section 구분 라인이면 continue
-                if (line.length() < 1)
-                    continue;
-                //레코드 별 load 수행
-                switch (line.charAt(0)) {
-                    //H 레코드
-                    case 'H':
-                        //section의 이름과 시작 주소 계산
-                        String sectionName = line.substring(1, 7);
-                        int sectionAddress = Integer.parseInt(line.substring(7, 13), 16) + totalLength;
-                        //프로그램의 시작이라면 정보 업데이트
-                        if (programName.isEmpty()) {
-                            programName = sectionName;
-                            startAddress = sectionAddress;
-                        }
-                        //section의 길이 계산
-                        sectionLength = Integer.parseInt(line.substring(13), 16);
-                        //section 이름과 시작 주소를 SYMTAB에 저장
-                        rMgr.symtab.putSymbol(sectionName, sectionAddress);
-                        break;
-                    //D 레코드
-                    case 'D':
-                        //EXTDEF의 symbol과 주소를 SYMTAB에 저장
-                        int symbolCnt = (line.length() - 1) / 12;
-                        for (int i = 0; i < symbolCnt; i++) {
-                            String symbol = line.substring(i * 12 + 1, i * 12 + 7);
-                            int address = Integer.parseInt(line.substring(i * 12 + 7, i * 12 + 13), 16);
-                            rMgr.symtab.putSymbol(symbol, address);
-                        }
-                        break;
-                    //T 레코드
-                    case 'T':
-                        //시작 주소와 길이를 계산하고
-                        int tStart = Integer.parseInt(line.substring(1, 7), 16) * 2 + totalLength * 2;
-                        int tLength = Integer.parseInt(line.substring(7, 9), 16);
-                        //메모리에 load
-                        char[] tInfo = line.substring(9).toCharArray();
-                        rMgr.setMemory(tStart, tInfo, tLength * 2);
-                        break;
-                    //M 레코드
-                    case 'M':
-                        //주소를 업데이트하여 임시 저장 후 Object Program을 전부 다 읽은 후 한꺼번에 수행
-                        int mStart = Integer.parseInt(line.substring(1, 7), 16) * 2 + totalLength * 2;
-                        int mLength = Integer.parseInt(line.substring(7, 9), 16);
-                        if (mLength % 2 == 1)
-                            mStart++;
-                        String mInfo = line.substring(7);
-                        //임시 저장
-                        mRecord.add(String.format("%06X%7s", mStart, mInfo));
-                        break;
-                    //E 레코드
-                    case 'E':
-                        //Program 첫 명령어의 시작 주소를 갖고 있으면 저장
-                        if (line.length() > 1)
-                            firstInstruction = Integer.parseInt(line.substring(2), 16);
-                        totalLength += sectionLength;
-                        break;
-                }
+        byte[] data = Files.readAllBytes(objectCode.toPath());
+        int line = 0;           //현재 레코드의 줄 번호
+        int sectionLength = 0;  //section의 길이 변수
+        int sectionAddress = 0; //section의 시작 주소 변수
+        int section = -1;       //section 번호 (SYMTAB의 addSection 순서)
+        mCount = 0;
+        rCount = 0;
+        int pos = 0;
+        while (pos < data.length) {
+            line++;
+            //레코드(한 줄)의 끝 찾기
+            int end = pos;
+            while (end < data.length && data[end] != '\n')
+                end++;
+            int next = end + 1;
+            if (end > pos && data[end - 1] == '\r')
+                end--;
+            int length = end - pos;
+            //section 구분 라인이면 다음 줄로
+            if (length < 1) {
+                pos = next;
+                continue;
+            }
+            //레코드 별 load 수행
+            switch (data[pos]) {
+                //H 레코드
+                case 'H':
+                    //이름(6), 시작 주소(6), 길이(6)
+                    checkLength(line, 'H', length, 19);
+                    //section의 이름과 시작 주소 계산
+                    String sectionName = symbolName(data, pos + 1, 6);
+                    sectionAddress = hex(data, pos + 7, 6) + totalLength;
+                    //프로그램의 시작이라면 정보 업데이트
+                    if (programName.isEmpty()) {
+                        programName = sectionName;
+                        startAddress = sectionAddress;
+                    }
+                    //section의 길이 계산
+                    sectionLength = hex(data, pos + 13, 6);
+                    //section 이름과 시작 주소를 SYMTAB에 저장
+                    if (!rMgr.symtab.putSymbol(sectionName, sectionAddress))
+                        System.err.println("duplicate control section: " + sectionName);
+                    section = rMgr.symtab.sectionNames.size();
+                    rMgr.symtab.addSection(sectionName, sectionAddress, sectionLength);
+                    //참조 번호 01은 section 자신
+                    rMgr.symtab.putSymbol(sectionName, SELF_REFERENCE, sectionAddress);
+                    break;
+                //D 레코드
+                case 'D':
+                    //symbol(6) + 주소(6)가 반복되고, 남는 글자는 공백이어야 한다
+                    checkLength(line, 'D', length, 13);
+                    int symbolCnt = (length - 1) / 12;
+                    if (trimmedLength(data, pos + 1 + symbolCnt * 12, (length - 1) % 12) > 0)
+                        throw recordError(line, 'D', "incomplete symbol entry");
+                    //EXTDEF의 symbol과 주소를 SYMTAB에 저장
+                    for (int i = 0; i < symbolCnt; i++) {
+                        int field = pos + 1 + i * 12;
+                        String symbol = symbolName(data, field, 6);
+                        //section 내의 상대 주소를 실제 메모리 주소로 변환
+                        int address = hex(data, field + 6, 6) + sectionAddress;
+                        if (!rMgr.symtab.putSymbol(symbol, address))
+                            System.err.println("duplicate external symbol: " + symbol);
+                    }
+                    break;
+                //R 레코드
+                case 'R':
+                    //참조 번호 형식(번호 2자리 + symbol 6자리)일 때만 번호를 기억해 둔다 (symbol은 숫자로 시작하지 않는다)
+                    if (length > 1 && data[pos + 1] >= '0' && data[pos + 1] <= '9') {
+                        for (int field = pos + 1; field + 2 < end; field += 8)
+                            addReference(section, field, field + 2, trimmedLength(data, field + 2, Math.min(6, end - field - 2)));
+                    }
+                    break;
+                //T 레코드
+                case 'T':
+                    //시작 주소와 길이를 계산하고
+                    checkLength(line, 'T', length, 9);
+                    int tStart = hex(data, pos + 1, 6) + totalLength;
+                    int tLength = hex(data, pos + 7, 2);
+                    //길이만큼의 byte(2글자씩)가 있어야 한다
+                    checkLength(line, 'T', length, 9 + tLength * 2);
+                    //메모리에 load
+                    for (int i = 0; i < tLength; i++)
+                        rMgr.writeByte(tStart + i, hex(data, pos + 9 + i * 2, 2));
+                    break;
+                //M 레코드
+                case 'M':
+                    //주소(6), 길이(2), 부호(1), symbol
+                    checkLength(line, 'M', length, 10);
+                    if (data[pos + 9] != '+' && data[pos + 9] != '-')
+                        throw recordError(line, 'M', "sign must be '+' or '-'");
+                    //주소를 업데이트하여 임시 저장 후 Object Program을 전부 다 읽은 후 한꺼번에 수행
+                    int nameStart = pos + 10;
+                    int nameLength = trimmedLength(data, nameStart, end - nameStart);
+                    addModification(hex(data, pos + 1, 6) + totalLength, hex(data, pos + 7, 2),
+                            data[pos + 9] == '-' ? -1 : 1, nameStart, nameLength, section);
+                    break;
+                //E 레코드
+                case 'E':
+                    //Program 첫 명령어의 시작 주소를 갖고 있으면 저장
+                    if (trimmedLength(data, pos, length) > 1)
+                        checkLength(line, 'E', length, 7);
+                    if (length >= 7)
+                        firstInstruction = hex(data, pos + 1, 6) + sectionAddress;
+                    totalLength += sectionLength;
+                    break;
+            }
+            pos = next;
+        }
+        //참조 번호를 해당 section의 symbol로 등록 (D 레코드가 뒤의 section에 있을 수 있으므로 모두 읽은 후에 한다)
+        for (int i = 0; i < rCount * R_FIELDS; i += R_FIELDS) {
+            int address = rMgr.symtab.search(data, rRecord[i + 2], rRecord[i + 3]);
+            if (address < 0) {
+                System.err.println("undefined external symbol: " + new String(data, rRecord[i + 2], rRecord[i + 3]));
+                continue;
             }
-            //M 레코드 수행
-            for (String modify : mRecord) {
-                int mStart = Integer.parseInt(modify.substring(0, 6), 16);
-                int mLength = Integer.parseInt(modify.substring(6, 8), 16);
-                char sign = modify.charAt(8);
-                char[] memory = rMgr.getMemory(mStart, mLength);
-                int original = Integer.parseInt(String.valueOf(memory), 16);
-                int mAddr = rMgr.symtab.search(modify.substring(9)) * 2;
-                if (sign == '+')
-                    original = original * 2 + mAddr;
-                else
-                    original = original * 2 - mAddr;
-                rMgr.setMemory(mStart, String.format("%0" + mLength + "X\n", original / 2).toCharArray(), mLength);
+            String number = new String(data, rRecord[i + 1], 2, StandardCharsets.US_ASCII);
+            if (!rMgr.symtab.putSymbol(rMgr.symtab.sectionName(rRecord[i]), number, address))
+                System.err.println("duplicate reference number: " + number);
+        }
+        //M 레코드 수행
+        for (int i = 0; i < mCount * M_FIELDS; i += M_FIELDS) {
+            String scope = mRecord[i + 5] < 0 ? null : rMgr.symtab.sectionName(mRecord[i + 5]);
+            int mAddr = rMgr.symtab.search(scope, data, mRecord[i + 3], mRecord[i + 4]);
+            if (mAddr < 0) {
+                System.err.println("undefined external symbol: " + new String(data, mRecord[i + 3], mRecord[i + 4]));
+                continue;
             }
-            bufferedReader.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+            modifyMemory(mRecord[i], mRecord[i + 1], mRecord[i + 2] * mAddr);
+        }
+    }
+
+    /**
+     * 레코드가 필요한 글자 수만큼 있는지 확인한다.
+     *
+     * @param line   레코드의 줄 번호
+     * @param type   레코드 종류
+     * @param length 레코드의 길이
+     * @param need   필요한 글자 수 (레코드 종류 글자 포함)
+     * @throws IOException 레코드가 짧을 때
+     */
+    static void checkLength(int line, char type, int length, int need) throws IOException {
+        if (length < need)
+            throw recordError(line, type, String.format("too short (%d characters, need %d)", length, need));
+    }
+
+    /**
+     * 잘못된 레코드를 알리는 IOException을 만든다.
+     */
+    static IOException recordError(int line, char type, String message) {
+        return new IOException(String.format("line %d: malformed %c record: %s", line, type, message));
+    }
+
+    /**
+     * M 레코드 하나를 임시 저장한다.
+     *
+     * @param location   수정할 필드의 주소
+     * @param length     수정할 필드의 길이 (half-byte 개수)
+     * @param sign       +1 또는 -1
+     * @param nameStart  파일 내용에서 symbol 이름의 시작 위치
+     * @param nameLength symbol 이름의 길이
+     * @param section    M 레코드가 속한 section 번호, section 밖이면 -1
+     */
+    void addModification(int location, int length, int sign, int nameStart, int nameLength, int section) {
+        if ((mCount + 1) * M_FIELDS > mRecord.length)
+            mRecord = Arrays.copyOf(mRecord, mRecord.length * 2);
+        int i = mCount * M_FIELDS;
+        mRecord[i] = location;
+        mRecord[i + 1] = length;
+        mRecord[i + 2] = sign;
+        mRecord[i + 3] = nameStart;
+        mRecord[i + 4] = nameLength;
+        mRecord[i + 5] = section;
+        mCount++;
+    }
+
+    /**
+     * R 레코드의 참조 번호 하나를 임시 저장한다.
+     *
+     * @param section    R 레코드가 속한 section 번호
+     * @param numberPos  파일 내용에서 참조 번호(2자리)의 위치
+     * @param nameStart  파일 내용에서 symbol 이름의 시작 위치
+     * @param nameLength symbol 이름의 길이
+     */
+    void addReference(int section, int numberPos, int nameStart, int nameLength) {
+        if (section < 0)
+            return;
+        if ((rCount + 1) * R_FIELDS > rRecord.length)
+            rRecord = Arrays.copyOf(rRecord, rRecord.length * 2);
+        int i = rCount * R_FIELDS;
+        rRecord[i] = section;
+        rRecord[i + 1] = numberPos;
+        rRecord[i + 2] = nameStart;
+        rRecord[i + 3] = nameLength;
+        rCount++;
+    }
+
+    /**
+     * byte 배열의 16진수 글자들을 int 값으로 변환한다. 범위를 벗어난 부분은 무시한다.
+     *
+     * @param data   파일 내용
+     * @param offset 시작 위치
+     * @param num    글자 수
+     * @return 변환된 값
+     */
+    static int hex(byte[] data, int offset, int num) {
+        int value = 0;
+        int end = Math.min(offset + num, data.length);
+        for (int i = offset; i < end; i++) {
+            int c = data[i];
+            int digit;
+            if (c >= '0' && c <= '9')
+                digit = c - '0';
+            else if (c >= 'A' && c <= 'F')
+                digit = c - 'A' + 10;
+            else if (c >= 'a' && c <= 'f')
+                digit = c - 'a' + 10;
+            else
+                break;
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * 뒤쪽 공백을 제외한 길이를 돌려준다.
+     */
+    static int trimmedLength(byte[] data, int offset, int num) {
+        num = Math.max(0, Math.min(num, data.length - offset));
+        while (num > 0 && data[offset + num - 1] == ' ')
+            num--;
+        return num;
+    }
+
+    /**
+     * 고정 길이 symbol 필드를 뒤쪽 공백을 제외한 문자열로 만든다.
+     */
+    static String symbolName(byte[] data, int offset, int num) {
+        return new String(data, offset, trimmedLength(data, offset, num), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * M 레코드 하나를 메모리에 반영한다.
+     * 길이가 홀수(half-byte 단위)이면 첫 byte의 하위 4 bit부터 수정한다.
+     *
+     * @param location 수정할 필드가 시작하는 byte 주소
+     * @param length   수정할 필드의 길이 (half-byte 개수)
+     * @param value    필드에 더할 값
+     */
+    void modifyMemory(int location, int length, int value) {
+        int byteNum = (length + 1) / 2;
+        //필드를 포함하는 byte들을 하나의 값으로 불러오기
+        int original = 0;
+        for (int i = 0; i < byteNum; i++)
+            original = original << 8 | rMgr.readByte(location + i);
+        //필드 부분만 수정
+        int mask = (1 << (length * 4)) - 1;
+        int modified = (original & ~mask) | ((original + value) & mask);
+        //다시 메모리에 저장
+        for (int i = byteNum - 1; i >= 0; i--) {
+            rMgr.writeByte(location + i, modified);
+            modified >>= 8;
         }
     }
 }
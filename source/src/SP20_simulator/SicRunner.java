@@ -0,0 +1,227 @@
+package SP20_simulator;
+
+import java.io.File;
+import javax.management.JMException;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * GUI 없이 Object Program을 수행하는 실행기.
+ * SicLoader로 프로그램을 load하고 SicSimulator로 끝까지 수행한 뒤
+ * 최종 레지스터 값, 수행한 명령어 개수, 걸린 시간을 출력한다.
+ *
+ * 사용법 : java SP20_simulator.SicRunner [옵션...] [object program 파일] [최대 명령어 개수(생략 가능)]
+ *   --map : 지정한 디바이스들을 파일 mapping 모드로 사용한다 (예: --map F1,05)
+ *   --break : 16진수 주소의 명령어 앞에서 멈춘다, 조건을 붙일 수 있다 (예: --break 1033 또는 --break 1033:A>=5)
+ *   --watch : 16진수 주소부터 길이만큼의 메모리에 쓰면 멈춘다 (예: --watch 1000:3)
+ *   --metrics : 지정한 간격(ms)마다 수행 통계를 CSV 한 줄씩 출력하고 JMX MBean으로 등록한다 (예: --metrics 1000)
+ *   --profile : 수행 후 프로파일 결과를 [이름].csv, [이름].opcodes.csv, [이름].loops.csv, [이름].folded 파일로 저장한다
+ *   --trace : 수행한 명령어를 binary trace 파일로 기록한다, --trace-lz는 block 단위로 압축한다 (TraceReplay로 복원)
+ *   --memory : 메모리 크기를 Kbyte 단위로 지정한다, 4의 배수이며 최대 1024 (예: --memory 1024, 기본 64)
+ */
+public class SicRunner {
+    ResourceManager resourceManager;
+    SicLoader sicLoader;
+    SicSimulator sicSimulator;
+    String profilePrefix;   //프로파일 결과 파일 이름 (프로파일을 사용하지 않으면 null)
+    SimulatorMetrics metrics;
+    long metricsInterval = 0;   //통계 출력 간격 (ms), 0이면 출력하지 않음
+    File traceFile;             //binary trace를 기록할 파일 (기록하지 않으면 null)
+    boolean traceCompress;      //binary trace의 block을 압축할지 여부
+
+    /**
+     * SicRunner 생성자
+     * @param memorySize 메모리 크기(byte)
+     */
+    public SicRunner(int memorySize) {
+        resourceManager = new ResourceManager(memorySize);
+        sicLoader = new SicLoader(resourceManager);
+        sicSimulator = new SicSimulator(resourceManager);
+        metrics = new SimulatorMetrics(sicSimulator);
+    }
+
+    /**
+     * 메인 함수
+     */
+    public static void main(String[] args) throws IOException {
+        //메모리 크기는 다른 옵션보다 먼저 정해져야 하므로 미리 찾는다
+        int memorySize = ResourceManager.MEMORY_SIZE;
+        for (int i = 0; i + 1 < args.length && args[i].startsWith("--"); i++) {
+            if (args[i].equals("--memory"))
+                memorySize = Integer.parseInt(args[i + 1]) * 1024;
+        }
+        SicRunner runner = null;
+        try {
+            runner = new SicRunner(memorySize);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+        }
+        //옵션 처리 (잘못된 주소나 숫자는 IllegalArgumentException)
+        int argIndex = 0;
+        try {
+            while (argIndex < args.length && args[argIndex].startsWith("--")) {
+                if (args[argIndex].equals("--memory") && argIndex + 1 < args.length) {
+                    argIndex += 2;
+                } else if (args[argIndex].equals("--map") && argIndex + 1 < args.length) {
+                    for (String devName : args[argIndex + 1].split(","))
+                        runner.resourceManager.setMappedDevice(devName, true);
+                    argIndex += 2;
+                } else if (args[argIndex].equals("--break") && argIndex + 1 < args.length) {
+                    String[] spec = args[argIndex + 1].split(":", 2);
+                    BreakCondition condition = spec.length > 1 ? BreakCondition.parse(spec[1]) : null;
+                    runner.sicSimulator.addBreakpoint(Integer.parseInt(spec[0], 16), condition);
+                    argIndex += 2;
+                } else if (args[argIndex].equals("--metrics") && argIndex + 1 < args.length) {
+                    runner.metricsInterval = Long.parseLong(args[argIndex + 1]);
+                    argIndex += 2;
+                } else if (args[argIndex].equals("--profile") && argIndex + 1 < args.length) {
+                    runner.profilePrefix = args[argIndex + 1];
+                    runner.sicSimulator.enableProfiler();
+                    argIndex += 2;
+                } else if ((args[argIndex].equals("--trace") || args[argIndex].equals("--trace-lz")) && argIndex + 1 < args.length) {
+                    runner.traceFile = new File(args[argIndex + 1]);
+                    runner.traceCompress = args[argIndex].equals("--trace-lz");
+                    argIndex += 2;
+                } else if (args[argIndex].equals("--watch") && argIndex + 1 < args.length) {
+                    String[] spec = args[argIndex + 1].split(":", 2);
+                    int length = spec.length > 1 ? Integer.parseInt(spec[1]) : 1;
+                    runner.sicSimulator.setWatchpoint(Integer.parseInt(spec[0], 16), length, true);
+                    argIndex += 2;
+                } else {
+                    usage();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+        }
+        if (argIndex >= args.length)
+            usage();
+        File program = new File(args[argIndex]);
+        if (!program.exists()) {
+            System.err.println("file not found: " + program.getPath());
+            System.exit(2);
+        }
+        long maxSteps = args.length > argIndex + 1 ? Long.parseLong(args[argIndex + 1]) : 0;
+
+        try {
+            runner.load(program);
+        } catch (IOException e) {
+            System.err.println("cannot load " + program.getPath() + ": " + e.getMessage());
+            System.exit(2);
+        }
+        if (runner.metricsInterval > 0) {
+            try {
+                runner.metrics.register("runner");
+            } catch (JMException e) {
+                System.err.println("cannot register metrics MBean: " + e.getMessage());
+            }
+            runner.metrics.startReporter(System.out, runner.metricsInterval);
+        }
+        long start = System.nanoTime();
+        boolean halted = runner.run(maxSteps);
+        long elapsed = System.nanoTime() - start;
+        if (runner.metricsInterval > 0) {
+            runner.metrics.stopReporter();
+            runner.metrics.report(System.out);
+        }
+        runner.printResult(halted, elapsed);
+        if (runner.profilePrefix != null)
+            runner.writeProfile();
+        if (runner.traceFile != null)
+            System.out.println("trace        : " + runner.traceFile.getPath() + " (" + runner.sicSimulator.traceWriter.recordCount + " records)");
+        //프로그램이 끝나지 않았으면 0이 아닌 값으로 종료 (중단점/감시점/주소 오류로 멈췄으면 3)
+        System.exit(halted ? 0 : runner.sicSimulator.stopReason != Breakpoints.NONE ? 3 : 1);
+    }
+
+    /**
+     * 사용법을 출력하고 종료한다.
+     */
+    static void usage() {
+        System.err.println("usage: java SP20_simulator.SicRunner [--map DEV[,DEV...]] [--break ADDR[:COND]]... [--watch ADDR[:LEN]]..."
+                + " [--metrics MILLIS] [--profile PREFIX] [--trace|--trace-lz FILE] [--memory KBYTES] <object program> [max steps]");
+        System.exit(2);
+    }
+
+    /**
+     * 프로그램을 load한다.
+     */
+    public void load(File program) throws IOException {
+        sicSimulator.load(program);
+        sicLoader.load(program);
+        if (traceFile != null)
+            sicSimulator.traceWriter = new TraceWriter(traceFile, traceCompress, sicLoader, resourceManager);
+    }
+
+    /**
+     * 프로그램을 끝까지 (또는 최대 명령어 개수만큼) 수행하고 device들과 trace 파일을 닫는다.
+     *
+     * @param maxSteps 수행할 최대 명령어 개수 (0 이하면 제한 없음)
+     * @return 프로그램이 끝났으면 true
+     */
+    public boolean run(long maxSteps) throws IOException {
+        boolean halted;
+        try {
+            halted = sicSimulator.run(maxSteps);
+        } finally {
+            resourceManager.closeDevice();
+            if (sicSimulator.traceWriter != null)
+                sicSimulator.traceWriter.close(resourceManager.getRegister(8));
+        }
+        return halted;
+    }
+
+    /**
+     * 프로파일 결과를 파일로 저장한다.
+     */
+    public void writeProfile() throws IOException {
+        Profiler profiler = sicSimulator.profiler;
+        try (PrintWriter out = new PrintWriter(profilePrefix + ".csv")) {
+            profiler.writeCsv(out);
+        }
+        try (PrintWriter out = new PrintWriter(profilePrefix + ".opcodes.csv")) {
+            profiler.writeOpcodeCsv(out);
+        }
+        try (PrintWriter out = new PrintWriter(profilePrefix + ".loops.csv")) {
+            profiler.writeHotLoops(out, 20);
+        }
+        try (PrintWriter out = new PrintWriter(profilePrefix + ".folded")) {
+            profiler.writeCollapsed(out);
+        }
+        System.out.println("profile      : " + profilePrefix + ".{csv,opcodes.csv,loops.csv,folded}");
+    }
+
+    /**
+     * 수행 결과를 출력한다.
+     */
+    public void printResult(boolean halted, long elapsedNanos) {
+        System.out.println("program      : " + sicLoader.programName.trim());
+        String status = halted ? "halted" : "step limit reached";
+        if (sicSimulator.stopReason == Breakpoints.BREAKPOINT)
+            status = String.format("breakpoint at %06X", sicSimulator.stopAddress);
+        else if (sicSimulator.stopReason == Breakpoints.WATCHPOINT)
+            status = String.format("watchpoint hit at %06X (instruction %06X)", sicSimulator.stopAddress, sicSimulator.currAddr);
+        else if (sicSimulator.stopReason == Breakpoints.ADDRESS_ERROR)
+            status = String.format("addressing error at %06X (instruction %06X, memory size %06X)",
+                    sicSimulator.stopAddress, sicSimulator.currAddr, resourceManager.memorySize);
+        else if (sicSimulator.stopReason == Breakpoints.INVALID_OPCODE)
+            status = String.format("invalid opcode %02X at %06X", resourceManager.readByte(sicSimulator.stopAddress), sicSimulator.stopAddress);
+        System.out.println("status       : " + status);
+        for (int i = 0; i < ResourceManager.REGISTER_NAME.length; i++) {
+            if (ResourceManager.REGISTER_NAME[i].isEmpty())
+                continue;
+            if (i == 6) {
+                double f = resourceManager.register_F;
+                System.out.println(String.format("%-13s: %012X (%s)", ResourceManager.REGISTER_NAME[i], ResourceManager.floatToBits(f), f));
+                continue;
+            }
+            int value = resourceManager.getRegister(i);
+            System.out.println(String.format("%-13s: %06X (%d)", ResourceManager.REGISTER_NAME[i], value, value));
+        }
+        System.out.println("instructions : " + sicSimulator.stepCount);
+        System.out.println(String.format("memory       : %d KB (%d KB resident)", resourceManager.memorySize >> 10,
+                resourceManager.residentPages() * ResourceManager.PAGE_SIZE >> 10));
+        System.out.println(String.format("wall time    : %.3f ms", elapsedNanos / 1e6));
+    }
+}
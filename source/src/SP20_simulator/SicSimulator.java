@@ -1,11 +1,10 @@
 package SP20_simulator;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * 시뮬레이터로서의 작업을 담당한다. VisualSimulator에서 사용자의 요청을 받으면 이에 따라
@@ -22,40 +21,82 @@ import java.util.HashMap;
  */
 public class SicSimulator {
     ResourceManager rMgr;
-    HashMap<Integer, Instruction> instMap = new HashMap<>();    //SIC/XE 머신의 명령어 정보를 저장
+    InstructionSet instSet;                                     //SIC/XE 머신의 명령어 정보 (여러 SicSimulator가 공유)
     InstLuncher instLuncher;                                    //실질적으로 명령어를 수행할 InstLuncher
-    ArrayList<String> logList = new ArrayList<>();              //log 정보를 저장할 ArrayList
-    String inst = "";                                           //명령어 정보를 저장할 변수
+    DecodeCache decodeCache;                                    //해석된 명령어를 주소별로 저장하는 cache
+    TraceBuffer trace = new TraceBuffer(TraceBuffer.DEFAULT_CAPACITY);  //log 정보를 저장할 ring buffer
+    int instLength = 0;                                         //현재 명령어의 길이(byte)를 저장할 변수
     int currAddr = 0;                                           //명령어의 현재 주소를 저장할 변수
+    long stepCount = 0;                                         //load 이후 수행한 명령어 개수
+    long totalSteps = 0;                                        //생성 이후 run()으로 수행한 전체 명령어 개수 (metrics용)
+    long runNanos = 0;                                          //생성 이후 run()에 걸린 전체 시간 (metrics용)
+    volatile long runStart = 0;                                 //수행 중인 run()의 시작 시각, 수행 중이 아니면 0 (metrics용)
+    long runStartSteps = 0;                                     //수행 중인 run()의 시작 시점 명령어 개수 (metrics용)
+    long decodeHits = 0;                                        //oneStep에서 해석해 둔 명령어를 찾은 횟수 (metrics용)
+    long decodeMisses = 0;                                      //oneStep에서 해석해 둔 명령어가 없어 새로 해석한 횟수 (metrics용)
+    long blockSteps = 0;                                        //block 단위로 수행한 명령어 개수, decode cache를 거치지 않는다 (metrics용)
+    boolean blockMode = true;                                   //자주 수행되는 부분을 block 단위로 수행할지 여부
+    long compiledSteps = 0;                                     //JVM bytecode로 번역된 block으로 수행한 명령어 개수 (metrics용)
+    boolean compileMode = true;                                 //자주 수행되는 block을 JVM bytecode로 번역하여 수행할지 여부
+    boolean atLeader = true;                                    //다음 명령어가 block의 시작(분기 명령어 또는 block 다음)이면 true
+    UndoJournal journal;                                        //명령어 되돌리기용 변경 기록 (사용하지 않으면 null)
+    Profiler profiler;                                          //명령어 단위 프로파일러 (사용하지 않으면 null)
+    TraceWriter traceWriter;                                    //수행한 명령어를 파일에 기록하는 binary trace 기록기 (사용하지 않으면 null)
+    Breakpoints breakpoints;                                    //설정된 중단점과 감시점
+    Breakpoints activeBreakpoints;                              //중단점이 하나라도 있을 때만 breakpoints, 없으면 null
+    int stopReason = Breakpoints.NONE;                          //마지막 run()이 중단점/감시점 때문에 멈췄다면 그 이유
+    int stopAddress = -1;                                       //멈춘 중단점 주소, 쓰기가 일어난 감시 주소 또는 범위를 벗어난 주소
+    long resumeStep = -1;                                       //중단점에서 멈춘 시점의 명령어 개수 (이어서 수행할 때 같은 중단점에서 다시 멈추지 않도록)
+
+    static final int HOT_THRESHOLD = 8;                         //block을 만들기 시작하는 진입 횟수
+    static final int MAX_BLOCK_LENGTH = 64;                     //block 하나의 최대 명령어 개수
+    static final int COMPILE_THRESHOLD = 32;                    //block을 JVM bytecode로 번역하는 수행 횟수
+    static final int MAX_COMPILED_BUDGET = 1 << 30;             //번역된 block이 한 번에 수행할 수 있는 최대 명령어 개수
 
     /**
      * SicSimulator 생성자
      * @param resourceManager resourceManager
      */
     public SicSimulator(ResourceManager resourceManager) {
+        this(resourceManager, InstructionSet.getDefault());
+    }
+
+    /**
+     * 주어진 명령어 정보를 사용하는 SicSimulator 생성자.
+     * 명령어 정보는 읽기만 하므로 여러 SicSimulator가 같은 InstructionSet을 공유해도 된다.
+     *
+     * @param resourceManager resourceManager
+     * @param instSet         명령어 정보
+     */
+    public SicSimulator(ResourceManager resourceManager, InstructionSet instSet) {
         this.rMgr = resourceManager;
-        instLuncher = new InstLuncher(resourceManager);
-        //명령어 정보 불러오기
-        openInstFile("inst.data");
+        setInstructionSet(instSet);
+        //decode cache를 만들고 메모리 쓰기 시 무효화되도록 연결
+        decodeCache = new DecodeCache(rMgr.memorySize);
+        rMgr.decodeCache = decodeCache;
+        breakpoints = new Breakpoints(rMgr.memorySize);
     }
 
     /**
-     * 입력받은 이름의 파일을 열고 해당 내용을 파싱하여 instMap에 저장한다.
+     * 입력받은 이름의 파일을 열고 해당 내용을 파싱하여 명령어 정보로 사용한다.
      */
-    public void openInstFile(String fileName) {
-        try {
-            File file = new File(fileName);
-            FileReader fileReader = new FileReader(file);
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
-            String line;
-            //한 줄씩 instruction 정보 가져와서 저장
-            while ((line = bufferedReader.readLine()) != null) {
-                Instruction inst = new Instruction(line);
-                instMap.put(inst.opcode, inst);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public void openInstFile(String fileName) throws IOException {
+        setInstructionSet(InstructionSet.load(new File(fileName)));
+        if (decodeCache != null)
+            decodeCache.clear();
+    }
+
+    /**
+     * 명령어 정보를 지정하고, 그에 맞는 log 출력용 이름과 처리 table을 만든다.
+     */
+    void setInstructionSet(InstructionSet instSet) {
+        this.instSet = instSet;
+        //log 출력용 명령어 이름 등록
+        Arrays.fill(trace.mnemonic, null);
+        for (Instruction inst : instSet.values())
+            trace.mnemonic[inst.opcode >> 2] = inst.instruction;
+        //명령어 정보로 처리 table을 만들어 둔 InstLuncher 생성
+        instLuncher = new InstLuncher(rMgr, instSet.values());
     }
 
     /**
@@ -66,46 +107,225 @@ public class SicSimulator {
         //메모리 초기화
         rMgr.initializeResource();
         //log 초기화
-        logList.clear();
-        logList = new ArrayList<>();
+        trace.clear();
         //각종 변수 초기화
-        inst = "";
+        instLength = 0;
         currAddr = 0;
-        instLuncher = new InstLuncher(rMgr);
+        stepCount = 0;
+        instLuncher.reset();
+        if (journal != null)
+            journal.clear();
+        if (profiler != null)
+            profiler.clear();
+    }
+
+    /**
+     * 주소별, opcode별, 분기별 수행 횟수를 세는 프로파일러를 켠다. 다음 load 때 기록이 초기화된다.
+     *
+     * @return 켜진 프로파일러
+     */
+    public Profiler enableProfiler() {
+        if (profiler == null)
+            profiler = new Profiler(rMgr, instSet);
+        return profiler;
+    }
+
+    /**
+     * 명령어 되돌리기(stepBack)를 사용할 수 있도록 변경 기록을 시작한다.
+     *
+     * @param capacity 보관할 최대 기록 개수 (명령어 하나당 보통 3 ~ 4개)
+     */
+    public void enableUndo(int capacity) {
+        journal = new UndoJournal(capacity);
+        rMgr.journal = journal;
+    }
+
+    /**
+     * @return 되돌릴 수 있는 명령어가 있으면 true
+     */
+    public boolean canStepBack() {
+        return journal != null && journal.canUndo() && trace.canRemoveLast();
+    }
+
+    /**
+     * 수행한 명령어를 최대 count개까지 되돌린다. 다시 수행하지 않고 변경 기록만 거꾸로 적용한다.
+     * 변경 기록이 남아 있어도 log(trace)에 더 이상 남아 있지 않은 명령어에서는 멈춘다.
+     *
+     * @param count 되돌릴 명령어 개수
+     * @return 실제로 되돌린 명령어 개수
+     */
+    public int stepBack(int count) throws IOException {
+        int undone = 0;
+        while (undone < count && journal != null) {
+            if (!trace.canRemoveLast() || !journal.undo(rMgr))
+                break;
+            trace.removeLast();
+            stepCount--;
+            undone++;
+        }
+        if (undone > 0) {
+            //되돌린 위치의 명령어를 현재 명령어로 표시
+            currAddr = rMgr.getRegister(8);
+            instLength = 0;
+            instLuncher.currDevice = "";
+            instLuncher.targetAddress = -1;
+        }
+        return undone;
+    }
+
+    /**
+     * 현재 머신 상태(메모리, 레지스터, device 위치, 수행한 명령어 개수)를 저장한다.
+     * 같은 프로그램을 여러 입력으로 반복 수행할 때 load 대신 restore()로 되돌리는 데 사용한다.
+     *
+     * @return 현재 상태의 snapshot
+     */
+    public MachineSnapshot checkpoint() throws IOException {
+        MachineSnapshot snapshot = rMgr.takeSnapshot();
+        snapshot.stepCount = stepCount;
+        return snapshot;
+    }
+
+    /**
+     * checkpoint()로 저장한 상태로 되돌린다. log는 저장하지 않으므로 비운다.
+     *
+     * @param snapshot 되돌릴 snapshot
+     */
+    public void restore(MachineSnapshot snapshot) throws IOException {
+        rMgr.restoreSnapshot(snapshot);
+        if (journal != null)
+            journal.clear();
+        trace.clear();
+        instLength = 0;
+        currAddr = 0;
+        instLuncher.reset();
+        stepCount = snapshot.stepCount;
     }
 
     /**
      * 1개의 instruction이 수행된 모습을 보인다.
+     *
+     * @return 마지막 명령어를 수행했거나 주소 오류, 잘못된 opcode로 멈췄으면 false (stopReason 참조), 아니면 true
      */
     public boolean oneStep() {
         //PC 값 불러오기
         int locctr = rMgr.getRegister(8);
         currAddr = locctr;
-        //명령어 정보 불러오기
-        String tempOpcode = String.copyValueOf(rMgr.getMemory(locctr, 2));
-        Instruction inst = instMap.get(Integer.parseInt(tempOpcode, 16) & 0xFC);
-        //해당 명령어의 format과 nixbpe 정보 불러오기
-        int format = inst.format;
-        int nixbpe = Integer.parseInt(String.copyValueOf(
-                rMgr.getMemory(locctr + 2, 1)), 16) | ((Integer.parseInt(tempOpcode, 16) & 0x3) << 4);
-        if (format > 2 && (nixbpe & 0x1) == 1)
-            format++;
-        //displacement 불러오기
-        char[] rest = rMgr.getMemory(locctr + 3, format * 2 - 3);
-        //전체 명령어 저장
-        this.inst = tempOpcode + String.format("%01X", nixbpe & 0xF) + String.copyValueOf(rest);
-        locctr += format * 2;
+        //해석해 둔 명령어가 없으면 해석하여 cache에 저장
+        DecodedInstruction decoded;
+        try {
+            rMgr.checkRange(locctr, 1);
+            decoded = decodeCache.get(locctr);
+            if (decoded == null) {
+                decoded = decodeCache.put(locctr, decode(locctr));
+                decodeMisses++;
+            } else {
+                decodeHits++;
+            }
+        } catch (AddressingException e) {
+            return addressError(e, false);
+        } catch (InvalidOpcodeException e) {
+            //명령어를 수행하지 않았으므로 되돌릴 것 없이 PC를 그 명령어에 남겨 둔 채 멈춘다
+            stopReason = Breakpoints.INVALID_OPCODE;
+            stopAddress = e.address;
+            return false;
+        }
+        //전체 명령어 길이 저장
+        instLength = decoded.length;
+        locctr += decoded.length;
+        //되돌리기용 명령어 시작 표시
+        if (journal != null)
+            journal.mark();
 
         //명령어 수행
-        locctr = instLuncher.launch(inst, nixbpe, Integer.parseInt(String.copyValueOf(rest), 16), locctr / 2);
+        try {
+            locctr = instLuncher.launch(decoded.handler, decoded.nixbpe, decoded.displacement, locctr);
+        } catch (AddressingException e) {
+            return addressError(e, true);
+        }
+        if (profiler != null)
+            profiler.record(currAddr, decoded.inst.opcode >> 2, currAddr + decoded.length, locctr);
+        //분기 명령어 다음(분기 대상 또는 다음 명령어)은 block이 시작될 수 있는 주소
+        atLeader = decoded.inst.branch;
         //log 추가
-        addLog(inst.instruction);
+        addLog(decoded);
         //PC 값 갱신하기
         rMgr.setRegister(8, locctr);
+        stepCount++;
         //마지막 명령어라면 false, 아니면 true 리턴
         return locctr != 0;
     }
 
+    /**
+     * 메모리 크기를 벗어난 주소에 접근한 명령어를 처리한다.
+     * 명령어가 그때까지 바꾼 내용을 되돌리고 (되돌리기 기록이 있을 때), PC는 그 명령어에 남겨 둔 채 멈춘다.
+     *
+     * @param e      발생한 예외
+     * @param marked 명령어 시작 표시를 남긴 뒤라면 true
+     * @return 항상 false (수행을 멈춘다)
+     */
+    boolean addressError(AddressingException e, boolean marked) {
+        stopReason = Breakpoints.ADDRESS_ERROR;
+        stopAddress = e.address;
+        if (marked && journal != null) {
+            try {
+                journal.undo(rMgr);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 메모리의 해당 주소에 있는 명령어를 해석한다.
+     *
+     * @param locctr 명령어의 주소
+     * @return 해석된 명령어
+     * @throws InvalidOpcodeException 정의되지 않은 opcode인 경우
+     */
+    DecodedInstruction decode(int locctr) {
+        //명령어 정보 불러오기
+        int opcode = rMgr.readByte(locctr);
+        Instruction inst = instSet.get(opcode);
+        if (inst == null)
+            throw new InvalidOpcodeException(locctr, opcode);
+        int second = rMgr.readByte(locctr + 1);
+        //해당 명령어의 format과 nixbpe 정보 불러오기
+        int format = inst.format;
+        int length = format;
+        int nixbpe = (second >> 4) | ((opcode & 0x3) << 4);
+        //e 비트는 format 3/4 형식(n, i 중 하나라도 1)일 때만 format 4를 뜻한다
+        //(SIC 호환 형식에서는 15 bit 주소의 일부이다)
+        if (format > 2 && (nixbpe & 0x30) != 0 && (nixbpe & 0x1) == 1)
+            length++;
+        //displacement 불러오기
+        int displacement;
+        if (length == 2)
+            displacement = second & 0xF;
+        else if (length == 3)
+            displacement = (second & 0xF) << 8 | rMgr.readByte(locctr + 2);
+        else if (length == 4)
+            displacement = (second & 0xF) << 16 | rMgr.readByte(locctr + 2) << 8 | rMgr.readByte(locctr + 3);
+        else
+            displacement = 0;
+        //명령어 전체 bit 저장 (log 출력용)
+        int bits = 0;
+        for (int i = 0; i < length; i++)
+            bits = bits << 8 | rMgr.readByte(locctr + i);
+        return new DecodedInstruction(inst, instLuncher.handlers[inst.opcode >> 2], format, nixbpe, displacement, length, bits);
+    }
+
+    /**
+     * 마지막으로 수행한 명령어를 16진수 문자열로 돌려준다. 화면 출력용으로만 사용한다.
+     *
+     * @return 명령어의 16진수 문자열, 수행한 명령어가 없으면 빈 문자열
+     */
+    public String getInst() {
+        if (instLength == 0)
+            return "";
+        return String.copyValueOf(rMgr.getMemory(currAddr, instLength));
+    }
+
     /**
      * 남은 모든 instruction이 수행된 모습을 보인다.
      */
@@ -115,45 +335,290 @@ public class SicSimulator {
     }
 
     /**
-     * 각 단계를 수행할 때 마다 관련된 기록을 남기도록 한다.
+     * 화면 갱신 없이 프로그램이 끝나거나 최대 개수에 도달할 때까지 명령어를 수행한다.
+     *
+     * @param maxSteps 수행할 최대 명령어 개수 (0 이하면 제한 없음)
+     * @return 프로그램이 끝났으면 true, 최대 개수에 도달하였거나 중단점, 감시점, 주소 오류, 잘못된 opcode로 멈췄으면 false (stopReason 참조)
      */
-    public void addLog(String log) {
-        //logList에 log 추가
-        logList.add(log);
+    public boolean run(long maxSteps) {
+        runStartSteps = stepCount;
+        runStart = System.nanoTime();
+        try {
+            return runSteps(maxSteps);
+        } finally {
+            runNanos += System.nanoTime() - runStart;
+            totalSteps += stepCount - runStartSteps;
+            runStart = 0;
+        }
     }
-}
 
-/**
- * 명령어 하나하나의 구체적인 정보는 Instruction클래스에 담긴다.
- * instruction과 관련된 정보들을 저장하고 기초적인 연산을 수행한다.
- */
-class Instruction {
+    /**
+     * run()의 실제 수행 부분
+     */
+    boolean runSteps(long maxSteps) {
+        long limit = maxSteps > 0 ? stepCount + maxSteps : Long.MAX_VALUE;
+        stopReason = Breakpoints.NONE;
+        atLeader = true;
+        if (rMgr.watch != null)
+            rMgr.watch.watchHit = false;
+        while (stepCount < limit) {
+            //감시 중인 메모리에 쓰기가 있었으면 멈춘다
+            if (rMgr.watch != null && rMgr.watch.watchHit) {
+                rMgr.watch.watchHit = false;
+                stopReason = Breakpoints.WATCHPOINT;
+                stopAddress = rMgr.watch.watchAddress;
+                return false;
+            }
+            //중단점 확인 (block은 중단점 앞에서 끝나므로 block 경계에서만 확인하면 된다)
+            if (activeBreakpoints != null && stepCount != resumeStep) {
+                int locctr = rMgr.getRegister(8);
+                if (activeBreakpoints.shouldBreak(locctr, rMgr.register)) {
+                    stopReason = Breakpoints.BREAKPOINT;
+                    stopAddress = locctr;
+                    resumeStep = stepCount;
+                    return false;
+                }
+            }
+            //block이 시작될 수 있는 주소에서만 진입 횟수를 세고, 자주 수행되는 주소라면 block 단위로 수행
+            if (blockMode && atLeader) {
+                TranslatedBlock block = hotBlock(rMgr.getRegister(8));
+                if (block != null && limit - stepCount >= block.insts.length) {
+                    if (!executeBlock(block, limit - stepCount))
+                        return stopReason == Breakpoints.NONE;
+                    //block이 끝난 다음 주소도 block이 시작될 수 있는 주소
+                    atLeader = true;
+                    continue;
+                }
+            }
+            if (!oneStep())
+                return stopReason == Breakpoints.NONE;
+        }
+        //마지막 명령어가 감시 중인 메모리에 썼는지 확인
+        if (rMgr.watch != null && rMgr.watch.watchHit) {
+            rMgr.watch.watchHit = false;
+            stopReason = Breakpoints.WATCHPOINT;
+            stopAddress = rMgr.watch.watchAddress;
+        }
+        return false;
+    }
+
+    /**
+     * 중단점을 추가한다. run()은 해당 주소의 명령어를 수행하기 전에 멈춘다.
+     *
+     * @param address   중단할 명령어의 주소
+     * @param condition 중단 조건, 조건 없이 항상 멈추려면 null
+     */
+    public void addBreakpoint(int address, BreakCondition condition) {
+        breakpoints.addBreakpoint(address, condition);
+        //해당 주소를 지나는 block은 중단점 앞에서 끝나도록 다시 만든다
+        decodeCache.invalidateBlocks(address, 1);
+        attachBreakpoints();
+    }
+
+    /**
+     * 중단점을 지운다.
+     *
+     * @param address 중단점의 주소
+     * @return 지웠으면 true
+     */
+    public boolean removeBreakpoint(int address) {
+        boolean removed = breakpoints.removeBreakpoint(address);
+        attachBreakpoints();
+        return removed;
+    }
+
+    /**
+     * 메모리 범위의 감시점을 추가하거나 지운다. run()은 감시 범위에 쓴 명령어를 수행한 직후 멈춘다.
+     *
+     * @param start  감시할 메모리 시작 주소
+     * @param length 감시할 byte 개수
+     * @param watch  추가하려면 true, 지우려면 false
+     */
+    public void setWatchpoint(int start, int length, boolean watch) {
+        breakpoints.setWatchpoint(start, length, watch);
+        attachBreakpoints();
+    }
+
+    /**
+     * 중단점과 감시점을 모두 지운다.
+     */
+    public void clearBreakpoints() {
+        breakpoints.clear();
+        attachBreakpoints();
+    }
+
+    /**
+     * 설정된 중단점/감시점이 있을 때만 수행 중에 확인하도록 연결한다.
+     */
+    void attachBreakpoints() {
+        activeBreakpoints = breakpoints.hasBreakpoints() ? breakpoints : null;
+        rMgr.watch = breakpoints.hasWatchpoints() ? breakpoints : null;
+    }
 
-    String instruction; //명령어 이름
-    int opcode;         //명령어 Opcode
-    int operandNum;     //명령어 피연산자 개수
-    int format;         //명령어의 포맷
+    /**
+     * 해당 주소에서 시작하는 block을 가져온다. 없으면 진입 횟수를 세고, 충분히 자주 수행되었으면 block을 만든다.
+     * block이 시작될 수 있는 주소(분기 명령어 다음이나 block이 끝난 다음)에서만 호출한다.
+     *
+     * @param locctr 현재 PC 값
+     * @return block, 아직 만들 시점이 아니면 null
+     */
+    TranslatedBlock hotBlock(int locctr) {
+        //범위를 벗어난 PC는 oneStep이 주소 오류로 처리한다
+        if (locctr >= rMgr.memorySize)
+            return null;
+        TranslatedBlock block = decodeCache.getBlock(locctr);
+        if (block == null && decodeCache.countEntry(locctr) >= HOT_THRESHOLD)
+            block = translate(locctr);
+        return block;
+    }
 
     /**
-     * 클래스를 선언하면서 일반문자열을 즉시 구조에 맞게 파싱한다.
-     * @param line : instruction 명세파일로부터 한줄씩 가져온 문자열
+     * 해당 주소부터 분기 명령어까지의 명령어들을 해석하여 block으로 만든다.
+     *
+     * @param start block의 시작 주소
+     * @return 만들어진 block, 해석할 수 있는 명령어가 없으면 null
      */
-    public Instruction(String line) {
-        parsing(line);
+    TranslatedBlock translate(int start) {
+        ArrayList<DecodedInstruction> insts = new ArrayList<>();
+        int locctr = start;
+        while (insts.size() < MAX_BLOCK_LENGTH && locctr + DecodeCache.MAX_LENGTH <= rMgr.memorySize) {
+            //알 수 없는 opcode나 중단점을 만나면 그 앞에서 block을 끝낸다
+            if (instSet.get(rMgr.readByte(locctr)) == null)
+                break;
+            if (activeBreakpoints != null && locctr != start && Breakpoints.isSet(activeBreakpoints.pcBits, locctr))
+                break;
+            DecodedInstruction decoded = decodeCache.get(locctr);
+            if (decoded == null)
+                decoded = decodeCache.put(locctr, decode(locctr));
+            insts.add(decoded);
+            locctr += decoded.length;
+            if (decoded.inst.branch)
+                break;
+        }
+        if (insts.isEmpty())
+            return null;
+        return decodeCache.putBlock(new TranslatedBlock(start, locctr, insts.toArray(new DecodedInstruction[0])));
     }
 
     /**
-     * 일반 문자열을 파싱하여 instruction 정보를 파악하고 저장한다.
-     * @param line : instruction 명세파일로부터 한줄씩 가져온 문자열
+     * block 하나를 수행한다. 수행 도중 block이 무효화되거나 흐름이 바뀌면 그 자리에서 멈춘다.
+     * 충분히 자주 수행된 block은 JVM bytecode로 번역하여 수행한다.
+     * (되돌리기 기록, 프로파일러, binary trace는 명령어마다 기록해야 하므로 이들을 사용하는 동안은 해석하여 수행한다)
+     *
+     * @param block  수행할 block
+     * @param budget 수행할 수 있는 최대 명령어 개수, block 길이 이상이어야 한다
+     * @return 마지막 명령어를 수행했거나 주소 오류로 멈췄으면 false, 아니면 true
      */
-    public void parsing(String line) {
-        //탭(\t)으로 분리
-        String[] info = line.split("\t");
-        if (info.length == 4) {
-            instruction = info[0];
-            format = Integer.parseInt(info[1]);
-            opcode = Integer.parseInt(info[2], 16);
-            operandNum = Integer.parseInt(info[3]);
+    boolean executeBlock(TranslatedBlock block, long budget) {
+        long startStep = stepCount;
+        try {
+            if (compileMode && journal == null && profiler == null && traceWriter == null) {
+                if (block.compiled == null && ++block.runs == COMPILE_THRESHOLD)
+                    block.compiled = BlockCompiler.compile(block, rMgr, instLuncher);
+                if (block.compiled != null)
+                    return executeCompiled(block.compiled, budget);
+            }
+            return executeInstructions(block);
+        } finally {
+            blockSteps += stepCount - startStep;
         }
     }
+
+    /**
+     * 번역된 block을 수행한다. block의 마지막 분기가 block의 시작으로 돌아가면 budget 안에서 반복한다.
+     *
+     * @param compiled 번역된 block
+     * @param budget   수행할 수 있는 최대 명령어 개수
+     * @return 마지막 명령어를 수행했거나 주소 오류로 멈췄으면 false, 아니면 true
+     */
+    boolean executeCompiled(CompiledBlock compiled, long budget) {
+        int length = compiled.addresses.length;
+        //중단점은 block 경계마다 확인해야 하므로 반복하지 않는다
+        int limit = activeBreakpoints != null ? length : (int) Math.min(budget, MAX_COMPILED_BUDGET);
+        int locctr;
+        try {
+            locctr = compiled.run(rMgr.register, trace, limit);
+        } catch (AddressingException e) {
+            finishCompiled(compiled);
+            //범위를 벗어난 명령어에 PC를 남겨 둔 채 멈춘다
+            int index = compiled.executed % length;
+            currAddr = compiled.addresses[index];
+            instLength = compiled.block.insts[index].length;
+            if (!compiled.fallback[index]) {
+                instLuncher.reset();
+                instLuncher.targetAddress = compiled.faultTarget;
+            }
+            rMgr.setRegister(8, currAddr);
+            return addressError(e, false);
+        }
+        finishCompiled(compiled);
+        rMgr.setRegister(8, locctr);
+        return locctr != 0;
+    }
+
+    /**
+     * 번역된 block이 수행한 명령어 개수만큼 log 개수와 명령어 개수를 늘리고, 마지막 명령어의 정보를 남긴다.
+     */
+    void finishCompiled(CompiledBlock compiled) {
+        int executed = compiled.executed;
+        if (executed == 0)
+            return;
+        compiled.fillTrace(trace, trace.count, executed);
+        trace.advance(executed);
+        stepCount += executed;
+        compiledSteps += executed;
+        int last = (executed - 1) % compiled.addresses.length;
+        currAddr = compiled.addresses[last];
+        instLength = compiled.block.insts[last].length;
+        //처리 함수를 호출한 명령어가 아니면 화면에 보일 Target Address를 log에서 가져온다
+        if (!compiled.fallback[last]) {
+            instLuncher.reset();
+            instLuncher.targetAddress = trace.target[(int) (trace.count - 1) & trace.mask];
+        }
+    }
+
+    /**
+     * executeBlock()의 실제 수행 부분
+     */
+    boolean executeInstructions(TranslatedBlock block) {
+        int locctr = block.start;
+        DecodedInstruction[] insts = block.insts;
+        for (DecodedInstruction decoded : insts) {
+            currAddr = locctr;
+            instLength = decoded.length;
+            int next = locctr + decoded.length;
+            if (journal != null)
+                journal.mark();
+            //명령어 수행
+            int target;
+            try {
+                target = instLuncher.launch(decoded.handler, decoded.nixbpe, decoded.displacement, next);
+            } catch (AddressingException e) {
+                return addressError(e, true);
+            }
+            if (profiler != null)
+                profiler.record(locctr, decoded.inst.opcode >> 2, next, target);
+            //log 추가 후 PC 값 갱신하기
+            addLog(decoded);
+            rMgr.setRegister(8, target);
+            stepCount++;
+            if (target == 0)
+                return false;
+            //자기 자신을 수정했거나, 분기가 일어났거나, 감시 중인 메모리에 썼으면 해석기로 돌아간다
+            if (!block.valid || target != next || rMgr.watch != null && rMgr.watch.watchHit)
+                return true;
+            locctr = target;
+        }
+        return true;
+    }
+
+    /**
+     * 각 단계를 수행할 때 마다 관련된 기록을 남기도록 한다.
+     */
+    public void addLog(DecodedInstruction decoded) {
+        //trace에 주소, opcode, 명령어 bit, Target Address만 int로 기록
+        trace.add(currAddr, decoded.inst.opcode >> 2, decoded.bits, decoded.length, instLuncher.targetAddress);
+        if (traceWriter != null)
+            traceWriter.record(currAddr, decoded, instLuncher.targetAddress, instLuncher.currDevice, rMgr);
+    }
 }
@@ -0,0 +1,33 @@
+package SP20_simulator;
+
+import java.io.File;
+
+/**
+ * SimulatorPool에서 수행한 Object Program 하나의 결과.
+ */
+class SimulationResult {
+    static final String CSV_HEADER = "program,name,status,instructions,ms,A,X,L,B,S,T,PC,SW";
+
+    File program;                   //수행한 Object Program 파일
+    String programName = "";        //H 레코드의 프로그램 이름
+    File deviceDirectory;           //머신이 사용한 device directory
+    boolean halted = false;         //프로그램이 끝났으면 true
+    long steps = 0;                 //수행한 명령어 개수
+    long elapsedNanos = 0;          //수행에 걸린 시간
+    int[] register = new int[10];   //최종 레지스터 값
+    Exception error;                //수행 중 발생한 예외, 없으면 null
+
+    public SimulationResult(File program) {
+        this.program = program;
+    }
+
+    /**
+     * 결과를 CSV 한 줄로 변환한다.
+     */
+    public String toCsv() {
+        String status = error != null ? "error: " + error.getClass().getSimpleName() : halted ? "halted" : "step limit";
+        return String.format("%s,%s,%s,%d,%.3f,%06X,%06X,%06X,%06X,%06X,%06X,%06X,%06X",
+                program.getPath(), programName, status, steps, elapsedNanos / 1e6,
+                register[0], register[1], register[2], register[3], register[4], register[5], register[8], register[9]);
+    }
+}
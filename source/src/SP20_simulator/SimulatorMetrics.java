@@ -0,0 +1,191 @@
+package SP20_simulator;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시뮬레이터 하나의 수행 통계를 모아 보여준다.
+ * 값은 SicSimulator와 ResourceManager가 세고 있는 counter(volatile이 아닌 long)에서 조회할 때 계산하므로
+ * 명령어 수행 경로에는 counter 증가 외의 비용을 더하지 않는다. (화면 갱신 시간만 VisualSimulator가 기록한다)
+ *
+ * decode cache 적중률은 해석기(oneStep)가 cache를 찾은 횟수 중 적중한 비율이다.
+ * block 단위로 수행한 명령어는 cache를 찾지 않으므로 적중률에 넣지 않고 따로 보인다.
+ *
+ * JMX MBean으로 등록하거나(register), 일정 간격으로 CSV 한 줄씩 출력할 수 있다(startReporter).
+ */
+public class SimulatorMetrics implements SimulatorMetricsMBean {
+    //CSV 출력의 머리글
+    static final String CSV_HEADER = "time_ms,instructions,mips,interval_mips,decode_hit_rate,block_instructions,device_read,device_written,td_polls,gui_updates,gui_update_ms";
+
+    SicSimulator sicSimulator;
+    ResourceManager rMgr;
+    volatile long guiUpdateCount = 0;   //화면 갱신 횟수
+    volatile long guiUpdateNanos = 0;   //화면 갱신에 걸린 전체 시간
+    ScheduledExecutorService reporter;  //주기적 출력 thread, 출력하지 않으면 null
+    long reportStart = System.nanoTime();   //CSV 출력의 시간 기준
+
+    /**
+     * SimulatorMetrics 생성자
+     *
+     * @param sicSimulator 통계를 볼 시뮬레이터
+     */
+    public SimulatorMetrics(SicSimulator sicSimulator) {
+        this.sicSimulator = sicSimulator;
+        this.rMgr = sicSimulator.rMgr;
+    }
+
+    /**
+     * 플랫폼 MBean 서버에 "SP20_simulator:type=SimulatorMetrics,name=[이름]"으로 등록한다.
+     *
+     * @param name 구분용 이름
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("SP20_simulator:type=SimulatorMetrics,name=" + ObjectName.quote(name)));
+    }
+
+    /**
+     * 화면 갱신 한 번에 걸린 시간을 기록한다. (EDT에서 호출)
+     */
+    public void recordGuiUpdate(long nanos) {
+        guiUpdateCount++;
+        guiUpdateNanos += nanos;
+    }
+
+    @Override
+    public long getInstructions() {
+        //수행 중인 run()의 명령어까지 더한다
+        long steps = sicSimulator.totalSteps;
+        if (sicSimulator.runStart != 0)
+            steps += Math.max(0, sicSimulator.stepCount - sicSimulator.runStartSteps);
+        return steps;
+    }
+
+    @Override
+    public double getMips() {
+        long nanos = sicSimulator.runNanos;
+        long runStart = sicSimulator.runStart;
+        if (runStart != 0)
+            nanos += System.nanoTime() - runStart;
+        return nanos == 0 ? 0 : getInstructions() * 1000.0 / nanos;
+    }
+
+    @Override
+    public double getDecodeCacheHitRate() {
+        long hits = sicSimulator.decodeHits;
+        long lookups = hits + sicSimulator.decodeMisses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getBlockInstructions() {
+        return sicSimulator.blockSteps;
+    }
+
+    @Override
+    public long getCompiledInstructions() {
+        return sicSimulator.compiledSteps;
+    }
+
+    @Override
+    public long getDeviceBytesRead() {
+        long total = 0;
+        for (DeviceStats stats : rMgr.deviceStats.values())
+            total += stats.bytesRead;
+        return total;
+    }
+
+    @Override
+    public long getDeviceBytesWritten() {
+        long total = 0;
+        for (DeviceStats stats : rMgr.deviceStats.values())
+            total += stats.bytesWritten;
+        return total;
+    }
+
+    @Override
+    public long getTestDevicePolls() {
+        long total = 0;
+        for (DeviceStats stats : rMgr.deviceStats.values())
+            total += stats.testCount;
+        return total;
+    }
+
+    @Override
+    public String[] getDeviceStats() {
+        return rMgr.deviceStats.values().stream()
+                .map(stats -> stats.name + " read=" + stats.bytesRead + " written=" + stats.bytesWritten + " td=" + stats.testCount)
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getGuiUpdateCount() {
+        return guiUpdateCount;
+    }
+
+    @Override
+    public double getGuiUpdateMillis() {
+        return guiUpdateNanos / 1e6;
+    }
+
+    /**
+     * 일정 간격으로 현재 통계를 CSV 한 줄씩 출력하는 daemon thread를 시작한다.
+     *
+     * @param out            출력할 stream
+     * @param intervalMillis 출력 간격 (ms)
+     */
+    public void startReporter(PrintStream out, long intervalMillis) {
+        stopReporter();
+        out.println(CSV_HEADER);
+        reportStart = System.nanoTime();
+        long[] last = {reportStart, getInstructions()};   //직전 출력 시점과 그때의 명령어 개수
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulator-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            long instructions = getInstructions();
+            double intervalMips = (instructions - last[1]) * 1000.0 / Math.max(1, now - last[0]);
+            last[0] = now;
+            last[1] = instructions;
+            out.println(csvLine(intervalMips));
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 현재 통계를 CSV 한 줄로 출력한다. (수행이 끝난 뒤 마지막 값을 남길 때 사용)
+     */
+    public void report(PrintStream out) {
+        out.println(csvLine(getMips()));
+    }
+
+    /**
+     * 주기적 출력을 멈춘다.
+     */
+    public void stopReporter() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /**
+     * 현재 통계를 CSV 한 줄로 만든다.
+     *
+     * @param intervalMips 직전 출력 이후의 속도
+     */
+    String csvLine(double intervalMips) {
+        long timeMillis = (System.nanoTime() - reportStart) / 1_000_000;
+        return String.format("%d,%d,%.3f,%.3f,%.4f,%d,%d,%d,%d,%d,%.3f", timeMillis, getInstructions(), getMips(), intervalMips,
+                getDecodeCacheHitRate(), getBlockInstructions(), getDeviceBytesRead(), getDeviceBytesWritten(), getTestDevicePolls(),
+                getGuiUpdateCount(), getGuiUpdateMillis());
+    }
+}
@@ -0,0 +1,19 @@
+package SP20_simulator;
+
+/**
+ * JMX로 보여주는 SimulatorMetrics의 항목.
+ * (JMX Standard MBean 규칙에 따라 "클래스 이름 + MBean" 이름의 public interface로 둔다)
+ */
+public interface SimulatorMetricsMBean {
+    long getInstructions();             //run()으로 수행한 전체 명령어 개수
+    double getMips();                   //run() 수행 중의 평균 속도 (백만 명령어/초)
+    double getDecodeCacheHitRate();     //해석기가 decode cache를 찾았을 때의 적중률 (0 ~ 1)
+    long getBlockInstructions();        //block 단위로 수행한 명령어 개수 (decode cache를 찾지 않는다)
+    long getCompiledInstructions();     //그 중 JVM bytecode로 번역된 block으로 수행한 명령어 개수
+    long getDeviceBytesRead();          //모든 device에서 읽은 byte 수
+    long getDeviceBytesWritten();       //모든 device로 출력한 byte 수
+    long getTestDevicePolls();          //TD 명령어로 device 상태를 확인한 횟수
+    String[] getDeviceStats();          //device별 "이름 읽은byte 출력byte TD횟수"
+    long getGuiUpdateCount();           //VisualSimulator 화면 갱신 횟수
+    double getGuiUpdateMillis();        //VisualSimulator 화면 갱신에 걸린 전체 시간
+}
@@ -0,0 +1,208 @@
+package SP20_simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 Object Program을 서로 독립된 머신에서 동시에 수행하는 pool.
+ * 머신(ResourceManager, SicLoader, SicSimulator)은 작업마다 새로 만들고,
+ * 명령어 정보(InstructionSet)는 한 번만 불러와 모든 머신이 공유한다.
+ *
+ * 각 머신은 자신만의 device directory를 사용하므로 같은 이름의 device를 써도 서로 섞이지 않는다.
+ * template directory를 지정하면 그 안의 device 파일(입력 파일 등)을 머신마다 복사해 준다.
+ *
+ * 사용법 : java SP20_simulator.SimulatorPool [--threads N] [--template 디렉토리] [출력 디렉토리] [object program 파일...]
+ */
+public class SimulatorPool implements AutoCloseable {
+    InstructionSet instSet;                     //모든 머신이 공유하는 명령어 정보 (읽기 전용)
+    ExecutorService executor;                   //머신을 수행할 thread pool
+    File deviceRoot;                            //머신별 device directory를 만들 상위 directory
+    File deviceTemplate;                        //머신마다 복사해 줄 device 파일들이 있는 directory, 없으면 null
+    AtomicInteger nextId = new AtomicInteger(); //머신 번호
+
+    /**
+     * CPU 개수만큼의 고정 thread pool을 사용하는 SimulatorPool 생성자
+     *
+     * @param deviceRoot     머신별 device directory를 만들 상위 directory
+     * @param deviceTemplate 머신마다 복사해 줄 device 파일들이 있는 directory, 없으면 null
+     */
+    public SimulatorPool(File deviceRoot, File deviceTemplate) {
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), deviceRoot, deviceTemplate);
+    }
+
+    /**
+     * 주어진 executor로 머신을 수행하는 SimulatorPool 생성자.
+     * Java 21 이상이라면 virtual thread executor를 넘겨 사용할 수 있다.
+     *
+     * @param executor       머신을 수행할 executor (close()할 때 함께 종료된다)
+     * @param deviceRoot     머신별 device directory를 만들 상위 directory
+     * @param deviceTemplate 머신마다 복사해 줄 device 파일들이 있는 directory, 없으면 null
+     */
+    public SimulatorPool(ExecutorService executor, File deviceRoot, File deviceTemplate) {
+        this.executor = executor;
+        this.deviceRoot = deviceRoot;
+        this.deviceTemplate = deviceTemplate;
+        instSet = InstructionSet.getDefault();
+    }
+
+    /**
+     * 메인 함수, 주어진 Object Program들을 동시에 수행하고 결과를 CSV로 출력한다.
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        File template = null;
+        int argIndex = 0;
+        while (argIndex < args.length && args[argIndex].startsWith("--")) {
+            if (args[argIndex].equals("--threads") && argIndex + 1 < args.length) {
+                threads = Integer.parseInt(args[argIndex + 1]);
+            } else if (args[argIndex].equals("--template") && argIndex + 1 < args.length) {
+                template = new File(args[argIndex + 1]);
+            } else {
+                usage();
+            }
+            argIndex += 2;
+        }
+        if (args.length - argIndex < 2)
+            usage();
+        File deviceRoot = new File(args[argIndex]);
+        List<File> programs = new ArrayList<>();
+        for (int i = argIndex + 1; i < args.length; i++)
+            programs.add(new File(args[i]));
+
+        long start = System.nanoTime();
+        List<SimulationResult> results;
+        try (SimulatorPool pool = new SimulatorPool(Executors.newFixedThreadPool(threads), deviceRoot, template)) {
+            results = pool.runAll(programs, 0);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        boolean allHalted = true;
+        System.out.println(SimulationResult.CSV_HEADER);
+        for (SimulationResult result : results) {
+            System.out.println(result.toCsv());
+            allHalted &= result.halted;
+        }
+        System.err.println(String.format("%d programs, %d threads, %.3f ms", results.size(), threads, elapsed / 1e6));
+        //끝나지 않은 프로그램이 있으면 0이 아닌 값으로 종료
+        System.exit(allHalted ? 0 : 1);
+    }
+
+    /**
+     * 사용법을 출력하고 종료한다.
+     */
+    static void usage() {
+        System.err.println("usage: java SP20_simulator.SimulatorPool [--threads N] [--template DIR] <device root> <object program>...");
+        System.exit(2);
+    }
+
+    /**
+     * Object Program 하나를 새 머신에서 수행하도록 등록한다.
+     *
+     * @param program  수행할 Object Program 파일
+     * @param maxSteps 수행할 최대 명령어 개수 (0 이하면 제한 없음)
+     * @return 수행 결과
+     */
+    public Future<SimulationResult> submit(File program, long maxSteps) {
+        int id = nextId.getAndIncrement();
+        return executor.submit(() -> runMachine(id, program, maxSteps));
+    }
+
+    /**
+     * 여러 Object Program을 동시에 수행하고, 모두 끝나면 입력 순서대로 결과를 돌려준다.
+     *
+     * @param programs 수행할 Object Program 파일들
+     * @param maxSteps 프로그램마다 수행할 최대 명령어 개수 (0 이하면 제한 없음)
+     * @return 수행 결과들
+     */
+    public List<SimulationResult> runAll(List<File> programs, long maxSteps) throws InterruptedException {
+        List<Future<SimulationResult>> futures = new ArrayList<>();
+        for (File program : programs)
+            futures.add(submit(program, maxSteps));
+        List<SimulationResult> results = new ArrayList<>();
+        for (Future<SimulationResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                //runMachine()에서 예외를 결과에 담으므로 여기까지 오지는 않는다
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 새 머신을 만들어 Object Program 하나를 수행한다.
+     */
+    SimulationResult runMachine(int id, File program, long maxSteps) {
+        SimulationResult result = new SimulationResult(program);
+        ResourceManager resourceManager = new ResourceManager();
+        try {
+            resourceManager.deviceDirectory = prepareDeviceDirectory(id, program);
+            result.deviceDirectory = resourceManager.deviceDirectory;
+            SicLoader sicLoader = new SicLoader(resourceManager);
+            SicSimulator sicSimulator = new SicSimulator(resourceManager, instSet);
+            sicSimulator.load(program);
+            sicLoader.load(program);
+            result.programName = sicLoader.programName.trim();
+
+            long start = System.nanoTime();
+            try {
+                result.halted = sicSimulator.run(maxSteps);
+            } finally {
+                resourceManager.closeDevice();
+            }
+            result.elapsedNanos = System.nanoTime() - start;
+            if (sicSimulator.stopReason == Breakpoints.ADDRESS_ERROR)
+                result.error = new AddressingException(sicSimulator.stopAddress, resourceManager.memorySize);
+            else if (sicSimulator.stopReason == Breakpoints.INVALID_OPCODE)
+                result.error = new InvalidOpcodeException(sicSimulator.stopAddress, resourceManager.readByte(sicSimulator.stopAddress));
+            result.steps = sicSimulator.stepCount;
+            for (int i = 0; i < result.register.length; i++)
+                result.register[i] = resourceManager.getRegister(i);
+        } catch (Exception e) {
+            result.error = e;
+        }
+        return result;
+    }
+
+    /**
+     * 머신 전용 device directory를 만들고 template의 device 파일을 복사한다.
+     */
+    File prepareDeviceDirectory(int id, File program) throws IOException {
+        File directory = new File(deviceRoot, id + "_" + program.getName().replaceAll("[^A-Za-z0-9_.-]", "_"));
+        Files.createDirectories(directory.toPath());
+        File[] files = deviceTemplate != null ? deviceTemplate.listFiles() : null;
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile())
+                    Files.copy(file.toPath(), new File(directory, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * 등록된 작업이 모두 끝날 때까지 기다린 뒤 executor를 종료한다.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+                ;
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
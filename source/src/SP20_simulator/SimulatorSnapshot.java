@@ -0,0 +1,19 @@
+package SP20_simulator;
+
+/**
+ * 화면 갱신을 위해 복사해 둔 시뮬레이터의 상태.
+ * 명령어를 수행하는 스레드와 화면을 그리는 스레드가 같은 객체를 동시에 읽고 쓰지 않도록 한다.
+ */
+class SimulatorSnapshot {
+    int[] register;         //레지스터 값
+    double registerF;       //F 레지스터 값
+    int currAddr;           //현재 명령어의 주소
+    int targetAddress;      //현재 명령어의 Target Address, 없으면 -1
+    String device;          //현재 명령어가 사용하는 device
+    long traceCount;        //지금까지 기록된 명령어 개수
+    TraceRows logRows;      //log 화면에 보일 기록, 복사하지 않았으면 null
+    TraceRows instRows;     //명령어 화면에 보일 기록, 복사하지 않았으면 null
+    int memoryRow;          //메모리 화면에 보이는 첫 행
+    byte[] memory;          //메모리 화면에 보이는 행의 내용, 복사하지 않았으면 null
+    boolean[] memoryDirty;  //memory의 byte별로 직전 갱신 이후 쓰기가 있었는지 여부
+}
@@ -1,18 +1,34 @@
 package SP20_simulator;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * symbol과 관련된 데이터와 연산을 소유한다.
- * section 별로 하나씩 인스턴스를 할당한다.
+ * load된 프로그램 전체가 하나의 인스턴스를 공유하고, section 별 symbol은 scope로 구분한다.
+ *
+ * symbol은 (scope, 이름) 쌍을 key로 하는 open addressing hash table에 저장하고, 주소는 int 배열에 그대로 저장한다.
+ * scope가 null이면 모든 section에서 보이는 전역(EXTDEF, control section 이름) symbol이고,
+ * section 이름을 scope로 주면 해당 section 안에서만 보이는 symbol이 된다. (예: R 레코드의 참조 번호)
+ * section 안에서 찾을 때는 그 section의 symbol을 먼저 찾고, 없으면 전역 symbol을 찾는다.
  */
 public class SymbolTable {
-    ArrayList<String> symbolList;
-    ArrayList<Integer> addressList;
+    //table의 최소 크기
+    static final int MIN_CAPACITY = 16;
+
+    String[] symbols;   //symbol 이름, 비어있는 칸은 null
+    String[] scopes;    //symbol이 속한 section 이름, 전역 symbol은 null
+    int[] addresses;    //symbol의 주소
+    int size = 0;       //저장된 symbol 개수
+    //control section 정보 (load된 순서 = 주소 순서)
+    ArrayList<String> sectionNames = new ArrayList<>();
+    int[] sectionStarts = new int[MIN_CAPACITY];    //section 시작 주소
+    int[] sectionEnds = new int[MIN_CAPACITY];      //section 끝 주소 (마지막 byte 다음)
     // 기타 literal, external 선언 및 처리방법을 구현한다.
 
     public SymbolTable() {
-        symbolList = new ArrayList<>();
-        addressList = new ArrayList<>();
+        symbols = new String[MIN_CAPACITY];
+        scopes = new String[MIN_CAPACITY];
+        addresses = new int[MIN_CAPACITY];
     }
 
     /**
@@ -20,13 +36,35 @@ public class SymbolTable {
      *
      * @param symbol  : 새로 추가되는 symbol의 label
      * @param address : 해당 symbol이 가지는 주소값
+     * @return 추가되었으면 true, 이미 같은 symbol이 있으면 추가하지 않고 false
      *                <p>
      *                주의 : 만약 중복된 symbol이 putSymbol을 통해서 입력된다면 이는 프로그램 코드에 문제가 있음을 나타낸다.
      *                매칭되는 주소값의 변경은 modifySymbol()을 통해서 이루어져야 한다.
      */
-    public void putSymbol(String symbol, int address) {
-        symbolList.add(symbol);
-        addressList.add(address);
+    public boolean putSymbol(String symbol, int address) {
+        return putSymbol(null, symbol, address);
+    }
+
+    /**
+     * 특정 section 안에서만 보이는 Symbol을 table에 추가한다.
+     *
+     * @param section : symbol이 속한 section의 이름, null이면 전역 symbol
+     * @param symbol  : 새로 추가되는 symbol의 label
+     * @param address : 해당 symbol이 가지는 주소값
+     * @return 추가되었으면 true, 같은 scope에 이미 같은 symbol이 있으면 추가하지 않고 false
+     */
+    public boolean putSymbol(String section, String symbol, int address) {
+        //절반 이상 차면 table을 늘린다
+        if ((size + 1) * 2 > symbols.length)
+            resize(symbols.length * 2);
+        int slot = find(section, symbol);
+        if (symbols[slot] != null)
+            return false;
+        symbols[slot] = symbol;
+        scopes[slot] = section;
+        addresses[slot] = address;
+        size++;
+        return true;
     }
 
     /**
@@ -36,7 +74,9 @@ public class SymbolTable {
      * @param newAddress : 새로 바꾸고자 하는 주소값
      */
     public void modifySymbol(String symbol, int newAddress) {
-        addressList.set(symbolList.indexOf(symbol), newAddress);
+        int slot = find(null, symbol);
+        if (symbols[slot] != null)
+            addresses[slot] = newAddress;
     }
 
     /**
@@ -46,10 +86,188 @@ public class SymbolTable {
      * @return symbol이 가지고 있는 주소값. 해당 symbol이 없을 경우 -1 리턴
      */
     public int search(String symbol) {
-        int address = symbolList.indexOf(symbol);
-        if (address != -1)
-            address = addressList.get(address);
-        return address;
+        int slot = find(null, symbol);
+        return symbols[slot] != null ? addresses[slot] : -1;
+    }
+
+    /**
+     * 해당 section 안에서 symbol을 찾는다. section에 없으면 전역 symbol에서 찾는다.
+     *
+     * @param section : 검색하는 위치의 section 이름, null이면 전역 symbol만 찾는다
+     * @param symbol  : 검색을 원하는 symbol의 label
+     * @return symbol이 가지고 있는 주소값. 해당 symbol이 없을 경우 -1 리턴
+     */
+    public int search(String section, String symbol) {
+        if (section != null) {
+            int slot = find(section, symbol);
+            if (symbols[slot] != null)
+                return addresses[slot];
+        }
+        return search(symbol);
+    }
+
+    /**
+     * byte 배열에 들어있는 이름으로 전역 symbol을 찾는다. 문자열을 새로 만들지 않는다.
+     *
+     * @param data   이름이 들어있는 byte 배열 (ASCII)
+     * @param offset 이름의 시작 위치
+     * @param length 이름의 길이
+     * @return symbol이 가지고 있는 주소값. 해당 symbol이 없을 경우 -1 리턴
+     */
+    public int search(byte[] data, int offset, int length) {
+        return search(null, data, offset, length);
+    }
+
+    /**
+     * byte 배열에 들어있는 이름으로 section 안에서 symbol을 찾고, 없으면 전역 symbol에서 찾는다.
+     * 문자열을 새로 만들지 않는다. (SicLoader의 M 레코드 처리용)
+     *
+     * @param section 검색하는 위치의 section 이름, null이면 전역 symbol만 찾는다
+     * @param data    이름이 들어있는 byte 배열 (ASCII)
+     * @param offset  이름의 시작 위치
+     * @param length  이름의 길이
+     * @return symbol이 가지고 있는 주소값. 해당 symbol이 없을 경우 -1 리턴
+     */
+    public int search(String section, byte[] data, int offset, int length) {
+        //String.hashCode()와 같은 방식으로 계산
+        int h = 0;
+        for (int i = 0; i < length; i++)
+            h = 31 * h + (data[offset + i] & 0xFF);
+        int mask = symbols.length - 1;
+        if (section != null) {
+            int slot = hash(h, section) & mask;
+            while (symbols[slot] != null) {
+                if (section.equals(scopes[slot]) && equals(symbols[slot], data, offset, length))
+                    return addresses[slot];
+                slot = (slot + 1) & mask;
+            }
+        }
+        int slot = hash(h, null) & mask;
+        while (symbols[slot] != null) {
+            if (scopes[slot] == null && equals(symbols[slot], data, offset, length))
+                return addresses[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 문자열과 byte 배열의 이름이 같은지 비교한다.
+     */
+    static boolean equals(String symbol, byte[] data, int offset, int length) {
+        if (symbol.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != (data[offset + i] & 0xFF))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * control section의 주소 범위를 저장한다. (프로파일러 등에서 주소가 속한 section을 찾는 데 사용)
+     *
+     * @param section section 이름
+     * @param address section 시작 주소
+     * @param length  section 길이
+     */
+    public void addSection(String section, int address, int length) {
+        int index = sectionNames.size();
+        if (index == sectionStarts.length) {
+            sectionStarts = Arrays.copyOf(sectionStarts, index * 2);
+            sectionEnds = Arrays.copyOf(sectionEnds, index * 2);
+        }
+        sectionNames.add(section);
+        sectionStarts[index] = address;
+        sectionEnds[index] = address + length;
+    }
+
+    /**
+     * 주소가 속한 control section의 번호를 찾는다.
+     *
+     * @param address 찾을 주소
+     * @return section 번호 (addSection 순서), 어느 section에도 속하지 않으면 -1
+     */
+    public int sectionIndexOf(int address) {
+        for (int i = 0; i < sectionNames.size(); i++) {
+            if (sectionStarts[i] <= address && address < sectionEnds[i])
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param index section 번호
+     * @return section 이름, 번호가 -1이면 "?"
+     */
+    public String sectionName(int index) {
+        return index < 0 ? "?" : sectionNames.get(index);
+    }
+
+    /**
+     * @return 저장된 symbol 개수
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * (scope, symbol)이 저장된 칸, 또는 저장될 빈 칸의 index를 찾는다. (linear probing)
+     */
+    int find(String section, String symbol) {
+        int mask = symbols.length - 1;
+        int slot = hash(symbol.hashCode(), section) & mask;
+        while (symbols[slot] != null
+                && !(symbols[slot].equals(symbol) && (section == null ? scopes[slot] == null : section.equals(scopes[slot]))))
+            slot = (slot + 1) & mask;
+        return slot;
     }
 
+    /**
+     * (scope, symbol)의 hash 값을 계산한다.
+     *
+     * @param symbolHash symbol 이름의 String.hashCode() 값
+     * @param section    symbol이 속한 section 이름, 전역 symbol은 null
+     */
+    static int hash(int symbolHash, String section) {
+        return mix(symbolHash * 31 + (section == null ? 0 : section.hashCode()));
+    }
+
+    /**
+     * 비슷한 이름(S00001, S00002 ...)이 한 곳에 몰리지 않도록 hash 값의 bit를 골고루 섞어 준다.
+     */
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * table의 크기를 바꾸고 저장된 symbol을 다시 배치한다.
+     */
+    void resize(int capacity) {
+        String[] oldSymbols = symbols;
+        String[] oldScopes = scopes;
+        int[] oldAddresses = addresses;
+        symbols = new String[capacity];
+        scopes = new String[capacity];
+        addresses = new int[capacity];
+        for (int i = 0; i < oldSymbols.length; i++) {
+            if (oldSymbols[i] == null)
+                continue;
+            int slot = find(oldScopes[i], oldSymbols[i]);
+            symbols[slot] = oldSymbols[i];
+            scopes[slot] = oldScopes[i];
+            addresses[slot] = oldAddresses[i];
+        }
+    }
+
+    /**
+     * table을 비운다.
+     */
+    public void clear() {
+        Arrays.fill(symbols, null);
+        Arrays.fill(scopes, null);
+        size = 0;
+        sectionNames.clear();
+    }
 }
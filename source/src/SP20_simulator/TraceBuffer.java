@@ -0,0 +1,203 @@
+package SP20_simulator;
+
+/**
+ * 수행한 명령어의 기록을 고정된 크기만큼만 보관하는 ring buffer.
+ * 기록은 문자열이 아닌 int 값(주소, opcode, 명령어 bit, Target Address)으로만 저장하고,
+ * 화면에 보일 때만 문자열로 변환한다. 용량을 넘으면 가장 오래된 기록부터 덮어쓴다.
+ *
+ * 되돌리기로 지운 기록의 자리는 다시 기록될 때까지 비어 있으므로, 보관 중인 기록은
+ * 지금까지 가장 많이 기록되었을 때(high)를 기준으로 용량 안에 드는 것만이다.
+ */
+public class TraceBuffer {
+    //기본 보관 개수
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    int capacity;       //보관할 수 있는 최대 기록 개수 (2의 거듭제곱)
+    int mask;           //index 계산용 mask
+    int[] address;      //명령어의 주소
+    int[] opcode;       //opcode >> 2
+    int[] bits;         //명령어 전체 bit (최대 4 byte)
+    byte[] length;      //명령어의 길이(byte)
+    int[] target;       //Target Address, 없으면 -1
+    volatile long count = 0;    //지금까지 기록된 전체 개수
+    long high = 0;              //되돌리기 전까지 가장 많았던 count (removeLast에서만 갱신한다)
+
+    String[] mnemonic = new String[64]; //opcode >> 2 에 해당하는 명령어 이름
+
+    /**
+     * TraceBuffer 생성자
+     * @param capacity 보관할 최대 기록 개수, 2의 거듭제곱으로 올림한다
+     */
+    public TraceBuffer(int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mask = this.capacity - 1;
+        address = new int[this.capacity];
+        opcode = new int[this.capacity];
+        bits = new int[this.capacity];
+        length = new byte[this.capacity];
+        target = new int[this.capacity];
+    }
+
+    /**
+     * 수행한 명령어 하나를 기록한다.
+     */
+    public void add(int addr, int opcodeIndex, int instBits, int instLength, int targetAddr) {
+        int i = (int) count & mask;
+        address[i] = addr;
+        opcode[i] = opcodeIndex;
+        bits[i] = instBits;
+        length[i] = (byte) instLength;
+        target[i] = targetAddr;
+        count++;
+    }
+
+    /**
+     * 배열에 직접 기록한 n개의 기록을 반영한다. (CompiledBlock은 add를 거치지 않고 배열에 바로 기록한다)
+     */
+    void advance(int n) {
+        count += n;
+    }
+
+    /**
+     * first번 기록부터 filled번 기록 앞까지의 주소, opcode, 명령어 bit, 길이를 end번 기록 앞까지 반복하여 채운다.
+     * 채운 부분을 두 배씩 늘려 가며 배열 복사로 채우며, Target Address는 그대로 둔다.
+     *
+     * @param first  반복할 기록의 시작 번호
+     * @param filled 반복할 기록의 끝 번호 (이미 채워져 있어야 한다)
+     * @param end    채울 기록의 끝 번호, end - first는 capacity 이하여야 한다
+     */
+    void repeat(long first, long filled, long end) {
+        while (filled < end) {
+            int n = (int) Math.min(filled - first, end - filled);
+            copyColumns(first, filled, n);
+            filled += n;
+        }
+    }
+
+    /**
+     * from번 기록부터 n개의 주소, opcode, 명령어 bit, 길이를 to번 기록부터의 자리로 복사한다. (ring buffer의 끝에서 나누어 복사)
+     */
+    void copyColumns(long from, long to, int n) {
+        while (n > 0) {
+            int src = (int) from & mask;
+            int dst = (int) to & mask;
+            int chunk = Math.min(n, capacity - Math.max(src, dst));
+            System.arraycopy(address, src, address, dst, chunk);
+            System.arraycopy(opcode, src, opcode, dst, chunk);
+            System.arraycopy(bits, src, bits, dst, chunk);
+            System.arraycopy(length, src, length, dst, chunk);
+            from += chunk;
+            to += chunk;
+            n -= chunk;
+        }
+    }
+
+    /**
+     * @return 마지막 기록을 지울 수 있으면(아직 덮어쓰이지 않았으면) true
+     */
+    public boolean canRemoveLast() {
+        return count > first(count);
+    }
+
+    /**
+     * 마지막 기록 하나를 지운다. (명령어 되돌리기용)
+     *
+     * @return 지웠으면 true, 보관 중인 기록이 없으면 false
+     */
+    public boolean removeLast() {
+        //마지막 removeLast 이후에는 count가 늘기만 하므로 지금의 count가 그동안의 최댓값이다
+        high = Math.max(high, count);
+        if (!canRemoveLast())
+            return false;
+        count--;
+        return true;
+    }
+
+    /**
+     * 기록을 모두 지운다.
+     */
+    public void clear() {
+        count = 0;
+        high = 0;
+    }
+
+    /**
+     * @return 현재 보관 중인 기록 개수
+     */
+    public int size() {
+        return (int) (count - first(count));
+    }
+
+    /**
+     * 보관 중인 가장 오래된 기록의 번호를 계산한다.
+     * @param total 기준이 되는 전체 기록 개수 (화면 갱신 시점의 count)
+     */
+    long first(long total) {
+        return Math.max(0, Math.max(total, high) - capacity);
+    }
+
+    /**
+     * 보관 중인 기록 중 i번째(0이 가장 오래된 기록)의 배열 index를 계산한다.
+     * @param total 기준이 되는 전체 기록 개수 (화면 갱신 시점의 count)
+     */
+    int slot(long total, int i) {
+        return (int) (first(total) + i) & mask;
+    }
+
+    /**
+     * 보관 중인 기록 중 from번째(0이 가장 오래된 기록)부터 count개를 복사한다.
+     * 명령어를 수행하는 스레드에서 호출하면 화면은 그 사이에 덮어쓰인 기록을 보지 않는다.
+     *
+     * @param total 기준이 되는 전체 기록 개수 (복사 시점의 count)
+     */
+    public TraceRows copy(long total, int from, int count) {
+        TraceRows rows = new TraceRows();
+        rows.first = from;
+        rows.opcode = new int[count];
+        rows.bits = new int[count];
+        rows.length = new byte[count];
+        for (int i = 0; i < count; i++) {
+            int s = slot(total, from + i);
+            rows.opcode[i] = opcode[s];
+            rows.bits[i] = bits[s];
+            rows.length[i] = length[s];
+        }
+        return rows;
+    }
+
+    /**
+     * 기록을 명령어 이름(log)으로 변환한다.
+     */
+    public String formatLog(long total, int i) {
+        return formatLog(opcode[slot(total, i)]);
+    }
+
+    /**
+     * @param opcodeIndex opcode >> 2
+     * @return 명령어 이름, 모르는 opcode면 빈 문자열
+     */
+    String formatLog(int opcodeIndex) {
+        String name = mnemonic[opcodeIndex];
+        return name == null ? "" : name;
+    }
+
+    /**
+     * 기록을 16진수 명령어 문자열로 변환한다.
+     */
+    public String formatInst(long total, int i) {
+        int s = slot(total, i);
+        return formatInst(bits[s], length[s]);
+    }
+
+    /**
+     * 명령어 bit를 길이만큼의 16진수 문자열로 변환한다.
+     */
+    static String formatInst(int value, int len) {
+        char[] hex = new char[len * 2];
+        for (int j = len * 2 - 1; j >= 0; j--) {
+            hex[j] = ResourceManager.HEX[value & 0xF];
+            value >>>= 4;
+        }
+        return String.valueOf(hex);
+    }
+}
@@ -0,0 +1,101 @@
+package SP20_simulator;
+
+import javax.swing.*;
+
+/**
+ * TraceBuffer의 내용을 JList에 보여주는 list model.
+ * 화면에 보이는 행만 그때그때 문자열로 변환하므로 기록 개수와 상관없이 메모리 사용량이 일정하다.
+ *
+ * 보이는 행의 기록은 명령어를 수행하는 스레드가 SimulatorSnapshot에 복사하고(TraceRows), 화면은 그 복사본으로만 그린다.
+ * EDT는 수행 중에 덮어쓰이는 TraceBuffer를 직접 읽지 않으며, 복사본에 없는 행은 다음 복사까지 비워 둔다.
+ * (수행 중이 아닐 때는 refreshVisible()로 EDT에서 바로 복사한다)
+ */
+class TraceListModel extends AbstractListModel<String> {
+    private static final long serialVersionUID = 1L;
+
+    TraceBuffer trace;
+    boolean showLog;                    //true면 명령어 이름(log), false면 16진수 명령어를 보여준다
+    volatile long total = 0;            //마지막으로 화면에 반영한 전체 기록 개수
+    int size = 0;                       //마지막으로 화면에 반영한 보관 기록 개수
+    TraceRows rows = new TraceRows();   //마지막으로 반영한 snapshot의 기록
+    //화면에 보이는 행 (EDT가 쓰고 명령어를 수행하는 스레드가 읽는다)
+    volatile int visibleFirst = 0;
+    volatile int visibleRows = 0;
+
+    /**
+     * TraceListModel 생성자
+     * @param trace 보여줄 기록
+     * @param showLog true면 명령어 이름, false면 16진수 명령어
+     */
+    public TraceListModel(TraceBuffer trace, boolean showLog) {
+        this.trace = trace;
+        this.showLog = showLog;
+    }
+
+    /**
+     * 화면에 보이는 행을 정한다. EDT에서 호출한다.
+     *
+     * @param first 화면의 첫 행
+     * @param rows  화면에 들어가는 행 수
+     */
+    public void setVisibleRows(int first, int rows) {
+        visibleFirst = Math.max(0, first);
+        visibleRows = Math.max(0, rows);
+    }
+
+    /**
+     * 화면에 보일 행의 기록을 복사한다. 명령어를 수행하는 스레드에서 호출한다.
+     * 기록이 늘거나 줄었으면 화면이 마지막 기록으로 이동하므로 마지막 행들을, 아니면 지금 보이는 행을 복사한다.
+     *
+     * @param newTotal 복사 시점의 전체 기록 개수 (snapshot의 traceCount)
+     */
+    public TraceRows copyVisible(long newTotal) {
+        int newSize = (int) (newTotal - trace.first(newTotal));
+        int rowCount = Math.min(visibleRows, newSize);
+        int first = newTotal != total ? newSize - rowCount : Math.min(visibleFirst, newSize - rowCount);
+        return trace.copy(newTotal, first, rowCount);
+    }
+
+    /**
+     * 화면에 보이는 행을 바로 복사하여 반영한다.
+     * 명령어를 수행하는 스레드가 없을 때(실행 중이 아닐 때) EDT에서 호출한다.
+     */
+    public void refreshVisible() {
+        refresh(total, copyVisible(total));
+    }
+
+    /**
+     * 기록이 추가된 만큼 화면에 알리고 복사된 행을 다시 그리게 한다. EDT에서 호출한다.
+     * @param newTotal 반영할 전체 기록 개수
+     * @param newRows  newTotal 시점에 복사한 기록, 없으면 null
+     */
+    public void refresh(long newTotal, TraceRows newRows) {
+        int oldSize = size;
+        TraceRows oldRows = rows;
+        total = newTotal;
+        rows = newRows != null ? newRows : new TraceRows();
+        size = (int) (newTotal - trace.first(newTotal));
+        if (size < oldSize)
+            fireIntervalRemoved(this, size, oldSize - 1);
+        else if (size > oldSize)
+            fireIntervalAdded(this, oldSize, size - 1);
+        //기록이 밀려나거나 복사본이 바뀌면 같은 행의 내용도 달라지므로 이전과 새 복사본의 행을 다시 그린다
+        int from = Math.min(oldRows.first, rows.first);
+        int to = Math.min(size, Math.max(oldRows.first + oldRows.size(), rows.first + rows.size()));
+        if (from < to)
+            fireContentsChanged(this, from, to - 1);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        if (!rows.contains(index))
+            return "";
+        int i = index - rows.first;
+        return showLog ? trace.formatLog(rows.opcode[i]) : TraceBuffer.formatInst(rows.bits[i], rows.length[i]);
+    }
+}
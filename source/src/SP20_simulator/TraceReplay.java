@@ -0,0 +1,268 @@
+package SP20_simulator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * TraceWriter로 기록한 binary trace를 읽어, 명령어를 수행하지 않고 record만으로 머신 상태를 복원한다.
+ * record를 하나 읽을 때마다 바뀐 레지스터를 반영하므로 원하는 명령어 시점의 레지스터와 log를 만들 수 있다.
+ * VisualSimulator는 이것으로 trace 파일을 열어 화면을 복원한다.
+ *
+ * 사용법 : java SP20_simulator.TraceReplay [trace 파일] [복원할 명령어 개수(생략하면 끝까지)]
+ */
+public class TraceReplay implements Closeable {
+    FileChannel channel;                                    //trace 파일의 channel
+    ByteBuffer input = ByteBuffer.allocateDirect(1 << 17);  //파일 입력 buffer (압축되지 않은 block 하나보다 크다)
+    ByteBuffer block = ByteBuffer.allocate(TraceWriter.BLOCK_SIZE);  //읽고 있는 block
+    byte[] stored = new byte[TraceWriter.BLOCK_SIZE];       //파일에서 읽은 block 내용
+    Inflater inflater = new Inflater();
+    boolean ended = false;  //끝 표시(또는 파일 끝)에 도달했으면 true
+    int finalPc = -1;       //끝 표시에 기록된 마지막 PC 값, 없으면 -1
+
+    //header 정보
+    boolean compressed;         //block 압축 여부
+    String programName;         //Program 이름
+    int startAddress;           //Program의 메모리 시작 주소
+    int totalLength;            //Program 총 길이
+    int firstInstruction;       //Program 첫 명령어의 주소
+
+    //복원된 상태 (마지막으로 읽은 record 기준)
+    int[] register = new int[10];   //레지스터 값
+    double registerF = 0;           //F 레지스터 값
+    int currAddr = 0;               //명령어의 주소
+    int length = 0;                 //명령어의 길이(byte)
+    int bits = 0;                   //명령어 전체 bit
+    int targetAddress = -1;         //Target Address, 없으면 -1
+    String device = "";             //사용한 device 이름, 없으면 빈 문자열
+    long count = 0;                 //지금까지 읽은 record 개수
+
+    /**
+     * TraceReplay 생성자, trace 파일을 열고 header를 읽는다.
+     *
+     * @param file TraceWriter로 기록한 파일
+     * @throws IOException 파일을 읽을 수 없거나 trace 파일이 아닌 경우
+     */
+    public TraceReplay(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        input.flip();
+        if (!fill(TraceWriter.HEADER_SIZE) || input.getInt() != TraceWriter.MAGIC)
+            throw new IOException("not a trace file: " + file.getPath());
+        int version = input.get();
+        compressed = input.get() != 0;
+        int recordSize = input.get();
+        input.get();
+        if (version != TraceWriter.VERSION || recordSize != TraceWriter.RECORD_SIZE)
+            throw new IOException("unsupported trace version " + version + ": " + file.getPath());
+        byte[] name = new byte[6];
+        input.get(name);
+        programName = new String(name, StandardCharsets.US_ASCII);
+        startAddress = input.getInt();
+        totalLength = input.getInt();
+        firstInstruction = input.getInt();
+        for (int i = 0; i < register.length; i++)
+            register[i] = input.getInt();
+        registerF = ResourceManager.bitsToFloat(input.getLong());
+        block.flip();
+    }
+
+    /**
+     * 메인 함수, trace 파일을 지정한 명령어 개수까지 복원하여 화면에 보이는 정보를 출력한다.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: java SP20_simulator.TraceReplay <trace file> [steps]");
+            System.exit(2);
+        }
+        long steps = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        TraceBuffer trace = new TraceBuffer(TraceBuffer.DEFAULT_CAPACITY);
+        for (Instruction inst : InstructionSet.getDefault().values())
+            trace.mnemonic[inst.opcode >> 2] = inst.instruction;
+        try (TraceReplay replay = new TraceReplay(new File(args[0]))) {
+            replay.replay(trace, steps);
+            replay.print(trace, 10);
+        }
+    }
+
+    /**
+     * record를 순서대로 읽어 상태를 복원하고, 읽은 명령어를 trace에 추가한다.
+     *
+     * @param trace 명령어를 추가할 TraceBuffer
+     * @param steps 복원할 명령어 개수 (0 이하면 끝까지)
+     * @return 실제로 복원한 명령어 개수
+     */
+    public long replay(TraceBuffer trace, long steps) throws IOException {
+        long replayed = 0;
+        while ((steps <= 0 || replayed < steps) && next()) {
+            trace.add(currAddr, (bits >>> (length * 8 - 8) & 0xFF) >> 2, bits, length, targetAddress);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * 다음 record 하나를 읽어 상태에 반영한다. PC는 그 다음 record의 주소(없으면 끝 표시의 PC 값)가 된다.
+     *
+     * @return 읽을 record가 없으면 false
+     */
+    public boolean next() throws IOException {
+        if (!block.hasRemaining() && !readBlock())
+            return false;
+        currAddr = getTriple(block);
+        length = block.get();
+        bits = block.getInt();
+        int target = getTriple(block);
+        targetAddress = target == TraceWriter.NO_TARGET ? -1 : target;
+        int deviceNum = block.get() & 0xFF;
+        int flags = block.get();
+        int mask = block.getShort() & 0xFFFF;
+        for (int r = 0; r < register.length; r++) {
+            if ((mask & 1 << r) == 0)
+                continue;
+            if (r == 6) {
+                //F 레지스터의 상위, 하위 24 bit
+                long high = getTriple(block);
+                registerF = ResourceManager.bitsToFloat(high << 24 | getTriple(block));
+            } else {
+                register[r] = getTriple(block);
+            }
+        }
+        device = (flags & TraceWriter.FLAG_DEVICE) != 0
+                ? String.valueOf(new char[]{ResourceManager.HEX[deviceNum >> 4], ResourceManager.HEX[deviceNum & 0xF]}) : "";
+        count++;
+        //수행 후의 PC 값
+        if (block.hasRemaining() || readBlock())
+            register[8] = getTriple(block.duplicate());
+        else if (finalPc >= 0)
+            register[8] = finalPc;
+        return true;
+    }
+
+    static int getTriple(ByteBuffer buffer) {
+        return (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | buffer.get() & 0xFF;
+    }
+
+    /**
+     * 다음 block을 읽어 (압축을 풀어) block buffer에 채운다.
+     *
+     * @return 끝 표시나 파일 끝에 도달했으면 false
+     */
+    boolean readBlock() throws IOException {
+        if (ended)
+            return false;
+        //파일이 중간에 끊긴 경우(기록 중 비정상 종료)에는 거기까지만 복원한다
+        if (!fill(4)) {
+            ended = true;
+            return false;
+        }
+        int rawLength = input.getInt();
+        if (rawLength == 0) {
+            if (fill(4))
+                finalPc = input.getInt();
+            ended = true;
+            return false;
+        }
+        if (!fill(4)) {
+            ended = true;
+            return false;
+        }
+        int storedLength = input.getInt();
+        if (rawLength > TraceWriter.BLOCK_SIZE || storedLength > rawLength)
+            throw new IOException("corrupted trace block");
+        if (!fill(storedLength)) {
+            ended = true;
+            return false;
+        }
+        block.clear();
+        if (storedLength == rawLength) {
+            input.get(block.array(), 0, rawLength);
+        } else {
+            input.get(stored, 0, storedLength);
+            inflater.reset();
+            inflater.setInput(stored, 0, storedLength);
+            try {
+                if (inflater.inflate(block.array(), 0, rawLength) != rawLength)
+                    throw new IOException("corrupted trace block");
+            } catch (DataFormatException e) {
+                throw new IOException("corrupted trace block", e);
+            }
+        }
+        block.limit(rawLength);
+        return true;
+    }
+
+    /**
+     * 입력 buffer에 최소 length byte가 남아 있도록 파일에서 읽는다.
+     *
+     * @return 파일이 끝나 length byte를 채울 수 없으면 false
+     */
+    boolean fill(int length) throws IOException {
+        if (input.remaining() >= length)
+            return true;
+        input.compact();
+        while (input.position() < length) {
+            if (channel.read(input) < 0) {
+                input.flip();
+                return false;
+            }
+        }
+        input.flip();
+        return true;
+    }
+
+    /**
+     * 복원한 상태를 VisualSimulator 화면 갱신용 상태로 만든다.
+     *
+     * @param trace 복원한 명령어가 추가된 TraceBuffer
+     */
+    public SimulatorSnapshot toSnapshot(TraceBuffer trace) {
+        SimulatorSnapshot snapshot = new SimulatorSnapshot();
+        snapshot.register = register.clone();
+        snapshot.registerF = registerF;
+        snapshot.currAddr = currAddr;
+        snapshot.targetAddress = targetAddress;
+        snapshot.device = device;
+        snapshot.traceCount = trace.count;
+        return snapshot;
+    }
+
+    /**
+     * 복원한 상태를 VisualSimulator 화면과 같은 항목으로 출력한다.
+     *
+     * @param trace 복원한 명령어가 추가된 TraceBuffer
+     * @param logs  출력할 최근 log 개수
+     */
+    public void print(TraceBuffer trace, int logs) {
+        System.out.println("program      : " + programName.trim());
+        System.out.println(String.format("start        : %06X", startAddress));
+        System.out.println(String.format("length       : %06X", totalLength));
+        System.out.println(String.format("first inst   : %06X", firstInstruction));
+        System.out.println("instructions : " + count + (ended && !block.hasRemaining() ? " (end of trace)" : ""));
+        for (int i = 0; i < ResourceManager.REGISTER_NAME.length; i++) {
+            if (ResourceManager.REGISTER_NAME[i].isEmpty())
+                continue;
+            if (i == 6)
+                System.out.println(String.format("%-13s: %012X (%s)", "F", ResourceManager.floatToBits(registerF), registerF));
+            else
+                System.out.println(String.format("%-13s: %06X (%d)", ResourceManager.REGISTER_NAME[i], register[i], register[i]));
+        }
+        System.out.println(String.format("inst addr    : %06X", currAddr));
+        System.out.println("target addr  : " + (targetAddress < 0 ? "" : String.format("%06X", targetAddress)));
+        System.out.println("device       : " + device);
+        int size = trace.size();
+        for (int i = Math.max(0, size - logs); i < size; i++)
+            System.out.println(String.format("log          : %-6s %s", trace.formatLog(trace.count, i), trace.formatInst(trace.count, i)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        inflater.end();
+    }
+}
@@ -0,0 +1,26 @@
+package SP20_simulator;
+
+/**
+ * 화면 갱신을 위해 TraceBuffer에서 복사해 둔 연속된 기록.
+ * 명령어를 수행하는 스레드가 복사하고, 화면은 이 복사본으로만 문자열을 만든다.
+ */
+class TraceRows {
+    int first = 0;                  //복사한 첫 기록의 번호 (0이 보관 중인 가장 오래된 기록)
+    int[] opcode = new int[0];      //opcode >> 2
+    int[] bits = new int[0];        //명령어 전체 bit
+    byte[] length = new byte[0];    //명령어의 길이(byte)
+
+    /**
+     * @return 복사한 기록 개수
+     */
+    int size() {
+        return opcode.length;
+    }
+
+    /**
+     * @return i번째 기록(보관 중인 기록 기준)이 복사되어 있으면 true
+     */
+    boolean contains(int i) {
+        return i >= first && i < first + opcode.length;
+    }
+}
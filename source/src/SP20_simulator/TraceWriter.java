@@ -0,0 +1,232 @@
+package SP20_simulator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+/**
+ * 수행한 명령어를 record로 파일에 기록하는 binary trace 기록기.
+ * 기록한 파일은 TraceReplay로 다시 수행하지 않고 화면(레지스터, log, 명령어)을 복원할 수 있다.
+ *
+ * 파일 형식 :
+ *  header : magic "SICT", version, 압축 여부, record 고정 부분 크기, 예약(1), 프로그램 이름(6), 시작 주소, 총 길이, 첫 명령어 주소,
+ *           초기 레지스터 값 10개 (int), 초기 F 레지스터 값 (48 bit 실수, long)
+ *  block  : 원래 길이(int), 저장된 길이(int), 내용. 두 길이가 다르면 내용은 Deflate(LZ77) 압축되어 있다.
+ *  끝     : 원래 길이 0, 마지막 PC 값(int)
+ *
+ * record : 주소(3), 명령어 길이(1), 명령어 bit(4), Target Address(3, 없으면 FFFFFF), device(1), flag(1),
+ *          바뀐 레지스터 bitmask(2, bit 번호 = 레지스터 번호), 바뀐 레지스터 값(번호 순서대로 3 byte씩, F는 6 byte)
+ * 바뀐 레지스터 개수만큼 값이 붙으므로 record 길이는 고정 부분(15 byte)부터 최대 MAX_RECORD_SIZE까지 달라진다.
+ * PC는 다음 record의 주소(마지막은 끝 표시의 PC 값)로 알 수 있으므로 따로 기록하지 않는다.
+ */
+public class TraceWriter implements Closeable {
+    static final int MAGIC = 0x53494354;        //"SICT"
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 74;          //header 크기(byte)
+    static final int RECORD_SIZE = 15;          //record 고정 부분 크기(byte)
+    static final int MAX_RECORD_SIZE = RECORD_SIZE + 8 * 3 + 6;   //모든 레지스터(PC 제외)가 바뀐 record 크기(byte)
+    static final int BLOCK_SIZE = 1 << 16;      //block 하나의 최대 크기(byte)
+    static final int NO_TARGET = 0xFFFFFF;      //Target Address 없음
+    static final int FLAG_DEVICE = 0x1;         //device를 사용한 명령어
+    static final String FILE_SUFFIX = ".sictrace";
+
+    FileChannel channel;                                            //기록할 파일의 channel
+    ByteBuffer output = ByteBuffer.allocateDirect(1 << 16);         //파일 출력 buffer
+    byte[] block = new byte[BLOCK_SIZE];                            //모으고 있는 block
+    ByteBuffer blockBuffer = ByteBuffer.wrap(block);
+    Deflater deflater;                                              //block 압축기 (압축하지 않으면 null)
+    byte[] compressed;                                              //압축된 block
+    int[] shadow = new int[10];                                     //마지막으로 기록한 레지스터 값
+    long shadowF;                                                   //마지막으로 기록한 F 레지스터 값 (48 bit)
+    long recordCount = 0;                                           //기록한 record 개수
+
+    /**
+     * TraceWriter 생성자, 파일을 만들고 load된 프로그램 정보와 현재 레지스터 값을 header에 기록한다.
+     *
+     * @param file     기록할 파일 (있으면 덮어쓴다)
+     * @param compress block을 Deflate로 압축하려면 true
+     * @param loader   프로그램 정보를 가져올 SicLoader (load가 끝난 상태)
+     * @param rMgr     수행 시작 시점의 레지스터 값을 가져올 ResourceManager
+     */
+    public TraceWriter(File file, boolean compress, SicLoader loader, ResourceManager rMgr) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (compress) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            compressed = new byte[BLOCK_SIZE + BLOCK_SIZE / 8 + 64];
+        }
+        output.putInt(MAGIC);
+        output.put((byte) VERSION);
+        output.put((byte) (compress ? 1 : 0));
+        output.put((byte) RECORD_SIZE);
+        output.put((byte) 0);
+        byte[] name = (loader.programName + "      ").substring(0, 6).getBytes(StandardCharsets.US_ASCII);
+        output.put(name);
+        output.putInt(loader.startAddress);
+        output.putInt(loader.totalLength);
+        output.putInt(loader.firstInstruction);
+        for (int i = 0; i < shadow.length; i++) {
+            shadow[i] = rMgr.register[i] & 0xFFFFFF;
+            output.putInt(rMgr.register[i]);
+        }
+        shadowF = ResourceManager.floatToBits(rMgr.register_F);
+        output.putLong(shadowF);
+    }
+
+    /**
+     * 수행한 명령어 하나를 기록한다. 레지스터는 이전 record와 달라진 것만 개수 제한 없이 기록한다.
+     *
+     * @param address       명령어의 주소
+     * @param decoded       수행한 명령어
+     * @param targetAddress Target Address, 없으면 -1
+     * @param device        사용한 device 이름, 없으면 빈 문자열
+     * @param rMgr          명령어 수행 후의 레지스터 값을 가져올 ResourceManager (PC 제외)
+     */
+    public void record(int address, DecodedInstruction decoded, int targetAddress, String device, ResourceManager rMgr) {
+        int flags = 0;
+        int deviceNum = 0;
+        if (!device.isEmpty()) {
+            flags |= FLAG_DEVICE;
+            deviceNum = Integer.parseInt(device, 16);
+        }
+
+        ByteBuffer buffer = blockBuffer;
+        putTriple(buffer, address);
+        buffer.put((byte) decoded.length);
+        buffer.putInt(decoded.bits);
+        putTriple(buffer, targetAddress < 0 ? NO_TARGET : targetAddress);
+        buffer.put((byte) deviceNum);
+        buffer.put((byte) flags);
+        //bitmask 자리를 비워 두고, 바뀐 레지스터의 값을 번호 순서대로 붙인다
+        int maskPosition = buffer.position();
+        buffer.putShort((short) 0);
+        int[] register = rMgr.register;
+        int mask = 0;
+        for (int r = 0; r < shadow.length; r++) {
+            if (r == 6) {
+                long fBits = ResourceManager.floatToBits(rMgr.register_F);
+                if (fBits == shadowF)
+                    continue;
+                shadowF = fBits;
+                putTriple(buffer, (int) (fBits >>> 24));
+                putTriple(buffer, (int) fBits);
+            } else {
+                int value = register[r] & 0xFFFFFF;
+                if (r == 8 || value == shadow[r])
+                    continue;
+                shadow[r] = value;
+                putTriple(buffer, value);
+            }
+            mask |= 1 << r;
+        }
+        buffer.putShort(maskPosition, (short) mask);
+        recordCount++;
+        if (buffer.remaining() < MAX_RECORD_SIZE) {
+            try {
+                flushBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static void putTriple(ByteBuffer buffer, int value) {
+        buffer.put((byte) (value >> 16));
+        buffer.put((byte) (value >> 8));
+        buffer.put((byte) value);
+    }
+
+    /**
+     * 모은 block을 (압축하여) 출력 buffer로 내보낸다.
+     */
+    void flushBlock() throws IOException {
+        int rawLength = blockBuffer.position();
+        if (rawLength == 0)
+            return;
+        byte[] data = block;
+        int storedLength = rawLength;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(block, 0, rawLength);
+            deflater.finish();
+            int length = deflater.deflate(compressed);
+            //압축해도 줄지 않았으면 그대로 저장한다
+            if (deflater.finished() && length < rawLength) {
+                data = compressed;
+                storedLength = length;
+            }
+        }
+        putInt(rawLength);
+        putInt(storedLength);
+        put(data, storedLength);
+        blockBuffer.clear();
+    }
+
+    void putInt(int value) throws IOException {
+        if (output.remaining() < 4)
+            drain();
+        output.putInt(value);
+    }
+
+    void put(byte[] data, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            if (!output.hasRemaining())
+                drain();
+            int count = Math.min(length - offset, output.remaining());
+            output.put(data, offset, count);
+            offset += count;
+        }
+    }
+
+    /**
+     * 출력 buffer의 내용을 파일에 쓴다.
+     */
+    void drain() throws IOException {
+        output.flip();
+        while (output.hasRemaining())
+            channel.write(output);
+        output.clear();
+    }
+
+    /**
+     * 남은 record와 끝 표시를 기록하고 파일을 닫는다.
+     *
+     * @param finalPc 수행을 마친 시점의 PC 값
+     */
+    public void close(int finalPc) throws IOException {
+        if (channel == null)
+            return;
+        try {
+            flushBlock();
+            putInt(0);
+            putInt(finalPc);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 끝 표시 없이 남은 record만 기록하고 파일을 닫는다. (마지막 PC는 알 수 없는 것으로 남는다)
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null)
+            return;
+        try {
+            flushBlock();
+            drain();
+        } finally {
+            channel.close();
+            channel = null;
+            if (deflater != null)
+                deflater.end();
+        }
+    }
+}
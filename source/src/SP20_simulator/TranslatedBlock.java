@@ -0,0 +1,24 @@
+package SP20_simulator;
+
+/**
+ * 분기 명령어(J, JEQ, JGT, JLT, JSUB, RSUB)로 끝나는 연속된 명령어들의 묶음.
+ * 수행할 때 명령어마다 cache를 찾지 않고 미리 해석된 명령어들을 순서대로 수행한다.
+ */
+class TranslatedBlock {
+
+    final int start;                    //block의 시작 주소
+    final int end;                      //block의 끝 주소 (마지막 명령어 다음 주소)
+    final DecodedInstruction[] insts;   //block을 이루는 명령어들
+    boolean valid = true;               //메모리 쓰기로 무효화되면 false
+    int runs = 0;                       //block 단위로 수행된 횟수 (bytecode 번역 시점 판단용)
+    CompiledBlock compiled;             //JVM bytecode로 번역된 block, 아직 번역하지 않았거나 번역할 수 없으면 null
+
+    /**
+     * TranslatedBlock 생성자
+     */
+    public TranslatedBlock(int start, int end, DecodedInstruction[] insts) {
+        this.start = start;
+        this.end = end;
+        this.insts = insts;
+    }
+}
@@ -0,0 +1,179 @@
+package SP20_simulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * 명령어를 되돌리기(step back) 위한 변경 기록.
+ * 명령어가 바꾼 레지스터, 메모리, device 위치의 "이전 값"만 long 하나씩으로 저장하는 ring buffer이다.
+ * 명령어마다 시작 표시(MARK)를 남기므로, 되돌릴 때는 MARK가 나올 때까지 거꾸로 이전 값을 적용한다.
+ *
+ * 기록 형식 : kind(상위 8 bit) | index(24 bit) | value(하위 32 bit)
+ * 용량이 가득 차면 가장 오래된 명령어의 기록부터 통째로 버린다.
+ */
+public class UndoJournal {
+    //기본 기록 개수 (16 Mbyte)
+    static final int DEFAULT_CAPACITY = 1 << 21;
+
+    //기록 종류
+    static final int MARK = 1;         //명령어 시작
+    static final int REGISTER = 2;     //index : 레지스터 번호, value : 이전 값
+    static final int BYTE = 3;         //index : 메모리 주소, value : 이전 값
+    static final int WORD = 4;         //index : 메모리 주소, value : 이전 값
+    static final int DEVICE = 5;       //index : device 번호, value : 읽기(0), 출력(1)
+    static final int REGISTER_F = 6;   //value : 이전 F 값의 상위 32 bit (다음 기록에 하위 32 bit)
+
+    long[] entries;     //기록
+    int mask;           //index 계산용 mask
+    long start = 0;     //가장 오래된 기록의 위치 (항상 MARK)
+    long end = 0;       //다음 기록이 들어갈 위치
+    ArrayList<String> deviceNames = new ArrayList<>();  //DEVICE 기록의 device 번호에 해당하는 이름
+
+    /**
+     * UndoJournal 생성자
+     * @param capacity 보관할 최대 기록 개수, 2의 거듭제곱으로 올림한다
+     */
+    public UndoJournal(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        entries = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * 기록 하나를 추가한다. 가득 찼으면 가장 오래된 명령어의 기록을 버린다.
+     */
+    void add(int kind, int index, int value) {
+        //명령어 수행 밖의 변경(프로그램 load 등)은 기록하지 않는다
+        if (end == start && kind != MARK)
+            return;
+        if (end - start == entries.length) {
+            //다음 MARK까지 버린다
+            start++;
+            while (start < end && kind(entries[(int) start & mask]) != MARK)
+                start++;
+        }
+        entries[(int) end & mask] = (long) kind << 56 | (long) (index & 0xFFFFFF) << 32 | (value & 0xFFFFFFFFL);
+        end++;
+    }
+
+    static int kind(long entry) {
+        return (int) (entry >>> 56);
+    }
+
+    static int index(long entry) {
+        return (int) (entry >>> 32) & 0xFFFFFF;
+    }
+
+    static int value(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * 명령어 하나의 시작을 기록한다. (비교 결과는 SW 레지스터에 있으므로 REGISTER 기록으로 되돌린다)
+     */
+    public void mark() {
+        add(MARK, 0, 0);
+    }
+
+    /**
+     * 레지스터의 이전 값을 기록한다.
+     */
+    public void recordRegister(int regNum, int oldValue) {
+        add(REGISTER, regNum, oldValue);
+    }
+
+    /**
+     * F 레지스터의 이전 값을 기록한다.
+     */
+    public void recordRegisterF(double oldValue) {
+        long bits = Double.doubleToRawLongBits(oldValue);
+        add(REGISTER_F, 0, (int) (bits >>> 32));
+        add(REGISTER_F, 1, (int) bits);
+    }
+
+    /**
+     * 메모리 1 byte의 이전 값을 기록한다.
+     */
+    public void recordByte(int location, int oldValue) {
+        add(BYTE, location, oldValue);
+    }
+
+    /**
+     * 메모리 1 word의 이전 값을 기록한다.
+     */
+    public void recordWord(int location, int oldValue) {
+        add(WORD, location, oldValue);
+    }
+
+    /**
+     * device에서 1 byte를 읽었거나 출력했음을 기록한다.
+     */
+    public void recordDevice(String devName, boolean writeMode) {
+        int index = deviceNames.indexOf(devName);
+        if (index < 0) {
+            index = deviceNames.size();
+            deviceNames.add(devName);
+        }
+        add(DEVICE, index, writeMode ? 1 : 0);
+    }
+
+    /**
+     * @return 되돌릴 수 있는 명령어가 있으면 true
+     */
+    public boolean canUndo() {
+        return end > start;
+    }
+
+    /**
+     * 마지막 명령어 하나의 변경을 되돌린다. 되돌리는 동안의 변경은 기록하지 않는다.
+     *
+     * @param rMgr 되돌릴 ResourceManager
+     * @return 되돌렸으면 true, 되돌릴 명령어가 없으면 false
+     */
+    public boolean undo(ResourceManager rMgr) throws IOException {
+        if (!canUndo())
+            return false;
+        rMgr.journal = null;
+        try {
+            long fLow = 0;
+            while (end > start) {
+                long entry = entries[(int) --end & mask];
+                switch (kind(entry)) {
+                    case MARK:
+                        return true;
+                    case REGISTER:
+                        rMgr.setRegister(index(entry), value(entry));
+                        break;
+                    case REGISTER_F:
+                        //하위 32 bit가 먼저 나온다
+                        if (index(entry) == 1)
+                            fLow = value(entry) & 0xFFFFFFFFL;
+                        else
+                            rMgr.register_F = Double.longBitsToDouble((long) value(entry) << 32 | fLow);
+                        break;
+                    case BYTE:
+                        rMgr.writeByte(index(entry), value(entry));
+                        break;
+                    case WORD:
+                        rMgr.writeWord(index(entry), value(entry));
+                        break;
+                    case DEVICE:
+                        rMgr.rewindDevice(deviceNames.get(index(entry)));
+                        break;
+                }
+            }
+            return true;
+        } finally {
+            rMgr.journal = this;
+        }
+    }
+
+    /**
+     * 기록을 모두 지운다.
+     */
+    public void clear() {
+        start = 0;
+        end = 0;
+        deviceNames.clear();
+    }
+}
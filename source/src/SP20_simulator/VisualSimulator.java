@@ -1,11 +1,15 @@
 package SP20_simulator;
 
+import javax.management.JMException;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * VisualSimulator는 사용자와의 상호작용을 담당한다.<br>
@@ -22,7 +26,7 @@ public class VisualSimulator extends JFrame {
     private JPanel mainPanel;
     private JTextField JTextFieldFileName;
     private JButton JButtonOpen;
-    private JTextArea JTextAreaLog;
+    private JList<String> JListLog;
     private JTextField JTextFieldADec;
     private JTextField JTextFieldAHex;
     private JTextField JTextFieldXDec;
@@ -43,14 +47,43 @@ public class VisualSimulator extends JFrame {
     private JTextField JTextFieldInstStartAddr;
     private JTextField JTextFieldDevice;
     private JButton JButton1Step;
+    private JButton JButtonBack;
     private JButton JButtonAll;
+    private JButton JButtonBreak;
+    private JButton JButtonStop;
     private JButton JButtonExit;
     private JTextField JTextFieldTargetAddr;
     private JTextField JTextFieldProgramName;
     private JTextField JTextFieldStartAddr;
     private JTextField JTextFieldProgramLength;
     private JPanel JPanelInstruction;
-    private JList JListInstruction;
+    private JList<String> JListInstruction;
+    private JList<Integer> JListMemory;
+    private JTextField JTextFieldMemoryAddr;
+    //실행(All)을 수행 중인 작업 스레드, 수행 중이 아니면 null
+    private AllStepWorker allStepWorker;
+    //실행(All) 중에 종료를 요청했으면 true, 작업 스레드가 끝나면 종료한다
+    private boolean exitRequested = false;
+    //log와 명령어 목록을 trace에서 바로 읽어 보여주는 list model
+    private TraceListModel logModel;
+    private TraceListModel instModel;
+    //메모리 내용을 화면에 보이는 행만 읽어 보여주는 list model
+    private MemoryListModel memoryModel;
+    //레지스터 화면의 view model (바뀐 field만 다시 쓴다)
+    private RegisterViewModel registerView = new RegisterViewModel();
+    //EDT에 반영을 예약한 최신 상태, 예약이 없으면 null
+    private final AtomicReference<SimulatorSnapshot> pendingSnapshot = new AtomicReference<>();
+    //마지막으로 화면에 반영한 명령어 기록 개수
+    private long shownTraceCount = -1;
+    //수행 통계 (JMX MBean으로 등록)
+    SimulatorMetrics metrics = new SimulatorMetrics(sicSimulator);
+
+    //실행(All) 중 화면 갱신 간격 (30 Hz)
+    static final long FRAME_INTERVAL = 1_000_000_000L / 30;
+    //실행(All) 중 갱신 시간을 확인하기 전에 연속으로 수행할 명령어 개수
+    static final int STEP_CHUNK = 1024;
+    //되돌리기용 변경 기록 개수
+    static final int UNDO_CAPACITY = UndoJournal.DEFAULT_CAPACITY;
 
     /**
      * 메인 함수
@@ -65,27 +98,142 @@ public class VisualSimulator extends JFrame {
      */
     public VisualSimulator(String title) {
         super(title);
-        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        //창을 닫을 때도 Exit 버튼처럼 device들을 닫아 buffer에 남은 출력을 파일에 쓴 뒤 종료한다
+        this.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                exit();
+            }
+        });
         this.setContentPane(mainPanel);
         this.pack();
         this.setResizable(false);
+        //이전(Back) 버튼을 위해 변경 기록 시작
+        sicSimulator.enableUndo(UNDO_CAPACITY);
+        //수행 통계를 JMX로 볼 수 있도록 등록
+        try {
+            metrics.register("gui");
+        } catch (JMException exception) {
+            exception.printStackTrace();
+        }
 
         //GUI form에서 생성하지 못한 명령어 기록 생성
-        JListInstruction = new JList(new DefaultListModel());
+        instModel = new TraceListModel(sicSimulator.trace, false);
+        JListInstruction = new JList<>(instModel);
+        JListInstruction.setPrototypeCellValue("00000000");
         JListInstruction.setSize(100, 250);
         JListInstruction.setVisibleRowCount(8);
         JListInstruction.setAutoscrolls(true);
-        JPanelInstruction.add(new JScrollPane(JListInstruction));
+        JScrollPane instScrollPane = new JScrollPane(JListInstruction);
+        JPanelInstruction.add(instScrollPane);
+        watchVisibleRows(JListInstruction, instScrollPane.getViewport(), instModel);
+        //log 기록도 trace에서 읽어오도록 연결
+        logModel = new TraceListModel(sicSimulator.trace, true);
+        JListLog.setModel(logModel);
+        JListLog.setPrototypeCellValue("SHIFTL");
+        JViewport logViewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, JListLog);
+        if (logViewport != null)
+            watchVisibleRows(JListLog, logViewport, logModel);
+        //레지스터 화면 연결
+        registerView.bindRegister(0, JTextFieldADec, JTextFieldAHex);
+        registerView.bindRegister(1, JTextFieldXDec, JTextFieldXHex);
+        registerView.bindRegister(2, JTextFieldLDec, JTextFieldLHex);
+        registerView.bindRegister(3, JTextFieldBDec, JTextFieldBHex);
+        registerView.bindRegister(4, JTextFieldSDec, JTextFieldSHex);
+        registerView.bindRegister(5, JTextFieldTDec, JTextFieldTHex);
+        registerView.bindRegister(6, null, JTextFieldFHex);
+        registerView.bindRegister(8, JTextFieldPCDec, JTextFieldPCHex);
+        registerView.bindRegister(9, null, JTextFieldSWHex);
+        registerView.bindInstruction(JTextFieldInstStartAddr, JTextFieldTargetAddr, JTextFieldDevice);
+        //메모리 화면 생성 (창 아래쪽)
+        mainPanel.add(createMemoryPanel(), BorderLayout.SOUTH);
+        this.pack();
 
         //각 버튼에 ActionListener 추가
         JButtonOpen.addActionListener(new JButtonOpenActionListener());
         JButton1Step.addActionListener(new JButton1StepActionListener());
+        JButtonBack.addActionListener(new JButtonBackActionListener());
         JButtonAll.addActionListener(new JButtonAllActionListener());
+        JButtonBreak.addActionListener(new JButtonBreakActionListener());
+        JButtonStop.addActionListener(new JButtonStopActionListener());
         JButtonExit.addActionListener(new JButtonExitActionListener());
 
         this.setVisible(true);
     }
 
+    /**
+     * 명령어 기록 list의 보이는 행이 바뀔 때마다 model에 알려 실행 중에도 그 행만 복사하게 한다.
+     */
+    private void watchVisibleRows(JList<String> list, JViewport viewport, TraceListModel model) {
+        viewport.addChangeListener(e -> {
+            //prototype cell로 정해진 행 높이로 화면에 들어가는 행 수를 계산한다 (list가 짧아도 화면 전체만큼 복사한다)
+            int rowHeight = Math.max(1, list.getFixedCellHeight());
+            model.setVisibleRows(list.getFirstVisibleIndex(), viewport.getExtentSize().height / rowHeight + 1);
+            //실행 중이 아니면 새로 보이는 행을 바로 복사한다 (실행 중에는 다음 갱신 때 복사된다)
+            if (allStepWorker == null)
+                model.refreshVisible();
+        });
+    }
+
+    /**
+     * 메모리 hex dump 화면을 만든다. 주소 입력란에 16진수 주소나 symbol 이름(예: BUFFER)을 넣으면 그 위치로 이동한다.
+     * list는 화면에 보이는 행만 그리고, 보이는 행이 바뀔 때마다 model에 알려 실행 중에도 그 행만 복사하게 한다.
+     */
+    private JPanel createMemoryPanel() {
+        memoryModel = new MemoryListModel(resourceManager);
+        JListMemory = new JList<>(memoryModel);
+        JListMemory.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        new MemoryCellRenderer(memoryModel).install(JListMemory);
+        JListMemory.setVisibleRowCount(8);
+        JScrollPane scrollPane = new JScrollPane(JListMemory);
+        scrollPane.getViewport().addChangeListener(e -> {
+            memoryModel.setVisibleRows(JListMemory.getFirstVisibleIndex(), JListMemory.getLastVisibleIndex());
+            //실행 중이 아니면 새로 보이는 행을 바로 복사한다 (실행 중에는 다음 갱신 때 복사된다)
+            if (allStepWorker == null)
+                memoryModel.refreshVisible();
+        });
+
+        JTextFieldMemoryAddr = new JTextField(10);
+        JTextFieldMemoryAddr.addActionListener(e -> {
+            String text = JTextFieldMemoryAddr.getText().trim().toUpperCase();
+            try {
+                int address = resourceManager.symtab.search(text);
+                showMemory(address >= 0 ? address : Integer.parseInt(text, 16));
+            } catch (IllegalArgumentException exception) {
+                JOptionPane.showMessageDialog(VisualSimulator.frame, "[잘못된 주소입니다.]\n" + text,
+                        "메모리", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+        JPanel addressPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        addressPanel.add(new JLabel("주소 (16진수 또는 symbol)"));
+        addressPanel.add(JTextFieldMemoryAddr);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBorder(BorderFactory.createTitledBorder("Memory"));
+        panel.add(addressPanel, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        return panel;
+    }
+
+    /**
+     * 메모리 화면의 맨 위에 해당 주소의 행이 오도록 이동한다.
+     *
+     * @param address 보여줄 메모리 주소
+     * @throws IllegalArgumentException 메모리 범위를 벗어난 경우
+     */
+    void showMemory(int address) {
+        if (address < 0 || address >= resourceManager.memorySize)
+            throw new IllegalArgumentException(Integer.toHexString(address));
+        int row = address / MemoryListModel.ROW_SIZE;
+        Rectangle bounds = JListMemory.getCellBounds(row, row);
+        if (bounds == null)
+            return;
+        bounds.height = JListMemory.getVisibleRect().height;
+        JListMemory.scrollRectToVisible(bounds);
+        JListMemory.setSelectedIndex(row);
+    }
+
     /**
      * Open 버튼의 ActionListener
      * Object Program 파일을 열고 load
@@ -102,11 +250,15 @@ public class VisualSimulator extends JFrame {
             String fileName = fileDialog.getFile();
             String path = fileDialog.getDirectory() + fileName;
 
-            //Object Program Load 하기
+            //Object Program Load 하기 (binary trace 파일이면 수행하지 않고 화면만 복원)
             try {
-                load(new File(path));
+                if (path.endsWith(TraceWriter.FILE_SUFFIX))
+                    loadTrace(new File(path));
+                else
+                    load(new File(path));
             } catch (IOException ioException) {
-                ioException.printStackTrace();
+                JOptionPane.showMessageDialog(null, "[파일을 읽을 수 없습니다.]\n" + ioException.getMessage(),
+                        "load 실패", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
@@ -127,6 +279,22 @@ public class VisualSimulator extends JFrame {
         }
     }
 
+    /**
+     * 이전 버튼의 ActionListener
+     * 마지막으로 수행한 명령어 1개를 되돌린다
+     */
+    private class JButtonBackActionListener implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            try {
+                stepBack();
+            } catch (IOException ioException) {
+                ioException.printStackTrace();
+            }
+        }
+    }
+
     /**
      * ALl 버튼의 ActionListener
      * Object Program의 명렁을 종료 시까지 실행
@@ -143,6 +311,76 @@ public class VisualSimulator extends JFrame {
         }
     }
 
+    /**
+     * 중단점 버튼의 ActionListener
+     * 중단점과 감시점을 추가하거나 지운다. 실행(All)은 중단점 앞 또는 감시 중인 메모리에 쓴 직후 멈춘다.
+     */
+    private class JButtonBreakActionListener implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String current = sicSimulator.breakpoints.toString();
+            String command = JOptionPane.showInputDialog(VisualSimulator.frame,
+                    "중단점 : 주소(16진수) [조건]    예) 1033, 1033 A>=5\n"
+                            + "감시점 : W 주소(16진수) [길이]    예) W 1000 3\n"
+                            + "앞에 -를 붙이면 삭제, CLEAR는 모두 삭제\n\n"
+                            + "현재 : " + (current.isEmpty() ? "없음" : current),
+                    "중단점", JOptionPane.PLAIN_MESSAGE);
+            if (command == null || command.trim().isEmpty())
+                return;
+            try {
+                applyBreakpointCommand(command.trim().toUpperCase());
+            } catch (IllegalArgumentException exception) {
+                JOptionPane.showMessageDialog(VisualSimulator.frame, "[잘못된 입력입니다.]\n" + command,
+                        "중단점", JOptionPane.WARNING_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * 중단점 버튼에서 입력받은 명령을 적용한다.
+     *
+     * @param command 대문자로 바꾼 명령 (예: "1033", "1033 A>=5", "-1033", "W 1000 3", "-W 1000", "CLEAR")
+     * @throws IllegalArgumentException 형식이 맞지 않는 경우
+     */
+    void applyBreakpointCommand(String command) {
+        if (command.equals("CLEAR")) {
+            sicSimulator.clearBreakpoints();
+            return;
+        }
+        boolean remove = command.startsWith("-");
+        if (remove)
+            command = command.substring(1).trim();
+        String[] token = command.split("\\s+", 2);
+        if (token[0].equals("W")) {
+            //감시점 : W 주소 [길이]
+            if (token.length < 2)
+                throw new IllegalArgumentException(command);
+            String[] range = token[1].split("\\s+");
+            int length = range.length > 1 ? Integer.parseInt(range[1]) : 1;
+            sicSimulator.setWatchpoint(Integer.parseInt(range[0], 16), length, !remove);
+        } else if (remove) {
+            sicSimulator.removeBreakpoint(Integer.parseInt(token[0], 16));
+        } else {
+            //중단점 : 주소 [조건]
+            BreakCondition condition = token.length > 1 ? BreakCondition.parse(token[1]) : null;
+            sicSimulator.addBreakpoint(Integer.parseInt(token[0], 16), condition);
+        }
+    }
+
+    /**
+     * 정지 버튼의 ActionListener
+     * 실행(All) 중인 작업을 멈춘다. 멈춘 위치에서 1Step 또는 All로 이어서 실행할 수 있다.
+     */
+    private class JButtonStopActionListener implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            if (allStepWorker != null)
+                allStepWorker.requestStop();
+        }
+    }
+
     /**
      * Exit 버튼의 ActionListener
      * 프로그램을 종료
@@ -151,15 +389,28 @@ public class VisualSimulator extends JFrame {
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            try {
-                resourceManager.closeDevice();
-                System.exit(0);
-            } catch (IOException ioException) {
-                ioException.printStackTrace();
-            }
+            exit();
         }
     }
 
+    /**
+     * device들을 닫고 프로그램을 종료한다. Exit 버튼과 창 닫기에서 호출한다.
+     * 실행(All) 중이면 작업 스레드에 정지를 요청하고, 작업 스레드가 device 사용을 끝낸 뒤(done)에 닫고 종료한다.
+     */
+    void exit() {
+        if (allStepWorker != null) {
+            exitRequested = true;
+            allStepWorker.requestStop();
+            return;
+        }
+        try {
+            resourceManager.closeDevice();
+        } catch (IOException ioException) {
+            ioException.printStackTrace();
+        }
+        System.exit(0);
+    }
+
     /**
      * 프로그램 로드 명령을 전달한다.
      */
@@ -170,7 +421,10 @@ public class VisualSimulator extends JFrame {
             JTextFieldFileName.setText(program.getName());
             sicSimulator.load(program);
             sicLoader.load(program);
+            //load로 채운 내용은 쓰기로 강조하지 않는다
+            resourceManager.dirty.clear();
             initInfo();
+            showMemory(sicLoader.startAddress);
         }
         // 파일이 없으면
         else
@@ -179,11 +433,50 @@ public class VisualSimulator extends JFrame {
     }
 
 
+    /**
+     * SicRunner --trace로 기록한 binary trace 파일을 열어, 명령어를 수행하지 않고 마지막 상태의 화면을 복원한다.
+     * 복원한 화면은 보기 전용이므로 1Step, All 버튼은 비활성화한다.
+     */
+    public void loadTrace(File file) throws IOException {
+        if (!file.exists()) {
+            JOptionPane.showMessageDialog(null, "[지정된 파일을 찾을 수 없습니다.]\n" + file.getPath(),
+                    "파일 없음", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        //이전 프로그램의 메모리, log, 되돌리기 기록 초기화
+        sicSimulator.load(file);
+        try (TraceReplay replay = new TraceReplay(file)) {
+            replay.replay(sicSimulator.trace, 0);
+            JTextFieldFileName.setText(file.getName());
+            JTextFieldProgramName.setText(replay.programName);
+            JTextFieldStartAddr.setText(String.format("%06X", replay.startAddress));
+            JTextFieldProgramLength.setText(String.format("%06X", replay.totalLength));
+            JTextFieldFirstInst.setText(String.format("%06X", replay.firstInstruction));
+            SimulatorSnapshot snapshot = replay.toSnapshot(sicSimulator.trace);
+            copyTraceRows(snapshot);
+            requestUpdate(snapshot);
+        }
+        JButton1Step.setEnabled(false);
+        JButtonAll.setEnabled(false);
+    }
+
     /**
      * 하나의 명령어만 수행할 것을 SicSimulator에 요청한다.
      */
     public void oneStep() throws IOException {
+        sicSimulator.stopReason = Breakpoints.NONE;
         if (sicSimulator.oneStep() == false) {
+            //주소 오류나 잘못된 opcode라면 알리고, 되돌리거나 살펴볼 수 있도록 그대로 둔다
+            if (sicSimulator.stopReason == Breakpoints.ADDRESS_ERROR) {
+                showAddressError();
+                update();
+                return;
+            }
+            if (sicSimulator.stopReason == Breakpoints.INVALID_OPCODE) {
+                showInvalidOpcode();
+                update();
+                return;
+            }
             //프로그램이 종료되면 버튼을 비활성화하고 device들을 전부 닫는다
             JButton1Step.setEnabled(false);
             JButtonAll.setEnabled(false);
@@ -193,85 +486,208 @@ public class VisualSimulator extends JFrame {
         update();
     }
 
+    /**
+     * 명령어가 메모리 크기를 벗어난 주소에 접근하여 멈췄음을 알린다.
+     */
+    void showAddressError() {
+        JOptionPane.showMessageDialog(VisualSimulator.frame,
+                String.format("명령어 %06X가 메모리 크기(%06X)를 벗어난 주소 %06X에 접근하여 멈췄습니다.",
+                        sicSimulator.currAddr, resourceManager.memorySize, sicSimulator.stopAddress),
+                "주소 오류", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * 정의되지 않은 opcode를 만나 멈췄음을 알린다.
+     */
+    void showInvalidOpcode() {
+        JOptionPane.showMessageDialog(VisualSimulator.frame,
+                String.format("주소 %06X의 opcode %02X는 정의되지 않은 명령어이므로 멈췄습니다.",
+                        sicSimulator.stopAddress, resourceManager.readByte(sicSimulator.stopAddress)),
+                "잘못된 명령어", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * 마지막으로 수행한 명령어 1개를 되돌릴 것을 SicSimulator에 요청한다.
+     */
+    public void stepBack() throws IOException {
+        if (allStepWorker != null || sicSimulator.stepBack(1) == 0)
+            return;
+        //끝난 프로그램을 되돌렸으면 다시 실행할 수 있게 한다
+        JButton1Step.setEnabled(true);
+        JButtonAll.setEnabled(true);
+        //GUI 업데이트
+        update();
+    }
+
     /**
      * 남아있는 모든 명령어를 수행할 것을 SicSimulator에 요청한다.
+     * 명령어 수행은 작업 스레드에서 하고, 화면은 일정 간격으로만 갱신한다.
      */
     public void allStep() throws IOException {
-        while (sicSimulator.allStep()) {
+        if (allStepWorker != null)
+            return;
+        //수행 중에는 정지 버튼만 사용할 수 있게 한다
+        setRunning(true);
+        allStepWorker = new AllStepWorker();
+        allStepWorker.execute();
+    }
+
+    /**
+     * 실행(All) 수행 여부에 따라 버튼 상태를 바꾼다.
+     */
+    private void setRunning(boolean running) {
+        JButtonOpen.setEnabled(!running);
+        JButton1Step.setEnabled(!running);
+        JButtonAll.setEnabled(!running);
+        JButtonStop.setEnabled(running);
+        JButtonBack.setEnabled(!running && sicSimulator.canStepBack());
+    }
+
+    /**
+     * 실행(All)을 수행하는 작업 스레드.
+     * 명령어를 묶음 단위로 수행하다가 갱신 간격이 지나면 현재 상태를 화면에 전달한다.
+     *
+     * 멈출 때는 cancel 대신 정지 요청 flag를 사용한다. cancel은 doInBackground가 끝나기 전에 done을 부르므로,
+     * device를 닫는 done이 아직 명령어를 수행 중인 작업 스레드와 겹칠 수 있기 때문이다.
+     */
+    private class AllStepWorker extends SwingWorker<Boolean, Void> {
+        //정지 요청 여부 (EDT가 쓰고 작업 스레드가 읽는다)
+        private volatile boolean stopRequested = false;
+
+        /**
+         * 현재 명령어 묶음을 마친 뒤 멈추도록 요청한다. 멈추면 done이 호출된다.
+         */
+        void requestStop() {
+            stopRequested = true;
+        }
+
+        @Override
+        protected Boolean doInBackground() {
+            long nextFrame = System.nanoTime() + FRAME_INTERVAL;
+            while (!stopRequested) {
+                //프로그램이 끝나면 종료
+                if (sicSimulator.run(STEP_CHUNK))
+                    return true;
+                //갱신 간격이 지났으면 현재 상태 전달
+                long now = System.nanoTime();
+                if (now >= nextFrame) {
+                    //밀린 갱신은 하나로 합쳐 마지막 상태만 화면에 반영된다
+                    requestUpdate(takeSnapshot());
+                    nextFrame = now + FRAME_INTERVAL;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        protected void done() {
+            allStepWorker = null;
+            boolean halted = false;
+            try {
+                halted = get();
+            } catch (Exception exception) {
+                exception.printStackTrace();
+            }
+            //작업 스레드가 끝났으므로 device를 닫고 종료해도 된다
+            if (exitRequested) {
+                exit();
+                return;
+            }
+            setRunning(false);
+            //중단점이나 감시점에서 멈췄으면 알린다
+            if (!halted && sicSimulator.stopReason == Breakpoints.BREAKPOINT)
+                JOptionPane.showMessageDialog(VisualSimulator.frame,
+                        String.format("중단점 %06X에서 멈췄습니다.", sicSimulator.stopAddress), "중단점", JOptionPane.INFORMATION_MESSAGE);
+            else if (!halted && sicSimulator.stopReason == Breakpoints.WATCHPOINT)
+                JOptionPane.showMessageDialog(VisualSimulator.frame,
+                        String.format("감시 중인 메모리 %06X에 쓰기가 일어나 멈췄습니다.", sicSimulator.stopAddress), "감시점", JOptionPane.INFORMATION_MESSAGE);
+            else if (!halted && sicSimulator.stopReason == Breakpoints.ADDRESS_ERROR)
+                showAddressError();
+            else if (!halted && sicSimulator.stopReason == Breakpoints.INVALID_OPCODE)
+                showInvalidOpcode();
+            if (halted) {
+                //끝까지 실행한 후에 버튼을 비활성화하고 device들을 전부 닫는다
+                JButton1Step.setEnabled(false);
+                JButtonAll.setEnabled(false);
+                try {
+                    resourceManager.closeDevice();
+                } catch (IOException ioException) {
+                    ioException.printStackTrace();
+                }
+            }
+            //GUI 업데이트
             update();
         }
-        //끝까지 실행한 후에 버튼을 비활성화하고 device들을 전부 닫는다
-        JButton1Step.setEnabled(false);
-        JButtonAll.setEnabled(false);
-        resourceManager.closeDevice();
-        //GUI 업데이트
-        update();
+    }
+
+    /**
+     * 현재 시뮬레이터 상태를 복사한다. 명령어를 수행하는 스레드에서 호출한다.
+     */
+    private SimulatorSnapshot takeSnapshot() {
+        SimulatorSnapshot snapshot = new SimulatorSnapshot();
+        snapshot.register = resourceManager.register.clone();
+        snapshot.registerF = resourceManager.register_F;
+        snapshot.currAddr = sicSimulator.currAddr;
+        snapshot.targetAddress = sicSimulator.instLuncher.targetAddress;
+        snapshot.device = sicSimulator.instLuncher.currDevice;
+        snapshot.traceCount = sicSimulator.trace.count;
+        copyTraceRows(snapshot);
+        //메모리 화면에 보이는 행만 복사
+        memoryModel.copyVisible(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * log와 명령어 화면에 보일 기록을 snapshot의 기록 개수 기준으로 복사한다. 명령어를 수행하는 스레드에서 호출한다.
+     */
+    private void copyTraceRows(SimulatorSnapshot snapshot) {
+        snapshot.logRows = logModel.copyVisible(snapshot.traceCount);
+        snapshot.instRows = instModel.copyVisible(snapshot.traceCount);
     }
 
     /**
      * 화면을 최신값으로 갱신하는 역할을 수행한다.
      */
     public void update() {
-        //각 레지스터 값 가져오기
-        int A = resourceManager.getRegister(0);
-        int X = resourceManager.getRegister(1);
-        int L = resourceManager.getRegister(2);
-        int B = resourceManager.getRegister(3);
-        int S = resourceManager.getRegister(4);
-        int T = resourceManager.getRegister(5);
-        int F = 0;
-        int PC = resourceManager.getRegister(8);
-        int SW = 0;
-
-        //A 레지스터 업데이트
-        JTextFieldADec.setText(String.format("%d", A));
-        JTextFieldAHex.setText(String.format("%06X", A));
-        //X 레지스터 업데이트
-        JTextFieldXDec.setText(String.format("%d", X));
-        JTextFieldXHex.setText(String.format("%06X", X));
-        //L 레지스터 업데이트
-        JTextFieldLDec.setText(String.format("%d", L));
-        JTextFieldLHex.setText(String.format("%06X", L));
-        //PC 레지스터 업데이트
-        JTextFieldPCDec.setText(String.format("%d", PC / 2));
-        JTextFieldPCHex.setText(String.format("%06X", PC / 2));
-        //SW 레지스터 업데이트
-        JTextFieldSWHex.setText(String.format("%06X", SW));
-        //B 레지스터 업데이트
-        JTextFieldBDec.setText(String.format("%d", B));
-        JTextFieldBHex.setText(String.format("%06X", B));
-        //S 레지스터 업데이트
-        JTextFieldSDec.setText(String.format("%d", S));
-        JTextFieldSHex.setText(String.format("%06X", S));
-        //T 레지스터 업데이트
-        JTextFieldTDec.setText(String.format("%d", T));
-        JTextFieldTHex.setText(String.format("%06X", T));
-        //F 레지스터 업데이트
-        JTextFieldFHex.setText(String.format("%06X", F));
-
-        //명령어의 시작 주소 업데이트
-        JTextFieldInstStartAddr.setText(String.format("%06X", sicSimulator.currAddr / 2));
-        //명령어의 Target Address 업데이트
-        JTextFieldTargetAddr.setText(sicSimulator.instLuncher.targetAddr);
-        //현재 사용중인 device 업데이트
-        JTextFieldDevice.setText(sicSimulator.instLuncher.currDevice);
-
-        //log 업데이트
-        if (sicSimulator.logList.size() > 0) {
-            String log = sicSimulator.logList.get(sicSimulator.logList.size() - 1);
-            if (JTextAreaLog.getDocument().getLength() == 0)
-                JTextAreaLog.append(log);
-            else
-                JTextAreaLog.append('\n' + log);
-            JTextAreaLog.setCaretPosition(JTextAreaLog.getDocument().getLength());
-        }
-        //명령어 업데이트
-        if (sicSimulator.inst.length() > 0) {
-            DefaultListModel model = (DefaultListModel) JListInstruction.getModel();
-            model.addElement(sicSimulator.inst);
-            int size = model.size();
-            JListInstruction.setSelectedIndex(size - 1);
+        requestUpdate(takeSnapshot());
+    }
+
+    /**
+     * 상태를 화면에 반영하도록 EDT에 예약한다. 어느 스레드에서 호출해도 된다.
+     * 반영되기 전에 다시 호출되면 예약을 더 만들지 않고 상태만 바꾸므로, 밀린 갱신은 EDT 작업 하나로 합쳐진다.
+     */
+    void requestUpdate(SimulatorSnapshot snapshot) {
+        if (pendingSnapshot.getAndSet(snapshot) == null)
+            SwingUtilities.invokeLater(() -> update(pendingSnapshot.getAndSet(null)));
+    }
+
+    /**
+     * 전달받은 상태로 화면을 갱신한다. 바뀐 값이 있는 component만 다시 쓴다.
+     */
+    private void update(SimulatorSnapshot snapshot) {
+        long updateStart = System.nanoTime();
+        //레지스터와 현재 명령어 정보 업데이트 (바뀐 field만)
+        registerView.apply(snapshot);
+        //실행(All) 중이 아니고 되돌릴 명령어가 있을 때만 이전 버튼 활성화
+        JButtonBack.setEnabled(allStepWorker == null && sicSimulator.canStepBack());
+
+        //log, 명령어 업데이트 (snapshot에 복사된 행만 다시 그린다)
+        logModel.refresh(snapshot.traceCount, snapshot.logRows);
+        instModel.refresh(snapshot.traceCount, snapshot.instRows);
+        //메모리 화면 업데이트 (복사된 행만 다시 그린다)
+        if (snapshot.memory != null)
+            memoryModel.refresh(snapshot);
+        //선택과 scroll은 layout을 다시 계산하므로 명령어가 추가되었을 때만 옮긴다
+        if (snapshot.traceCount != shownTraceCount) {
+            shownTraceCount = snapshot.traceCount;
+            int size = instModel.getSize();
+            if (size > 0) {
+                JListLog.ensureIndexIsVisible(size - 1);
+                JListInstruction.setSelectedIndex(size - 1);
+                JListInstruction.ensureIndexIsVisible(size - 1);
+            }
         }
+        metrics.recordGuiUpdate(System.nanoTime() - updateStart);
     }
 
     /**
@@ -286,15 +702,11 @@ public class VisualSimulator extends JFrame {
         JTextFieldProgramLength.setText(String.format("%06X", sicLoader.totalLength));
         //Program 첫 명령어 주소 업데이트
         JTextFieldFirstInst.setText(String.format("%06X", sicLoader.firstInstruction));
+        //레지스터, log, 명령어 화면 초기화
         update();
 
         //1step, all 버튼 활성화
         JButton1Step.setEnabled(true);
         JButtonAll.setEnabled(true);
-
-        //로그, 명령어 초기화
-        JTextAreaLog.setText("");
-        DefaultListModel model = (DefaultListModel) JListInstruction.getModel();
-        model.clear();
     }
 }
@@ -0,0 +1,127 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 메모리 크기를 벗어난 주소에 대한 접근과 정의되지 않은 opcode test
+ */
+class AddressingTest {
+
+    SicSimulator simulator(ResourceManager rMgr) throws IOException {
+        SicSimulator sim = new SicSimulator(rMgr);
+        sim.load(null);
+        return sim;
+    }
+
+    void write(ResourceManager rMgr, int address, String hex) {
+        rMgr.setMemory(address, hex.toCharArray(), hex.length() / 2);
+    }
+
+    @Test
+    void wordAtTopOfMemory() {
+        ResourceManager rMgr = new ResourceManager();
+        write(rMgr, 0xFFFD, "ABCDEF");
+        assertEquals(0xABCDEF, rMgr.readWord(0xFFFD));
+
+        AddressingException e = assertThrows(AddressingException.class, () -> rMgr.readWord(0xFFFE));
+        assertEquals(0x10000, e.address);
+        assertThrows(AddressingException.class, () -> rMgr.writeWord(0xFFFF, 0));
+        assertThrows(AddressingException.class, () -> rMgr.readByte(0x10000));
+        assertThrows(AddressingException.class, () -> rMgr.readFloat(0xFFFC));
+    }
+
+    @Test
+    void wordCrossingSixtyFourKilobytesInFullMemory() {
+        ResourceManager rMgr = new ResourceManager(ResourceManager.MAX_MEMORY_SIZE);
+        rMgr.writeWord(0xFFFE, 0x123456);
+        assertEquals(0x123456, rMgr.readWord(0xFFFE));
+        rMgr.writeWord(0xFFFFD, 0x654321);
+        assertEquals(0x654321, rMgr.readWord(0xFFFFD));
+        assertThrows(AddressingException.class, () -> rMgr.readWord(0xFFFFE));
+    }
+
+    @Test
+    void extendedAddressBeyondMemoryStops() throws IOException {
+        //+LDA 12345
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = simulator(rMgr);
+        write(rMgr, 0, "03112345");
+
+        assertFalse(sim.run(0));
+        assertEquals(Breakpoints.ADDRESS_ERROR, sim.stopReason);
+        assertEquals(0x12345, sim.stopAddress);
+        assertEquals(0, rMgr.getRegister(8));
+        assertEquals(0, sim.stepCount);
+    }
+
+    @Test
+    void extendedAddressInFullMemory() throws IOException {
+        ResourceManager rMgr = new ResourceManager(ResourceManager.MAX_MEMORY_SIZE);
+        SicSimulator sim = simulator(rMgr);
+        write(rMgr, 0, "03112345");
+        write(rMgr, 0x12345, "000042");
+
+        assertTrue(sim.oneStep());
+        assertEquals(0x42, rMgr.getRegister(0));
+        assertEquals(4, rMgr.getRegister(8));
+    }
+
+    @Test
+    void faultingStoreIsUndone() throws IOException {
+        //LDA #5, +STA 0FFFE (마지막 byte가 메모리 밖)
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = simulator(rMgr);
+        sim.enableUndo(UndoJournal.DEFAULT_CAPACITY);
+        write(rMgr, 0, "010005" + "0F10FFFE");
+
+        assertTrue(sim.oneStep());
+        assertFalse(sim.oneStep());
+        assertEquals(Breakpoints.ADDRESS_ERROR, sim.stopReason);
+        assertEquals(3, rMgr.getRegister(8));
+        assertEquals(0, rMgr.readWord(0xFFFD));
+        //되돌리면 정상적으로 수행된 LDA만 되돌린다
+        assertEquals(1, sim.stepBack(1));
+        assertEquals(0, rMgr.getRegister(8));
+    }
+
+    @Test
+    void jumpBeyondMemoryStops() throws IOException {
+        //+J 20000
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = simulator(rMgr);
+        write(rMgr, 0, "3F120000");
+
+        assertFalse(sim.run(0));
+        assertEquals(Breakpoints.ADDRESS_ERROR, sim.stopReason);
+        assertEquals(0x20000, sim.stopAddress);
+        assertEquals(0x20000, rMgr.getRegister(8));
+    }
+
+    @Test
+    void invalidOpcodeStops() throws IOException {
+        //LDA #5, J 0009, data FFFFFF (정의되지 않은 opcode FC)
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = simulator(rMgr);
+        write(rMgr, 0, "010005" + "3F100009" + "00" + "FFFFFF");
+
+        assertFalse(sim.run(0));
+        assertEquals(Breakpoints.INVALID_OPCODE, sim.stopReason);
+        assertEquals(9, sim.stopAddress);
+        assertEquals(9, rMgr.getRegister(8));
+        assertEquals(2, sim.stepCount);
+        assertEquals(5, rMgr.getRegister(0));
+
+        //한 단계씩 수행해도 같은 자리에서 멈춘다
+        assertFalse(sim.oneStep());
+        assertEquals(9, rMgr.getRegister(8));
+        assertEquals(2, sim.stepCount);
+        assertThrows(InvalidOpcodeException.class, () -> sim.decode(9));
+    }
+}
@@ -0,0 +1,137 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * condition code, 48 bit 실수(F) 연산과 0으로 나누기 test
+ */
+class ArithmeticTest {
+    static final int CC_MASK = InstLuncher.CC_MASK;
+
+    ResourceManager rMgr = new ResourceManager();
+    SicSimulator sim;
+
+    void load(String program) throws IOException {
+        sim = new SicSimulator(rMgr);
+        sim.load(null);
+        rMgr.setMemory(0, program.toCharArray(), program.length() / 2);
+    }
+
+    void step() {
+        assertTrue(sim.oneStep());
+    }
+
+    int cc() {
+        return rMgr.getRegister(9) & CC_MASK;
+    }
+
+    @Test
+    void floatBits() {
+        //1.0 = 0.1(2진수) * 2^1
+        assertEquals(0x401800000000L, ResourceManager.floatToBits(1.0));
+        assertEquals(0xC02800000000L, ResourceManager.floatToBits(-2.0));
+        assertEquals(1.0, ResourceManager.bitsToFloat(0x401800000000L));
+        //소수부는 36 bit로 반올림한다
+        assertEquals(ResourceManager.floatToBits(1.0), ResourceManager.floatToBits(1 + 0x1p-37));
+        assertEquals(ResourceManager.floatToBits(1 + 0x1p-35), ResourceManager.floatToBits(1 + 0x1p-36 + 0x1p-40));
+        //반올림으로 자리가 넘치면 다음 지수로 정규화한다
+        assertEquals(ResourceManager.floatToBits(1.0), ResourceManager.floatToBits(1 - 0x1p-40));
+        //범위를 넘으면 가장 큰 값, 너무 작으면 0
+        assertEquals(0x7FFFFFFFFFFFL, ResourceManager.floatToBits(Double.MAX_VALUE));
+        assertEquals(0xFFFFFFFFFFFFL, ResourceManager.floatToBits(Double.NEGATIVE_INFINITY));
+        assertEquals(0, ResourceManager.floatToBits(Double.MIN_VALUE));
+        assertEquals(0, ResourceManager.floatToBits(0.0));
+    }
+
+    @Test
+    void floatArithmetic() throws IOException {
+        //+LDF 100, +ADDF 106, +COMPF 100, +DIVF 10C, +COMPF 100, +STF 112, +COMPF 112, +MULF 10C
+        load("73100100" + "5B100106" + "8B100100" + "6710010C" + "8B100100"
+                + "83100112" + "8B100112" + "6310010C");
+        rMgr.writeFloat(0x100, 1.5);
+        rMgr.writeFloat(0x106, 0.25);
+        rMgr.writeFloat(0x10C, 3.0);
+
+        step();
+        assertEquals(1.5, rMgr.register_F);
+        step();
+        assertEquals(1.75, rMgr.register_F);
+        step();
+        assertEquals(InstLuncher.CC_GT, cc());
+
+        //1.75 / 3은 0.1xxx 형태이므로 소수부 36 bit로 반올림된 값이 F에 남는다
+        step();
+        double expected = Math.scalb((double) Math.round(Math.scalb(1.75 / 3, 36)), -36);
+        assertEquals(expected, rMgr.register_F);
+        assertNotEquals(1.75 / 3, rMgr.register_F);
+        step();
+        assertEquals(InstLuncher.CC_LT, cc());
+
+        //저장했다가 다시 읽어도 값이 바뀌지 않는다
+        step();
+        assertEquals(expected, rMgr.readFloat(0x112));
+        step();
+        assertEquals(InstLuncher.CC_EQ, cc());
+        step();
+        assertEquals(ResourceManager.bitsToFloat(ResourceManager.floatToBits(expected * 3)), rMgr.register_F);
+    }
+
+    @Test
+    void integerConditionCode() throws IOException {
+        //LDA #5, COMP #5, COMP #6, +COMP 100(-1), LDS #3, COMPR A,S, COMPR S,A, COMPR S,S
+        load("010005" + "290005" + "290006" + "2B100100" + "6D0003" + "A004" + "A040" + "A044");
+        rMgr.writeWord(0x100, 0xFFFFFF);
+        //condition code 외의 SW bit는 그대로 둔다
+        rMgr.setRegister(9, 0x000001);
+
+        step();
+        step();
+        assertEquals(InstLuncher.CC_EQ, cc());
+        step();
+        assertEquals(InstLuncher.CC_LT, cc());
+        //부호 있는 비교 : 5 > -1
+        step();
+        assertEquals(InstLuncher.CC_GT, cc());
+        step();
+        step();
+        assertEquals(InstLuncher.CC_GT, cc());
+        step();
+        assertEquals(InstLuncher.CC_LT, cc());
+        step();
+        assertEquals(InstLuncher.CC_EQ, cc());
+        assertEquals(0x000001, rMgr.getRegister(9) & ~CC_MASK);
+    }
+
+    @Test
+    void divideByZeroDoesNothing() throws IOException {
+        //LDA #7, CLEAR S, DIV #0, DIVR S,A, +LDF 100, DIVF #0, +DIVF 106, DIV #2
+        load("010007" + "B440" + "250000" + "9C40" + "73100100" + "650000" + "67100106" + "250002");
+        rMgr.writeFloat(0x100, 2.5);
+        rMgr.setRegister(9, InstLuncher.CC_GT);
+
+        step();
+        step();
+        //0으로 나누면 예외 없이 레지스터를 그대로 두고 다음 명령어로 넘어간다
+        step();
+        assertEquals(7, rMgr.getRegister(0));
+        step();
+        assertEquals(7, rMgr.getRegister(0));
+        assertEquals(0, rMgr.getRegister(4));
+        step();
+        step();
+        assertEquals(2.5, rMgr.register_F);
+        step();
+        assertEquals(2.5, rMgr.register_F);
+        assertEquals(0x15, rMgr.getRegister(8));
+        assertEquals(InstLuncher.CC_GT, cc());
+        //나누기 자체는 계속 동작한다
+        step();
+        assertEquals(3, rMgr.getRegister(0));
+    }
+}
@@ -0,0 +1,54 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * block 단위 수행 test
+ */
+class BlockTest {
+    //LDA #0, LDX #0, loop: ADD #1, TIX #4000, JLT loop, J @zero
+    static final String LOOP_PROGRAM = "010000" + "050000" + "190001" + "2D0FA0" + "3B2FF7" + "3E2000" + "000000";
+
+    @Test
+    void entriesAreCountedOnlyAtLeaders() throws IOException {
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = new SicSimulator(rMgr);
+        sim.load(null);
+        rMgr.setMemory(0, LOOP_PROGRAM.toCharArray(), LOOP_PROGRAM.length() / 2);
+
+        assertTrue(sim.run(0));
+        assertEquals(4000, rMgr.getRegister(0));
+        assertEquals(2 + 4000 * 3 + 1, sim.stepCount);
+
+        DecodeCache cache = sim.decodeCache;
+        //loop의 시작(분기 대상)은 block이 만들어질 때까지만 센다
+        assertEquals(SicSimulator.HOT_THRESHOLD, cache.entryCount[6]);
+        TranslatedBlock block = cache.getBlock(6);
+        assertNotNull(block);
+        assertEquals(3, block.insts.length);
+        //block 중간의 명령어는 세지 않는다
+        assertEquals(0, cache.entryCount[9]);
+        assertEquals(0, cache.entryCount[12]);
+        //run의 시작과 분기 명령어 다음은 센다
+        assertEquals(1, cache.entryCount[0]);
+        assertEquals(0, cache.entryCount[3]);
+        assertEquals(1, cache.entryCount[15]);
+    }
+
+    @Test
+    void branchFlagComesFromInstructionName() {
+        InstructionSet instSet = InstructionSet.builtIn();
+        assertTrue(instSet.get(0x3C).branch);
+        assertTrue(instSet.get(0x48).branch);
+        assertTrue(instSet.get(0x4C).branch);
+        assertFalse(instSet.get(0x18).branch);
+        assertFalse(instSet.get(0x2C).branch);
+    }
+}
@@ -0,0 +1,59 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 중단점/감시점 주소 확인 test
+ */
+class BreakpointsTest {
+
+    @Test
+    void breakpointOutsideMemoryIsRejected() {
+        Breakpoints breakpoints = new Breakpoints(0x10000);
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.addBreakpoint(0x10000, null));
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.addBreakpoint(-1, null));
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.removeBreakpoint(0xFFFFF));
+        assertFalse(breakpoints.hasBreakpoints());
+
+        breakpoints.addBreakpoint(0xFFFF, null);
+        assertTrue(breakpoints.removeBreakpoint(0xFFFF));
+    }
+
+    @Test
+    void watchpointOutsideMemoryIsRejected() {
+        Breakpoints breakpoints = new Breakpoints(0x10000);
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.setWatchpoint(0xFFFF, 2, true));
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.setWatchpoint(0x20000, 1, true));
+        assertThrows(IllegalArgumentException.class, () -> breakpoints.setWatchpoint(0x1000, 0, true));
+        assertFalse(breakpoints.hasWatchpoints());
+
+        breakpoints.setWatchpoint(0xFFFD, 3, true);
+        assertEquals(3, breakpoints.watchCount);
+    }
+
+    @Test
+    void simulatorKeepsBreakpointsOnInvalidAddress() throws IOException {
+        SicSimulator sim = new SicSimulator(new ResourceManager());
+        sim.load(null);
+        sim.addBreakpoint(0x1000, null);
+        assertThrows(IllegalArgumentException.class, () -> sim.addBreakpoint(0x12345, null));
+        assertEquals(1, sim.breakpoints.breakpointCount);
+    }
+
+    @Test
+    void fullMemoryAcceptsHighAddresses() throws IOException {
+        SicSimulator sim = new SicSimulator(new ResourceManager(ResourceManager.MAX_MEMORY_SIZE));
+        sim.load(null);
+        sim.addBreakpoint(0xFFFFF, null);
+        sim.setWatchpoint(0x12345, 3, true);
+        assertEquals(1, sim.breakpoints.breakpointCount);
+        assertEquals(3, sim.breakpoints.watchCount);
+    }
+}
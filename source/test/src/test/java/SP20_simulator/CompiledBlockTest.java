@@ -0,0 +1,206 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * JVM bytecode로 번역된 block test
+ * 같은 program을 명령어 하나씩 해석한 결과와 번역된 block으로 수행한 결과(레지스터, 메모리, log, 멈춘 이유)를 비교한다.
+ */
+class CompiledBlockTest {
+    //LDA #0, LDX #0, loop: ADD #1, TIX #4000, JLT loop, J @zero
+    static final String LOOP_PROGRAM = "010000" + "050000" + "190001" + "2D0FA0" + "3B2FF7" + "3E2000" + "000000";
+    //LDX #0, LDT #300, loop: JSUB sub, TIXR T, JLT loop, J @zero,
+    //sub: RMO X,A, ADDR X,A, STCH buf,X, SHIFTL A,4, +STA 200,X, COMP #100, RSUB
+    static final String SUBROUTINE_PROGRAM = "050000" + "75012C" + "4B2008" + "B850" + "3B2FF8" + "3E2013"
+            + "AC10" + "9010" + "57A00F" + "A403" + "0F900200" + "290064" + "4F0000" + "000000";
+    //LDB #300, LDX #0, loop: LDCH 0,X(B), MUL #3, ADD @ptr, SUB #7, AND #FFF, OR #100, DIV #2,
+    //RMO A,S, MULR X,S, SUBR A,S, DIVR X,S, CLEAR T, ADDR S,T, COMPR S,A, STS 100,X(B), STT 200(B), STSW 203(B),
+    //STL 206(B), STB 209(B), LDS 200(B), LDL #5, TIX #200, JLT loop, J @zero
+    static final String ARITHMETIC_PROGRAM = "690300" + "050000" + "53C000" + "210003" + "1A2041" + "1D0007"
+            + "410FFF" + "450100" + "250002" + "AC04" + "9814" + "9404" + "9C14" + "B450" + "9045" + "A040"
+            + "7FC100" + "874200" + "EB4203" + "174206" + "7B4209" + "6F4200" + "090005" + "2D00C8" + "3B2FC2"
+            + "3E2000" + "000000";
+    //LDX #0, LDA #0, loop: TIX #50, JEQ done, ADD #2, COMP #40, JGT loop, J loop, done: J @zero
+    static final String CONDITIONAL_PROGRAM = "050000" + "010000" + "2D0032" + "33200C" + "190002" + "290028"
+            + "372FF1" + "3F2FEE" + "3E2000" + "000000";
+    //LDX #0, loop: RMO X,A, FLOAT, ADDF fval, STF fout, FIX, TIX #100, JLT loop, J @zero
+    static final String FLOAT_PROGRAM = "050000" + "AC10" + "C0" + "5B2027" + "83202A" + "C4" + "2D0064" + "3B2FF0"
+            + "3E2000" + "000000";
+
+    /**
+     * program을 load한 SicSimulator를 만든다.
+     *
+     * @param compiled false면 block 없이 명령어를 하나씩 해석한다
+     * @param setup    load 뒤에 할 설정 (데이터, 감시점 등), 없으면 null
+     */
+    static SicSimulator simulator(int memorySize, String program, boolean compiled, Consumer<SicSimulator> setup)
+            throws IOException {
+        ResourceManager rMgr = new ResourceManager(memorySize);
+        SicSimulator sim = new SicSimulator(rMgr);
+        sim.load(null);
+        rMgr.setMemory(0, program.toCharArray(), program.length() / 2);
+        sim.blockMode = compiled;
+        if (setup != null)
+            setup.accept(sim);
+        return sim;
+    }
+
+    static void assertSameState(SicSimulator expected, SicSimulator actual) {
+        ResourceManager e = expected.rMgr;
+        ResourceManager a = actual.rMgr;
+        assertArrayEquals(e.register, a.register);
+        assertEquals(e.register_F, a.register_F);
+        assertEquals(expected.stepCount, actual.stepCount);
+        assertEquals(expected.currAddr, actual.currAddr);
+        assertEquals(expected.instLength, actual.instLength);
+        assertEquals(expected.stopReason, actual.stopReason);
+        assertEquals(expected.stopAddress, actual.stopAddress);
+        assertEquals(expected.instLuncher.targetAddress, actual.instLuncher.targetAddress);
+        assertEquals(expected.instLuncher.currDevice, actual.instLuncher.currDevice);
+
+        TraceBuffer et = expected.trace;
+        TraceBuffer at = actual.trace;
+        assertEquals(et.count, at.count);
+        for (int i = 0; i < et.size(); i++) {
+            int es = et.slot(et.count, i);
+            int as = at.slot(at.count, i);
+            assertEquals(et.address[es], at.address[as], "address of log " + i);
+            assertEquals(et.opcode[es], at.opcode[as], "opcode of log " + i);
+            assertEquals(et.bits[es], at.bits[as], "bits of log " + i);
+            assertEquals(et.length[es], at.length[as], "length of log " + i);
+            assertEquals(et.target[es], at.target[as], "target of log " + i);
+        }
+        for (int addr = 0; addr < e.memorySize; addr++) {
+            if (e.readByte(addr) != a.readByte(addr))
+                fail(String.format("memory %06X: %02X != %02X", addr, e.readByte(addr), a.readByte(addr)));
+        }
+    }
+
+    /**
+     * 두 방식으로 끝까지 수행하고 결과를 비교한다.
+     *
+     * @return 번역된 block으로 수행한 SicSimulator
+     */
+    static SicSimulator runBoth(int memorySize, String program, Consumer<SicSimulator> setup) throws IOException {
+        SicSimulator expected = simulator(memorySize, program, false, setup);
+        SicSimulator actual = simulator(memorySize, program, true, setup);
+        assertEquals(expected.run(0), actual.run(0));
+        assertSameState(expected, actual);
+        return actual;
+    }
+
+    @Test
+    void loopRunsInsideHiddenClass() throws IOException {
+        SicSimulator sim = runBoth(ResourceManager.MEMORY_SIZE, LOOP_PROGRAM, null);
+        assertEquals(4000, sim.rMgr.getRegister(0));
+
+        TranslatedBlock block = sim.decodeCache.getBlock(6);
+        assertNotNull(block.compiled);
+        assertTrue(block.compiled.getClass().isHidden());
+        //block 안에서 반복하므로 거의 모든 명령어를 번역된 code로 수행한다
+        assertTrue(sim.compiledSteps > 11000);
+        assertEquals(sim.compiledSteps, new SimulatorMetrics(sim).getCompiledInstructions());
+    }
+
+    @Test
+    void matchesInterpreter() throws IOException {
+        runBoth(ResourceManager.MEMORY_SIZE, SUBROUTINE_PROGRAM, null);
+        SicSimulator sim = runBoth(ResourceManager.MEMORY_SIZE, ARITHMETIC_PROGRAM, s -> {
+            char[] data = new char[512];
+            for (int i = 0; i < 256; i++) {
+                int value = (i * 37 + 11) & 0xFF;
+                data[i * 2] = ResourceManager.HEX[value >> 4];
+                data[i * 2 + 1] = ResourceManager.HEX[value & 0xF];
+            }
+            s.rMgr.setMemory(0x300, data, 256);
+            s.rMgr.writeWord(0x50, 0x310);
+        });
+        assertTrue(sim.compiledSteps > 0);
+        runBoth(ResourceManager.MEMORY_SIZE, CONDITIONAL_PROGRAM, null);
+        sim = runBoth(ResourceManager.MEMORY_SIZE, FLOAT_PROGRAM, s -> s.rMgr.writeFloat(0x30, 0.5));
+        assertEquals(99.5, sim.rMgr.readFloat(0x36));
+        assertTrue(sim.compiledSteps > 0);
+    }
+
+    @Test
+    void runStopsAtStepLimit() throws IOException {
+        SicSimulator expected = simulator(ResourceManager.MEMORY_SIZE, LOOP_PROGRAM, false, null);
+        SicSimulator actual = simulator(ResourceManager.MEMORY_SIZE, LOOP_PROGRAM, true, null);
+        //화면의 수행처럼 정해진 개수씩 나누어 수행해도 매번 정확히 그 개수만큼만 수행한다
+        for (int i = 1; i <= 12; i++) {
+            assertFalse(actual.run(1000));
+            assertFalse(expected.run(1000));
+            assertEquals(i * 1000L, actual.stepCount);
+            assertSameState(expected, actual);
+        }
+        assertTrue(actual.compiledSteps > 0);
+    }
+
+    @Test
+    void selfModifyingStoreLeavesBlock() throws IOException {
+        //J start, ... start(100): LDA #0, LDX #0, loop: ADD #1, STCH @200,X, TIX #100, JLT loop, J @zero
+        //200번지부터의 word 중 X = 50일 때만 ADD #1의 displacement(108번지)를 가리킨다
+        String program = "3F20FD" + "0".repeat(0x100 * 2 - 6) + "010000" + "050000" + "190001" + "56A0F4"
+                + "2D0064" + "3B2FF4" + "3E2000" + "000000";
+        SicSimulator sim = runBoth(ResourceManager.MAX_MEMORY_SIZE, program,
+                s -> s.rMgr.setMemory(0x200 + 50, "000108".toCharArray(), 3));
+        //X = 50일 때의 A(51)가 ADD의 값이 된다
+        assertEquals(51, sim.rMgr.readByte(0x108));
+        assertEquals(51 + 49 * 51, sim.rMgr.getRegister(0));
+        assertTrue(sim.compiledSteps > 0);
+    }
+
+    @Test
+    void watchpointStopsCompiledBlock() throws IOException {
+        Consumer<SicSimulator> watch = s -> s.setWatchpoint(0x200 + 150, 3, true);
+        SicSimulator expected = simulator(ResourceManager.MEMORY_SIZE, SUBROUTINE_PROGRAM, false, watch);
+        SicSimulator actual = simulator(ResourceManager.MEMORY_SIZE, SUBROUTINE_PROGRAM, true, watch);
+        assertFalse(actual.run(0));
+        assertFalse(expected.run(0));
+        assertEquals(Breakpoints.WATCHPOINT, actual.stopReason);
+        assertSameState(expected, actual);
+        assertTrue(actual.compiledSteps > 0);
+
+        //감시점을 지우고 끝까지 수행
+        actual.clearBreakpoints();
+        expected.clearBreakpoints();
+        assertTrue(actual.run(0));
+        assertTrue(expected.run(0));
+        assertSameState(expected, actual);
+    }
+
+    @Test
+    void breakpointStopsCompiledLoop() throws IOException {
+        Consumer<SicSimulator> breakpoint = s -> s.addBreakpoint(0x0F, null);
+        SicSimulator expected = simulator(ResourceManager.MEMORY_SIZE, LOOP_PROGRAM, false, breakpoint);
+        SicSimulator actual = simulator(ResourceManager.MEMORY_SIZE, LOOP_PROGRAM, true, breakpoint);
+        assertFalse(actual.run(0));
+        assertFalse(expected.run(0));
+        assertEquals(Breakpoints.BREAKPOINT, actual.stopReason);
+        assertEquals(0x0F, actual.rMgr.getRegister(8));
+        assertSameState(expected, actual);
+        assertTrue(actual.compiledSteps > 0);
+    }
+
+    @Test
+    void addressErrorInsideCompiledBlock() throws IOException {
+        //LDX #0, loop: +LDA FF00,X, TIX #1000, JLT loop, J @zero
+        String program = "050000" + "0390FF00" + "2D03E8" + "3B2FF6" + "3E2000" + "000000";
+        SicSimulator sim = runBoth(ResourceManager.MEMORY_SIZE, program, null);
+        assertEquals(Breakpoints.ADDRESS_ERROR, sim.stopReason);
+        //범위를 벗어난 +LDA에 PC가 남는다
+        assertEquals(3, sim.rMgr.getRegister(8));
+        assertEquals(0xFE, sim.rMgr.getRegister(1));
+        assertTrue(sim.compiledSteps > 0);
+    }
+}
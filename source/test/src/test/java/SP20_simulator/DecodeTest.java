@@ -0,0 +1,67 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SicSimulator의 명령어 해석(decode) test
+ */
+class DecodeTest {
+    ResourceManager rMgr;
+    SicSimulator sim;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rMgr = new ResourceManager();
+        sim = new SicSimulator(rMgr);
+        sim.load(null);
+    }
+
+    void write(int address, String hex) {
+        rMgr.setMemory(address, hex.toCharArray(), hex.length() / 2);
+    }
+
+    @Test
+    void sicFormWithBit12SetIsThreeBytes() {
+        //LDA 1003 (SIC 호환 형식 : n = i = 0, 15 bit 주소의 bit 12가 nixbpe의 e 자리에 온다)
+        write(0, "001003");
+        write(0x1003, "123456");
+        DecodedInstruction decoded = sim.decode(0);
+        assertEquals(3, decoded.length);
+
+        assertTrue(sim.oneStep());
+        assertEquals(0x123456, rMgr.getRegister(0));
+        assertEquals(3, rMgr.getRegister(8));
+        assertEquals(0x1003, sim.instLuncher.targetAddress);
+    }
+
+    @Test
+    void sicFormIndexedWithHighAddress() {
+        //LDA 7000,X (SIC 호환 형식, x = 1, 주소 7000)
+        write(0, "00F000");
+        write(0x7002, "000042");
+        rMgr.setRegister(1, 2);
+        assertEquals(3, sim.decode(0).length);
+
+        sim.oneStep();
+        assertEquals(0x42, rMgr.getRegister(0));
+        assertEquals(3, rMgr.getRegister(8));
+    }
+
+    @Test
+    void extendedFormatIsFourBytes() {
+        //+LDA 01003 (n = i = 1, e = 1)
+        write(0, "03101003");
+        write(0x1003, "654321");
+        assertEquals(4, sim.decode(0).length);
+
+        sim.oneStep();
+        assertEquals(0x654321, rMgr.getRegister(0));
+        assertEquals(4, rMgr.getRegister(8));
+    }
+}
@@ -0,0 +1,39 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ResourceManager의 device 준비 상태(TD) test
+ */
+class DeviceTest {
+    @TempDir
+    File directory;
+    ResourceManager rMgr;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rMgr = new ResourceManager();
+        rMgr.initializeResource();
+        rMgr.deviceDirectory = directory;
+    }
+
+    @Test
+    void deviceCreatedWhilePollingBecomesReady() throws IOException {
+        //파일이 생기기 전에는 준비되지 않은 상태
+        assertFalse(rMgr.testDevice("F1"));
+        assertFalse(rMgr.testDevice("F1"));
+        //TD로 기다리는 동안 파일이 생기면 다음 확인에서 준비된 것으로 본다
+        Files.write(new File(directory, "F1.device").toPath(), new byte[]{'A'});
+        assertTrue(rMgr.testDevice("F1"));
+        assertTrue(rMgr.testDevice("F1"));
+    }
+}
@@ -0,0 +1,45 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 명령어 정보 table test
+ */
+class InstructionSetTest {
+
+    @Test
+    void parsesSpecLines() {
+        Instruction inst = new Instruction("JSUB\t3\t48\t1");
+        assertEquals("JSUB", inst.instruction);
+        assertEquals(3, inst.format);
+        assertEquals(0x48, inst.opcode);
+        assertEquals(1, inst.operandNum);
+        assertTrue(inst.branch);
+
+        assertNull(new Instruction("JSUB 3 48 1").instruction);
+    }
+
+    @Test
+    void skipsMalformedLines() throws IOException {
+        InstructionSet instSet = new InstructionSet(new StringReader("ADD\t3\t18\t1\nbad line\nLDA\t3\t00\t1"));
+        assertEquals(2, instSet.values().size());
+        assertEquals("ADD", instSet.get(0x1B).instruction);
+        assertNull(instSet.get(0x0C));
+    }
+
+    @Test
+    void valuesCannotBeModified() {
+        InstructionSet instSet = InstructionSet.builtIn();
+        assertThrows(UnsupportedOperationException.class, () -> instSet.values().clear());
+        assertThrows(UnsupportedOperationException.class, () -> instSet.values().set(0, new Instruction("X\t3\t00\t0")));
+        assertEquals("LDA", instSet.get(0x00).instruction);
+    }
+}
@@ -0,0 +1,55 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 메모리 화면 model test (화면 없이 model만 확인한다)
+ */
+class MemoryViewTest {
+
+    @Test
+    void rowsOutsideSnapshotAreBlank() {
+        ResourceManager rMgr = new ResourceManager();
+        MemoryListModel model = new MemoryListModel(rMgr);
+        rMgr.writeWord(0x100, 0x414243);
+        assertEquals(-1, model.byteAt(0x100));
+
+        model.setVisibleRows(0x10, 0x17);
+        SimulatorSnapshot snapshot = new SimulatorSnapshot();
+        model.copyVisible(snapshot);
+        model.refresh(snapshot);
+        assertEquals(0x41, model.byteAt(0x100));
+        assertTrue(model.isDirty(0x102));
+        assertEquals(-1, model.byteAt(0x180));
+
+        //다음 복사 전까지는 메모리가 바뀌어도 복사본을 보인다
+        rMgr.writeByte(0x100, 0x5A);
+        assertEquals(0x41, model.byteAt(0x100));
+    }
+
+    @Test
+    void refreshVisibleKeepsHighlights() {
+        ResourceManager rMgr = new ResourceManager();
+        MemoryListModel model = new MemoryListModel(rMgr);
+        model.setVisibleRows(0, 7);
+        rMgr.writeByte(0x10, 0x7F);
+        SimulatorSnapshot snapshot = new SimulatorSnapshot();
+        model.copyVisible(snapshot);
+        model.refresh(snapshot);
+
+        //scroll하여 새로 보이는 행을 바로 복사해도 이미 강조하던 byte는 그대로 강조한다
+        rMgr.writeByte(0x90, 0x33);
+        model.setVisibleRows(1, 9);
+        model.refreshVisible();
+        assertEquals(0x33, model.byteAt(0x90));
+        assertEquals(0x7F, model.byteAt(0x10));
+        assertTrue(model.isDirty(0x10));
+        assertTrue(model.isDirty(0x90));
+        assertFalse(model.isDirty(0x11));
+        assertEquals(-1, model.byteAt(0x00));
+    }
+}
@@ -0,0 +1,50 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SimulatorMetrics의 decode cache 통계 test
+ */
+class MetricsTest {
+    //LDA #0, LDX #0, loop: ADD #1, TIX #4000, JLT loop, J @zero
+    static final String LOOP_PROGRAM = "010000" + "050000" + "190001" + "2D0FA0" + "3B2FF7" + "3E2000" + "000000";
+
+    SicSimulator simulator(ResourceManager rMgr) throws IOException {
+        SicSimulator sim = new SicSimulator(rMgr);
+        sim.load(null);
+        rMgr.setMemory(0, LOOP_PROGRAM.toCharArray(), LOOP_PROGRAM.length() / 2);
+        return sim;
+    }
+
+    @Test
+    void blockInstructionsAreReportedSeparately() throws IOException {
+        SicSimulator sim = simulator(new ResourceManager());
+        SimulatorMetrics metrics = new SimulatorMetrics(sim);
+        assertTrue(sim.run(0));
+
+        //해석기가 찾은 횟수와 block으로 수행한 개수를 더하면 전체 명령어 개수
+        assertEquals(sim.stepCount, sim.decodeHits + sim.decodeMisses + metrics.getBlockInstructions());
+        assertEquals(sim.stepCount, metrics.getInstructions());
+        assertTrue(metrics.getBlockInstructions() > 11000);
+        //명령어 6개를 처음 한 번씩만 해석한다
+        assertEquals(6, sim.decodeMisses);
+        assertEquals((double) sim.decodeHits / (sim.decodeHits + 6), metrics.getDecodeCacheHitRate(), 1e-12);
+    }
+
+    @Test
+    void hitRateWithoutBlocks() throws IOException {
+        SicSimulator sim = simulator(new ResourceManager());
+        sim.blockMode = false;
+        SimulatorMetrics metrics = new SimulatorMetrics(sim);
+        assertTrue(sim.run(0));
+
+        assertEquals(0, metrics.getBlockInstructions());
+        assertEquals(sim.stepCount, sim.decodeHits + sim.decodeMisses);
+        assertEquals(1 - 6.0 / sim.stepCount, metrics.getDecodeCacheHitRate(), 1e-12);
+    }
+}
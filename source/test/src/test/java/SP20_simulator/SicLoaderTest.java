@@ -0,0 +1,102 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Object Program의 H/D/R/T/M/E 레코드 해석과 section 사이의 relocation test
+ */
+class SicLoaderTest {
+    //MAIN(0~8): +LDA SUB, +STA BUF(-), SUB(9~14): 참조 번호로 BUF와 자기 자신, THIRD(15~17): 같은 번호 02가 SUB를 가리킨다
+    static final String PROGRAM = "HMAIN  000000000009\n"
+            + "DBUF   000006\n"
+            + "RSUB   \n"
+            + "T00000009" + "03100000" + "0F100000" + "00" + "\n"
+            + "M00000105+SUB\n"
+            + "M00000505-BUF\n"
+            + "E000003\n"
+            + "\n"
+            + "HSUB   000000000006\n"
+            + "R02BUF   03MAIN  \n"
+            + "T00000006" + "000000" + "000003" + "\n"
+            + "M00000006+02\n"
+            + "M00000306+01\n"
+            + "E\n"
+            + "\n"
+            + "HTHIRD 000000000003\n"
+            + "R02SUB   \n"
+            + "T00000003" + "000000" + "\n"
+            + "M00000006+02\n"
+            + "E\n";
+
+    @TempDir
+    File directory;
+
+    ResourceManager rMgr;
+    SicLoader loader;
+
+    void load(String program) throws IOException {
+        File file = new File(directory, "test.obj");
+        Files.write(file.toPath(), program.getBytes(StandardCharsets.US_ASCII));
+        rMgr = new ResourceManager();
+        rMgr.initializeResource();
+        loader = new SicLoader(rMgr);
+        loader.load(file);
+    }
+
+    @Test
+    void recordsAndRelocation() throws IOException {
+        load(PROGRAM);
+        //H, E 레코드
+        assertEquals("MAIN", loader.programName);
+        assertEquals(0, loader.startAddress);
+        assertEquals(18, loader.totalLength);
+        assertEquals(3, loader.firstInstruction);
+        //section은 앞 section 뒤에 이어서 올라간다
+        assertEquals(9, rMgr.symtab.search("SUB"));
+        assertEquals(15, rMgr.symtab.search("THIRD"));
+        assertEquals(6, rMgr.symtab.search("BUF"));
+        assertEquals(3, rMgr.symtab.sectionNames.size());
+
+        //T 레코드와 이름으로 된 M 레코드 (5 half-byte 필드만 바뀐다)
+        assertEquals(0x03, rMgr.readByte(0));
+        assertEquals(0x100009, rMgr.readWord(1));
+        assertEquals(0x0F, rMgr.readByte(4));
+        assertEquals(0x1FFFFA, rMgr.readWord(5));
+        //참조 번호로 된 M 레코드는 자기 section의 번호로 찾는다
+        assertEquals(6, rMgr.readWord(9));
+        assertEquals(3 + 9, rMgr.readWord(12));
+        assertEquals(9, rMgr.readWord(15));
+        //참조 번호는 section 밖에서 보이지 않는다
+        assertEquals(-1, rMgr.symtab.search("02"));
+        assertEquals(6, rMgr.symtab.search("SUB", "02"));
+        assertEquals(0, rMgr.symtab.search("SUB", "03"));
+        assertEquals(9, rMgr.symtab.search("THIRD", "02"));
+    }
+
+    void assertMalformed(String program, String message) {
+        IOException e = assertThrows(IOException.class, () -> load(program));
+        assertTrue(e.getMessage().startsWith(message), e.getMessage());
+    }
+
+    @Test
+    void malformedRecords() {
+        assertMalformed("HMAIN  000000\n", "line 1: malformed H record: too short (13 characters, need 19)");
+        //T 레코드의 길이보다 byte가 적다
+        assertMalformed("HMAIN  000000000009\nT0000000903100000\n", "line 2: malformed T record: too short (17 characters, need 27)");
+        assertMalformed("HMAIN  000000000009\nT00000\n", "line 2: malformed T record");
+        assertMalformed("HMAIN  000000000009\nDBUF   000006BUF\n", "line 2: malformed D record: incomplete symbol entry");
+        assertMalformed("HMAIN  000000000009\r\nM000001\r\n", "line 2: malformed M record: too short");
+        assertMalformed("HMAIN  000000000009\nM00000105*SUB\n", "line 2: malformed M record: sign");
+        assertMalformed("HMAIN  000000000009\n\nE0003\n", "line 3: malformed E record");
+    }
+}
@@ -0,0 +1,69 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 여러 머신을 동시에 수행하는 SimulatorPool test
+ */
+class SimulatorPoolTest {
+    //LDT #5, loop: RD #F1, WD #05, TIXR T, JLT loop, J @zero
+    static final String PROGRAM = "HPOOL  000000000014\n"
+            + "T00000014" + "750005" + "D900F1" + "DD0005" + "B850" + "3B2FF5" + "3E2000" + "000000" + "\n"
+            + "E000000\n";
+    static final int MACHINES = 16;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void machinesShareInstructionsButNotDevices() throws IOException, InterruptedException {
+        File program = new File(directory, "pool.obj");
+        Files.write(program.toPath(), PROGRAM.getBytes(StandardCharsets.US_ASCII));
+        File template = new File(directory, "template");
+        Files.createDirectories(template.toPath());
+        Files.write(new File(template, "F1.device").toPath(), "HELLO!".getBytes(StandardCharsets.US_ASCII));
+        File deviceRoot = new File(directory, "machines");
+
+        List<File> programs = new ArrayList<>();
+        for (int i = 0; i < MACHINES; i++)
+            programs.add(program);
+        List<SimulationResult> results;
+        try (SimulatorPool pool = new SimulatorPool(Executors.newFixedThreadPool(4), deviceRoot, template)) {
+            assertSame(InstructionSet.getDefault(), pool.instSet);
+            results = pool.runAll(programs, 0);
+        }
+
+        assertEquals(MACHINES, results.size());
+        Set<File> directories = new HashSet<>();
+        for (SimulationResult result : results) {
+            assertNull(result.error);
+            assertTrue(result.halted);
+            assertEquals("POOL", result.programName);
+            assertEquals(1 + 5 * 4 + 1, result.steps);
+            assertEquals(5, result.register[1]);
+            assertEquals('O', result.register[0] & 0xFF);
+            //device는 머신마다 따로 쓰므로 다른 머신의 입출력과 섞이지 않는다
+            assertTrue(directories.add(result.deviceDirectory));
+            assertEquals("HELLO", new String(Files.readAllBytes(new File(result.deviceDirectory, "05.device").toPath()),
+                    StandardCharsets.US_ASCII));
+        }
+        //template은 복사만 되고 바뀌지 않는다
+        assertEquals("HELLO!", new String(Files.readAllBytes(new File(template, "F1.device").toPath()), StandardCharsets.US_ASCII));
+    }
+}
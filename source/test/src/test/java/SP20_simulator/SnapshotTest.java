@@ -0,0 +1,100 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 쓰기가 일어난 page만 복사하는 snapshot 저장/복원 test
+ */
+class SnapshotTest {
+    static final int PAGE = ResourceManager.PAGE_SIZE;
+
+    @Test
+    void dirtyPagesCopiedAndRestored() throws IOException {
+        ResourceManager rMgr = new ResourceManager();
+        rMgr.initializeResource();
+        rMgr.writeByte(0x10, 0xAA);
+        rMgr.writeByte(2 * PAGE + 5, 0xBB);
+        rMgr.setRegister(0, 0x123456);
+        rMgr.setRegister(9, 0x40);
+        rMgr.register_F = 1.5;
+
+        MachineSnapshot first = rMgr.takeSnapshot();
+        //쓰기가 있던 page는 복사하고, 할당되지 않은 page는 null로 둔다
+        assertNotSame(rMgr.pages[0], first.pages[0]);
+        assertNull(first.pages[1]);
+        assertEquals((byte) 0xBB, first.pages[2][5]);
+        for (int page = 0; page < rMgr.pageDirty.length; page++)
+            assertFalse(rMgr.pageDirty[page]);
+
+        //page 2에만 쓰면 다음 snapshot은 page 0을 공유하고 page 2만 새로 복사한다
+        rMgr.writeByte(2 * PAGE + 5, 0xCC);
+        assertTrue(rMgr.pageDirty[2]);
+        assertFalse(rMgr.pageDirty[0]);
+        MachineSnapshot second = rMgr.takeSnapshot();
+        assertSame(first.pages[0], second.pages[0]);
+        assertNotSame(first.pages[2], second.pages[2]);
+        assertEquals((byte) 0xBB, first.pages[2][5]);
+        assertEquals((byte) 0xCC, second.pages[2][5]);
+
+        //메모리, 레지스터를 바꾼 뒤 처음 snapshot으로 되돌린다
+        rMgr.writeByte(0x10, 0x11);
+        rMgr.writeByte(PAGE + 1, 0x22);
+        rMgr.setRegister(0, 0);
+        rMgr.setRegister(9, 0x80);
+        rMgr.register_F = -3;
+        rMgr.restoreSnapshot(first);
+        assertEquals(0xAA, rMgr.readByte(0x10));
+        assertEquals(0xBB, rMgr.readByte(2 * PAGE + 5));
+        assertEquals(0, rMgr.readByte(PAGE + 1));
+        assertNull(rMgr.pages[1]);
+        assertEquals(0x123456, rMgr.getRegister(0));
+        assertEquals(0x40, rMgr.getRegister(9));
+        assertEquals(1.5, rMgr.register_F);
+        assertSame(first.pages, rMgr.basePages);
+
+        //복원된 메모리에 써도 snapshot의 page는 바뀌지 않으므로 여러 번 되돌릴 수 있다
+        rMgr.writeByte(0x10, 0x33);
+        assertEquals((byte) 0xAA, first.pages[0][0x10]);
+        rMgr.restoreSnapshot(second);
+        assertEquals(0xAA, rMgr.readByte(0x10));
+        assertEquals(0xCC, rMgr.readByte(2 * PAGE + 5));
+        rMgr.restoreSnapshot(first);
+        assertEquals(0xBB, rMgr.readByte(2 * PAGE + 5));
+    }
+
+    @Test
+    void checkpointRestoresExecution() throws IOException {
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = new SicSimulator(rMgr);
+        sim.load(null);
+        String program = StepBackTest.LOOP_PROGRAM;
+        rMgr.setMemory(0, program.toCharArray(), program.length() / 2);
+
+        sim.run(20);
+        MachineSnapshot snapshot = sim.checkpoint();
+        int[] register = new int[10];
+        for (int r = 0; r < register.length; r++)
+            register[r] = rMgr.getRegister(r);
+        assertTrue(sim.run(0));
+        assertEquals(0xFA0, rMgr.getRegister(0));
+        long steps = sim.stepCount;
+
+        //되돌린 뒤 다시 수행하면 같은 결과가 나온다
+        sim.restore(snapshot);
+        assertEquals(20, sim.stepCount);
+        for (int r = 0; r < register.length; r++)
+            assertEquals(register[r], rMgr.getRegister(r), "register " + r);
+        assertTrue(sim.run(0));
+        assertEquals(0xFA0, rMgr.getRegister(0));
+        assertEquals(steps, sim.stepCount);
+    }
+}
@@ -0,0 +1,78 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 되돌리기(step back)와 log(trace) 보관 개수 test
+ */
+class StepBackTest {
+    //LDA #0, LDX #0, loop: ADD #1, TIX #4000, JLT loop, J @zero
+    static final String LOOP_PROGRAM = "010000" + "050000" + "190001" + "2D0FA0" + "3B2FF7" + "3E2000" + "000000";
+
+    SicSimulator simulator(ResourceManager rMgr, int traceCapacity) throws IOException {
+        SicSimulator sim = new SicSimulator(rMgr);
+        sim.trace = new TraceBuffer(traceCapacity);
+        sim.load(null);
+        rMgr.setMemory(0, LOOP_PROGRAM.toCharArray(), LOOP_PROGRAM.length() / 2);
+        return sim;
+    }
+
+    @Test
+    void stepBackStopsAtTraceDepth() throws IOException {
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = simulator(rMgr, 16);
+        sim.enableUndo(UndoJournal.DEFAULT_CAPACITY);
+        sim.run(100);
+        assertEquals(16, sim.trace.size());
+
+        //변경 기록은 100개가 모두 남아 있지만 log에 남은 16개까지만 되돌린다
+        assertEquals(16, sim.stepBack(1000));
+        assertFalse(sim.canStepBack());
+        assertEquals(0, sim.trace.size());
+        assertEquals(84, sim.stepCount);
+
+        ResourceManager expected = new ResourceManager();
+        simulator(expected, 16).run(84);
+        assertArrayEquals(expected.register, rMgr.register);
+    }
+
+    @Test
+    void traceAfterStepBackShowsOnlyKeptRecords() throws IOException {
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = simulator(rMgr, 16);
+        sim.enableUndo(UndoJournal.DEFAULT_CAPACITY);
+        sim.run(100);
+        String last = sim.trace.formatInst(sim.trace.count, 15);
+
+        assertEquals(4, sim.stepBack(4));
+        assertEquals(12, sim.trace.size());
+        //다시 수행하면 지운 자리가 같은 기록으로 채워진다
+        sim.run(4);
+        assertEquals(16, sim.trace.size());
+        assertEquals(last, sim.trace.formatInst(sim.trace.count, 15));
+        assertTrue(sim.canStepBack());
+    }
+
+    @Test
+    void removeLastWithinCapacity() {
+        TraceBuffer trace = new TraceBuffer(4);
+        for (int i = 0; i < 3; i++)
+            trace.add(i, 0, 0, 3, -1);
+        assertTrue(trace.removeLast());
+        assertEquals(2, trace.size());
+        for (int i = 0; i < 6; i++)
+            trace.add(i, 0, 0, 3, -1);
+        assertEquals(4, trace.size());
+        for (int i = 0; i < 4; i++)
+            assertTrue(trace.removeLast());
+        assertFalse(trace.removeLast());
+        assertEquals(4, trace.count);
+    }
+}
@@ -0,0 +1,86 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * open addressing SymbolTable test
+ */
+class SymbolTableTest {
+    static final int SYMBOLS = 1000;
+
+    static String name(int i) {
+        return String.format("S%05d", i);
+    }
+
+    @Test
+    void collisionsAndGrowth() {
+        SymbolTable symtab = new SymbolTable();
+        //비슷한 이름을 table 크기보다 훨씬 많이 넣어 충돌과 resize가 모두 일어나게 한다
+        for (int i = 0; i < SYMBOLS; i++)
+            assertTrue(symtab.putSymbol(name(i), i * 3));
+        assertEquals(SYMBOLS, symtab.size());
+        assertTrue(symtab.symbols.length > SymbolTable.MIN_CAPACITY);
+        //빈 칸이 항상 남아 있어야 탐색이 끝난다
+        assertTrue(symtab.size() * 2 <= symtab.symbols.length);
+
+        for (int i = 0; i < SYMBOLS; i++) {
+            assertEquals(i * 3, symtab.search(name(i)));
+            byte[] data = (" " + name(i) + " ").getBytes(StandardCharsets.US_ASCII);
+            assertEquals(i * 3, symtab.search(data, 1, 6));
+        }
+        assertEquals(-1, symtab.search(name(SYMBOLS)));
+        assertEquals(-1, symtab.search("S0000".getBytes(StandardCharsets.US_ASCII), 0, 5));
+
+        //중복은 추가하지 않고 주소도 바꾸지 않는다
+        assertFalse(symtab.putSymbol(name(7), 0));
+        assertEquals(21, symtab.search(name(7)));
+        assertEquals(SYMBOLS, symtab.size());
+        symtab.modifySymbol(name(7), 0x100);
+        assertEquals(0x100, symtab.search(name(7)));
+
+        symtab.clear();
+        assertEquals(0, symtab.size());
+        assertEquals(-1, symtab.search(name(0)));
+        assertTrue(symtab.putSymbol(name(0), 5));
+        assertEquals(5, symtab.search(name(0)));
+    }
+
+    @Test
+    void sectionScope() {
+        SymbolTable symtab = new SymbolTable();
+        assertTrue(symtab.putSymbol("BUFFER", 0x33));
+        //참조 번호는 section마다 다른 symbol을 가리킬 수 있다
+        assertTrue(symtab.putSymbol("RDREC", "02", 0x1000));
+        assertTrue(symtab.putSymbol("WRREC", "02", 0x2000));
+        assertFalse(symtab.putSymbol("RDREC", "02", 0x3000));
+        //section의 symbol이 같은 이름의 전역 symbol보다 먼저 보인다
+        assertTrue(symtab.putSymbol("WRREC", "BUFFER", 0x44));
+
+        byte[] number = "+02".getBytes(StandardCharsets.US_ASCII);
+        byte[] buffer = "BUFFER".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0x1000, symtab.search("RDREC", number, 1, 2));
+        assertEquals(0x2000, symtab.search("WRREC", number, 1, 2));
+        assertEquals(0x1000, symtab.search("RDREC", "02"));
+        assertEquals(0x33, symtab.search("RDREC", buffer, 0, 6));
+        assertEquals(0x44, symtab.search("WRREC", buffer, 0, 6));
+        //section 밖에서는 전역 symbol만 보인다
+        assertEquals(-1, symtab.search(number, 1, 2));
+        assertEquals(-1, symtab.search("02"));
+        assertEquals(0x33, symtab.search("BUFFER"));
+        assertEquals(-1, symtab.search("COPY", number, 1, 2));
+
+        //resize 후에도 scope가 유지된다
+        for (int i = 0; i < SYMBOLS; i++)
+            symtab.putSymbol(name(i), i);
+        assertEquals(0x1000, symtab.search("RDREC", number, 1, 2));
+        assertEquals(0x2000, symtab.search("WRREC", "02"));
+        assertEquals(0x44, symtab.search("WRREC", "BUFFER"));
+        assertEquals(0x33, symtab.search("BUFFER"));
+    }
+}
@@ -0,0 +1,86 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * binary trace(TraceWriter)를 TraceReplay로 복원한 레지스터가 실제 수행 결과와 같은지 확인하는 test
+ */
+class TraceReplayTest {
+    //LDA #5, LDS #3, LDT #10, FLOAT, ADDR S,A, RMO A,B, TIXR T, FIX, COMPR A,T, CLEAR X,
+    //loop: TIXR T, JLT loop
+    static final String PROGRAM = "010005" + "6D0003" + "75000A" + "C0" + "9040" + "AC03" + "B850" + "C4" + "A005" + "B410"
+            + "B850" + "3B2FFB";
+    //loop 앞의 명령어 10개 + 10번 도는 loop (TIXR, JLT)
+    static final int STEPS = 10 + 10 * 2;
+
+    @TempDir
+    Path dir;
+
+    void replayEqualsLive(boolean compress) throws IOException {
+        ResourceManager rMgr = new ResourceManager();
+        SicSimulator sim = new SicSimulator(rMgr);
+        sim.load(null);
+        rMgr.setMemory(0, PROGRAM.toCharArray(), PROGRAM.length() / 2);
+        SicLoader loader = new SicLoader(rMgr);
+        loader.programName = "TRACE";
+        File file = dir.resolve("test" + TraceWriter.FILE_SUFFIX).toFile();
+        sim.traceWriter = new TraceWriter(file, compress, loader, rMgr);
+
+        //header 이후에 여러 레지스터를 바꿔 두면 첫 record에 LDA의 A와 함께 모두 담겨야 한다
+        rMgr.setRegister(2, 0x123456);
+        rMgr.setRegister(3, 0x654321);
+        rMgr.setRegister(4, 0x000777);
+        rMgr.setRegister(5, 0xABCDEF);
+        rMgr.setRegister(9, 0x000040);
+        rMgr.register_F = 2.5;
+
+        List<int[]> live = new ArrayList<>();
+        List<Double> liveF = new ArrayList<>();
+        for (int i = 0; i < STEPS; i++) {
+            assertTrue(sim.oneStep());
+            int[] register = new int[10];
+            for (int r = 0; r < register.length; r++)
+                register[r] = rMgr.getRegister(r) & 0xFFFFFF;
+            live.add(register);
+            liveF.add(rMgr.register_F);
+        }
+        //loop가 끝나 X가 T와 같아졌다
+        assertEquals(10, rMgr.getRegister(1));
+        sim.traceWriter.close(rMgr.getRegister(8));
+
+        try (TraceReplay replay = new TraceReplay(file)) {
+            assertEquals("TRACE ", replay.programName);
+            for (int i = 0; i < STEPS; i++) {
+                assertTrue(replay.next());
+                int[] register = new int[10];
+                for (int r = 0; r < register.length; r++)
+                    register[r] = replay.register[r] & 0xFFFFFF;
+                assertArrayEquals(live.get(i), register, "registers after step " + i);
+                assertEquals(liveF.get(i), replay.registerF, "F after step " + i);
+            }
+            assertFalse(replay.next());
+        }
+    }
+
+    @Test
+    void replayEqualsLive() throws IOException {
+        replayEqualsLive(false);
+    }
+
+    @Test
+    void compressedReplayEqualsLive() throws IOException {
+        replayEqualsLive(true);
+    }
+}
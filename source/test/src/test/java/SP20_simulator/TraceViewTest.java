@@ -0,0 +1,51 @@
+package SP20_simulator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * log, 명령어 화면 model test (화면 없이 model만 확인한다)
+ */
+class TraceViewTest {
+
+    static void add(TraceBuffer trace, int n) {
+        //ADD #n (190000 + n)
+        trace.add(n * 3, 0x18 >> 2, 0x190000 + n, 3, -1);
+    }
+
+    @Test
+    void rowsComeFromSnapshotCopy() {
+        TraceBuffer trace = new TraceBuffer(16);
+        trace.mnemonic[0x18 >> 2] = "ADD";
+        TraceListModel model = new TraceListModel(trace, false);
+        for (int n = 0; n < 20; n++)
+            add(trace, n);
+
+        //기록이 늘었으므로 마지막 4행을 복사한다
+        model.setVisibleRows(0, 4);
+        long total = trace.count;
+        model.refresh(total, model.copyVisible(total));
+        assertEquals(16, model.getSize());
+        assertEquals("", model.getElementAt(0));
+        assertEquals("190013", model.getElementAt(15));
+        assertEquals("190010", model.getElementAt(12));
+
+        //수행이 이어져 ring buffer가 덮어쓰여도 다음 복사 전까지는 복사본을 보인다
+        for (int n = 20; n < 40; n++)
+            add(trace, n);
+        assertEquals("190013", model.getElementAt(15));
+        total = trace.count;
+        model.refresh(total, model.copyVisible(total));
+        assertEquals("190027", model.getElementAt(15));
+
+        //기록이 그대로면 지금 보이는 행을 복사한다
+        TraceListModel log = new TraceListModel(trace, true);
+        log.refresh(total, null);
+        log.setVisibleRows(2, 3);
+        log.refreshVisible();
+        assertEquals("", log.getElementAt(15));
+        assertEquals("ADD", log.getElementAt(2));
+        assertEquals("", log.getElementAt(5));
+    }
+}